@@ -0,0 +1,40 @@
+package com.example.orders.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Запускает все бенчмарки для каждого числа потоков и пишет отдельный JSON на каждый прогон,
+// чтобы результаты разных релизов можно было сравнивать файл в файл.
+//   -Dbench.threads=1,4,16       число потоков
+//   -Dbench.dataSize=1000,100000 размер данных (по умолчанию - значения из @Param)
+//   -Dbench.include=Order.*      фильтр бенчмарков (регулярное выражение)
+//   -Dbench.resultDir=target     каталог для JSON
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        String[] threadCounts = System.getProperty("bench.threads", "1,4").split(",");
+        String include = System.getProperty("bench.include", ".*Benchmark.*");
+        String dataSizes = System.getProperty("bench.dataSize");
+        String resultDir = System.getProperty("bench.resultDir", "target");
+
+        for (String value : threadCounts) {
+            int threads = Integer.parseInt(value.trim());
+
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    // У каждого потока свое соединение, плюс запас для служебных задач пула
+                    .jvmArgsAppend("-Ddb.pool.maxSize=" + (threads + 2))
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultDir + "/jmh-result-threads-" + threads + ".json");
+
+            if (dataSizes != null) {
+                options.param("dataSize", dataSizes.split(","));
+            }
+
+            new Runner(options.build()).run();
+        }
+    }
+}
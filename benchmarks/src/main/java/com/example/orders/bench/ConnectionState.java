@@ -0,0 +1,50 @@
+package com.example.orders.bench;
+
+import com.example.orders.dao.CustomerDAO;
+import com.example.orders.dao.OrderDAO;
+import com.example.orders.dao.ProductDAO;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.SplittableRandom;
+
+// У каждого потока бенчмарка свое соединение из пула и свои DAO
+@State(Scope.Thread)
+public class ConnectionState {
+    Connection connection;
+    OrderDAO orderDAO;
+    ProductDAO productDAO;
+    CustomerDAO customerDAO;
+
+    private long[] productIds;
+    private long[] customerIds;
+    private final SplittableRandom random = new SplittableRandom();
+
+    @Setup(Level.Trial)
+    public void open(DatabaseState database) throws SQLException {
+        connection = database.dbManager.getConnection();
+        orderDAO = new OrderDAO(connection, database.dbManager.getIdGenerator());
+        productDAO = new ProductDAO(connection, database.dbManager.getIdGenerator());
+        customerDAO = new CustomerDAO(connection, database.dbManager.getIdGenerator());
+        productIds = database.productIds;
+        customerIds = database.customerIds;
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws SQLException {
+        connection.close();
+    }
+
+    long randomProductId() {
+        return productIds[random.nextInt(productIds.length)];
+    }
+
+    long randomCustomerId() {
+        return customerIds[random.nextInt(customerIds.length)];
+    }
+}
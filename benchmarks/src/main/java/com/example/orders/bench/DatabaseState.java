@@ -0,0 +1,170 @@
+package com.example.orders.bench;
+
+import com.example.orders.DatabaseManager;
+import com.example.orders.bulk.BulkLoader;
+import com.example.orders.bulk.CopyFormat;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+// Общая для всех потоков база: схема должна быть уже создана (один запуск App).
+// Перед каждым trial покупатели и заказы приводятся к dataSize: недостающие догружаются через COPY,
+// лишние (например, после trial с большим dataSize) удаляются, начиная с последних по id.
+// Поэтому база для бенчмарков должна быть отдельной.
+// Параметры подключения берутся из application.properties и могут быть переопределены -Ddb.*
+@State(Scope.Benchmark)
+public class DatabaseState {
+    @Param({"1000", "100000"})
+    public int dataSize;
+
+    DatabaseManager dbManager;
+    long[] productIds;
+    long[] customerIds;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        dbManager = createDatabaseManager();
+
+        try (Connection connection = dbManager.getConnection()) {
+            BulkLoader loader = new BulkLoader(connection);
+
+            productIds = loadIds(connection, "SELECT id FROM products ORDER BY id");
+            trimToDataSize(connection);
+
+            long missingCustomers = dataSize - count(connection, "customer");
+            if (missingCustomers > 0) {
+                System.out.println("📥 " + loader.loadCustomers(customersCsv(missingCustomers), CopyFormat.CSV));
+            }
+
+            customerIds = loadIds(connection, "SELECT id FROM customer ORDER BY id");
+            long missingOrders = dataSize - count(connection, "orders");
+            if (missingOrders > 0) {
+                System.out.println("📥 " + loader.loadOrders(ordersCsv(missingOrders), CopyFormat.CSV));
+            }
+        }
+    }
+
+    // Заказы удаляются обычным DELETE, чтобы триггеры агрегатов и витрины остались согласованными.
+    // Из покупателей удаляются только созданные бенчмарком и без заказов
+    private void trimToDataSize(Connection connection) throws SQLException {
+        long extraOrders = count(connection, "orders") - dataSize;
+        long extraCustomers = count(connection, "customer") - dataSize;
+        if (extraOrders <= 0 && extraCustomers <= 0) {
+            return;
+        }
+
+        long deletedOrders = 0;
+        long deletedCustomers = 0;
+        if (extraOrders > 0) {
+            try (PreparedStatement statement = connection.prepareStatement("""
+                    DELETE FROM orders
+                    WHERE (id, order_date) IN (SELECT id, order_date FROM orders ORDER BY id DESC LIMIT ?)
+                    """)) {
+                statement.setLong(1, extraOrders);
+                deletedOrders = statement.executeUpdate();
+            }
+        }
+        if (extraCustomers > 0) {
+            try (PreparedStatement statement = connection.prepareStatement("""
+                    DELETE FROM customer
+                    WHERE id IN (SELECT c.id FROM customer c
+                                 WHERE c.email LIKE 'bench-%'
+                                   AND NOT EXISTS (SELECT 1 FROM orders o WHERE o.customer_id = c.id)
+                                 ORDER BY c.id DESC
+                                 LIMIT ?)
+                    """)) {
+                statement.setLong(1, extraCustomers);
+                deletedCustomers = statement.executeUpdate();
+            }
+        }
+
+        // Мертвые строки после удаления не должны влиять на замеры
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("VACUUM ANALYZE orders, customer");
+        }
+        System.out.println("🧹 Удалено сверх dataSize=" + dataSize + ": заказов " + deletedOrders
+                + ", покупателей " + deletedCustomers);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dbManager.close();
+    }
+
+    private static DatabaseManager createDatabaseManager() throws Exception {
+        Properties properties = new Properties();
+        try (InputStream input = DatabaseState.class.getClassLoader().getResourceAsStream("application.properties")) {
+            if (input != null) {
+                properties.load(input);
+            }
+        }
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("db.") || name.startsWith("cache.")) {
+                properties.setProperty(name, System.getProperty(name));
+            }
+        }
+        return new DatabaseManager(
+                properties.getProperty("db.url"),
+                properties.getProperty("db.username"),
+                properties.getProperty("db.password"),
+                properties);
+    }
+
+    private static long count(Connection connection, String table) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + table)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private static long[] loadIds(Connection connection, String sql) throws SQLException {
+        List<Long> ids = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                ids.add(resultSet.getLong(1));
+            }
+        }
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static InputStream customersCsv(long rows) {
+        String tag = Long.toString(System.nanoTime(), 36);
+        StringBuilder csv = new StringBuilder("first_name,last_name,phone,email\n");
+        for (long i = 0; i < rows; i++) {
+            csv.append("Bench,Customer").append(i).append(",+7-000-000-00-00,")
+                    .append("bench-").append(tag).append('-').append(i).append("@example.com\n");
+        }
+        return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private InputStream ordersCsv(long rows) {
+        Random random = new Random(42);
+        StringBuilder csv = new StringBuilder("product_id,customer_id,order_date,quantity,status_id\n");
+        for (long i = 0; i < rows; i++) {
+            csv.append(productIds[random.nextInt(productIds.length)]).append(',')
+                    .append(customerIds[random.nextInt(customerIds.length)]).append(',')
+                    .append("2025-09-").append(String.format("%02d", 1 + random.nextInt(28))).append(" 12:00:00,")
+                    .append(1 + random.nextInt(3)).append(',')
+                    .append(1 + random.nextInt(7)).append('\n');
+        }
+        return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+}
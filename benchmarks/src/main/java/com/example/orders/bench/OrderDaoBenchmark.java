@@ -0,0 +1,34 @@
+package com.example.orders.bench;
+
+import com.example.orders.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderDaoBenchmark {
+
+    @Benchmark
+    public Order create(ConnectionState state) throws SQLException {
+        Order order = new Order(state.randomProductId(), state.randomCustomerId(), 1, 1L);
+        state.orderDAO.create(order);
+        return order;
+    }
+
+    @Benchmark
+    public List<Order> findLastOrders(ConnectionState state) throws SQLException {
+        return state.orderDAO.findLastOrders(20);
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.orders.bench;
+
+import com.example.orders.model.Product;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProductDaoBenchmark {
+
+    @Benchmark
+    public Product findById(ConnectionState state) throws SQLException {
+        return state.productDAO.findById(state.randomProductId());
+    }
+
+    // Перезаписывает строку теми же значениями: нагрузка как у обычного update без дрейфа данных
+    @Benchmark
+    public Product update(ConnectionState state) throws SQLException {
+        Product product = state.productDAO.findById(state.randomProductId());
+        state.productDAO.update(product);
+        return product;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.orders.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// SELECT-запросы 1-5 из test-queries.sql; запросы на изменение данных не измеряются
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TestQueriesBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class QueryState {
+        @Param({"1", "2", "3", "4", "5"})
+        public int queryNumber;
+
+        String sql;
+
+        @Setup(Level.Trial)
+        public void load() throws Exception {
+            String content;
+            try (InputStream input = getClass().getClassLoader().getResourceAsStream("test-queries.sql")) {
+                if (input == null) {
+                    throw new IllegalStateException("Файл test-queries.sql не найден");
+                }
+                content = new String(input.readAllBytes(), StandardCharsets.UTF_8);
+            }
+
+            // Та же разбивка, что и в QueryExecutor; строки-комментарии отбрасываются
+            String query = content.split(";\\s*\\n")[queryNumber - 1];
+            sql = Arrays.stream(query.split("\\n"))
+                    .filter(line -> !line.trim().startsWith("--"))
+                    .collect(Collectors.joining("\n"))
+                    .trim();
+            if (!sql.toUpperCase().startsWith("SELECT")) {
+                throw new IllegalStateException("Запрос #" + queryNumber + " не является SELECT");
+            }
+        }
+    }
+
+    @Benchmark
+    public void select(ConnectionState state, QueryState query, Blackhole blackhole) throws SQLException {
+        try (Statement statement = state.connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(query.sql)) {
+            int columnCount = resultSet.getMetaData().getColumnCount();
+            while (resultSet.next()) {
+                for (int i = 1; i <= columnCount; i++) {
+                    blackhole.consume(resultSet.getObject(i));
+                }
+            }
+        }
+    }
+}
@@ -1,7 +1,29 @@
 package com.example.orders;
 
+import com.example.orders.analytics.OrderSnapshot;
+import com.example.orders.cache.StatusRegistry;
+import com.example.orders.dao.OrderDAO;
+import com.example.orders.dao.SalesReportDAO;
+import com.example.orders.export.ExportManifest;
+import com.example.orders.export.SnapshotExporter;
+import com.example.orders.id.IdGenerator;
+import com.example.orders.metrics.StatementMetrics;
+import com.example.orders.notify.ChangeNotifier;
+import com.example.orders.partition.PartitionManager;
+import com.example.orders.plan.PlanRegression;
+import com.example.orders.ranking.SalesLeaderboard;
+import com.example.orders.render.OutputFormat;
+import com.example.orders.render.ResultStreamer;
+import com.example.orders.render.RowSink;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.*;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Arrays;
@@ -11,12 +33,19 @@ public class App {
     private static int newProductId;
     private static int newCustomerId;
     private static int newOrderId;
+    private static IdGenerator idGenerator;
+    private static StatusRegistry statusRegistry;
+    // Формат вывода результатов SELECT: -Dreport.format=table|csv|jsonl
+    private static final OutputFormat REPORT_FORMAT = OutputFormat.parse(System.getProperty("report.format", "table"));
+    // Захват планов тестовых запросов: -Dplans.capture=run (сравнить с эталоном) или baseline (сохранить эталон)
+    private static final String PLANS_CAPTURE = System.getProperty("plans.capture", "off");
+    // Согласованная выгрузка базы в каталог перед демонстрацией: -Dexport.dir=<путь>
+    private static final String EXPORT_DIR = System.getProperty("export.dir");
 
     public static void main(String[] args) {
         printHeader("🚀 ЗАПУСК JAVA-ПРИЛОЖЕНИЯ ДЛЯ УПРАВЛЕНИЯ ЗАКАЗАМИ");
 
-        try {
-            DatabaseManager dbManager = DatabaseManager.fromProperties();
+        try (DatabaseManager dbManager = DatabaseManager.fromProperties()) {
             printSuccess("Подключение к PostgreSQL установлено");
 
             // Выполняем миграции Flyway
@@ -24,12 +53,42 @@ public class App {
             dbManager.migrate();
             printSuccess("Миграции выполнены успешно");
 
+            PartitionManager partitionManager = dbManager.getPartitionManager();
+            try (Connection connection = dbManager.getConnection()) {
+                printInfo("Секции заказов: " + partitionManager.listPartitions(connection).size());
+            }
+
+            statusRegistry = dbManager.getStatusRegistry();
+            if (dbManager.getChangeNotifier() != null) {
+                printSuccess("Подписка на изменения таблиц (LISTEN " + ChangeNotifier.CHANNEL + ") запущена");
+            }
+            if (dbManager.getOrderArchiver() != null) {
+                printInfo("Фоновая архивация заказов включена");
+            }
+            printSuccess("Справочник статусов загружен: " + statusRegistry.findAll().size() + " статусов");
+
+            // ЗАХВАТ ПЛАНОВ ДО ИЗМЕНЕНИЯ ДАННЫХ ДЕМОНСТРАЦИЕЙ
+            if (!"off".equals(PLANS_CAPTURE)) {
+                capturePlans(dbManager, "baseline".equals(PLANS_CAPTURE));
+            }
+
+            if (EXPORT_DIR != null) {
+                exportSnapshot(dbManager, Path.of(EXPORT_DIR));
+            }
+
             // ДЕМОНСТРАЦИЯ CRUD ОПЕРАЦИЙ
             demonstrateCRUDOperations(dbManager);
 
             // ВЫПОЛНЕНИЕ ТЕСТОВЫХ SQL-ЗАПРОСОВ
             executeTestSQLQueries(dbManager);
 
+            // ОТЧЕТЫ ПО АГРЕГАТАМ ПРОДАЖ
+            showSalesReports(dbManager);
+
+            printInfo("Пул соединений: " + dbManager.getPoolStats());
+            printInfo("Кэш подготовленных операторов: " + dbManager.getStatementCacheStats());
+            StatementMetrics.print(System.out, StatementMetrics.snapshot());
+
         } catch (Exception e) {
             printError("Ошибка приложения: " + e.getMessage());
             e.printStackTrace();
@@ -41,6 +100,7 @@ public class App {
     private static void demonstrateCRUDOperations(DatabaseManager dbManager) {
         Connection connection = null;
         try {
+            idGenerator = dbManager.getIdGenerator();
             connection = dbManager.getConnection();
             connection.setAutoCommit(false);
 
@@ -229,17 +289,7 @@ public class App {
 
     // CRUD операции
     private static int insertNewProduct(Connection connection) throws SQLException {
-        String getMaxIdSql = "SELECT COALESCE(MAX(id), 0) + 1 as next_id FROM products";
-        int nextId;
-
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(getMaxIdSql)) {
-            if (rs.next()) {
-                nextId = rs.getInt("next_id");
-            } else {
-                throw new SQLException("Не удалось получить следующий ID для товара");
-            }
-        }
+        int nextId = Math.toIntExact(idGenerator.nextProductId(connection));
 
         String sql = "INSERT INTO products (id, description, price, quantity, category) VALUES (?, ?, ?, ?, ?)";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -255,17 +305,7 @@ public class App {
     }
 
     private static int insertNewCustomer(Connection connection) throws SQLException {
-        String getMaxIdSql = "SELECT COALESCE(MAX(id), 0) + 1 as next_id FROM customer";
-        int nextId;
-
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(getMaxIdSql)) {
-            if (rs.next()) {
-                nextId = rs.getInt("next_id");
-            } else {
-                throw new SQLException("Не удалось получить следующий ID для покупателя");
-            }
-        }
+        int nextId = Math.toIntExact(idGenerator.nextCustomerId(connection));
 
         String sql = "INSERT INTO customer (id, first_name, last_name, phone, email) VALUES (?, ?, ?, ?, ?)";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -281,17 +321,7 @@ public class App {
     }
 
     private static int createTestCustomerWithoutOrders(Connection connection) throws SQLException {
-        String getMaxIdSql = "SELECT COALESCE(MAX(id), 0) + 1 as next_id FROM customer";
-        int nextId;
-
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(getMaxIdSql)) {
-            if (rs.next()) {
-                nextId = rs.getInt("next_id");
-            } else {
-                throw new SQLException("Не удалось получить следующий ID для покупателя");
-            }
-        }
+        int nextId = Math.toIntExact(idGenerator.nextCustomerId(connection));
 
         String sql = "INSERT INTO customer (id, first_name, last_name, phone, email) VALUES (?, ?, ?, ?, ?)";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -307,17 +337,7 @@ public class App {
     }
 
     private static int createTestCancelledOrder(Connection connection) throws SQLException {
-        String getMaxIdSql = "SELECT COALESCE(MAX(id), 0) + 1 as next_id FROM orders";
-        int nextId;
-
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(getMaxIdSql)) {
-            if (rs.next()) {
-                nextId = rs.getInt("next_id");
-            } else {
-                throw new SQLException("Не удалось получить следующий ID для заказа");
-            }
-        }
+        int nextId = Math.toIntExact(idGenerator.nextOrderId(connection));
 
         String sql = "INSERT INTO orders (id, product_id, customer_id, order_date, quantity, status_id) VALUES (?, ?, ?, ?, ?, ?)";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -334,17 +354,7 @@ public class App {
     }
 
     private static int createNewOrder(Connection connection, int customerId, int productId) throws SQLException {
-        String getMaxIdSql = "SELECT COALESCE(MAX(id), 0) + 1 as next_id FROM orders";
-        int nextId;
-
-        try (Statement stmt = connection.createStatement();
-             ResultSet rs = stmt.executeQuery(getMaxIdSql)) {
-            if (rs.next()) {
-                nextId = rs.getInt("next_id");
-            } else {
-                throw new SQLException("Не удалось получить следующий ID для заказа");
-            }
-        }
+        int nextId = Math.toIntExact(idGenerator.nextOrderId(connection));
 
         String sql = "INSERT INTO orders (id, product_id, customer_id, order_date, quantity, status_id) VALUES (?, ?, ?, ?, ?, ?)";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
@@ -361,12 +371,10 @@ public class App {
     }
 
     private static void readLast5Orders(Connection connection) throws SQLException {
-        String sql = "SELECT o.id, o.order_date, c.first_name, c.last_name, p.description, p.price, o.quantity, os.status_name " +
-                "FROM orders o " +
-                "JOIN customer c ON o.customer_id = c.id " +
-                "JOIN products p ON o.product_id = p.id " +
-                "JOIN order_status os ON o.status_id = os.id " +
-                "ORDER BY o.order_date DESC " +
+        // Список заказов уже хранит покупателя, товар и статус (order_listing), соединения не нужны
+        String sql = "SELECT id, order_date, first_name, last_name, product_description AS description, price, quantity, status_name " +
+                "FROM order_listing " +
+                "ORDER BY order_date DESC, id DESC " +
                 "LIMIT 5";
 
         try (PreparedStatement stmt = connection.prepareStatement(sql);
@@ -402,8 +410,9 @@ public class App {
     }
 
     private static void updateOrderStatus(Connection connection) throws SQLException {
-        String sql = "UPDATE orders SET status_id = (SELECT id FROM order_status WHERE status_name = 'Завершен') WHERE id = 1";
+        String sql = "UPDATE orders SET status_id = ? WHERE id = 1";
         try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+            stmt.setLong(1, statusRegistry.requireId(StatusRegistry.COMPLETED));
             int updatedRows = stmt.executeUpdate();
             printSuccess("Обновлен статус заказа ID=1 на 'Завершен'");
         }
@@ -418,14 +427,13 @@ public class App {
     }
 
     private static void deleteTestData(Connection connection, int orderId, int customerId, int productId, int testCustomerId, int testCancelledOrderId) throws SQLException {
-        // Удаление тестового заказа
-        String deleteOrderSql = "DELETE FROM orders WHERE id = ?";
-        try (PreparedStatement stmt = connection.prepareStatement(deleteOrderSql)) {
-            stmt.setInt(1, orderId);
-            int deletedRows = stmt.executeUpdate();
-            if (deletedRows > 0) {
-                printSuccess("✅ Удален тестовый заказ ID: " + orderId);
-            }
+        // Удаление тестового и тестового отмененного заказов одним запросом
+        List<Long> deletedOrders = new OrderDAO(connection).deleteAll(List.of((long) orderId, (long) testCancelledOrderId));
+        if (deletedOrders.contains((long) orderId)) {
+            printSuccess("✅ Удален тестовый заказ ID: " + orderId);
+        }
+        if (deletedOrders.contains((long) testCancelledOrderId)) {
+            printSuccess("✅ Удален тестовый отмененный заказ ID: " + testCancelledOrderId);
         }
 
         // Удаление тестового покупателя
@@ -456,15 +464,6 @@ public class App {
                 printSuccess("✅ Удален тестовый покупатель без заказов ID: " + testCustomerId);
             }
         }
-
-        // Удаление тестового отмененного заказа
-        try (PreparedStatement stmt = connection.prepareStatement(deleteOrderSql)) {
-            stmt.setInt(1, testCancelledOrderId);
-            int deletedRows = stmt.executeUpdate();
-            if (deletedRows > 0) {
-                printSuccess("✅ Удален тестовый отмененный заказ ID: " + testCancelledOrderId);
-            }
-        }
     }
 
     private static void showProductState(Connection connection, int productId, String state) throws SQLException {
@@ -515,44 +514,119 @@ public class App {
     }
 
     // SQL запросы
-    private static void executeTestSQLQueries(DatabaseManager dbManager) {
-        printHeader("📊 ВЫПОЛНЕНИЕ ТЕСТОВЫХ SQL-ЗАПРОСОВ");
+    // Те же итоги, что в запросах 3 и 5, но из агрегатов без просмотра orders
+    private static void showSalesReports(DatabaseManager dbManager) {
+        printHeader("📈 ОТЧЕТЫ ПО АГРЕГАТАМ ПРОДАЖ");
 
         try (Connection connection = dbManager.getConnection()) {
+            SalesReportDAO reportDAO = new SalesReportDAO(connection);
+            YearMonth currentMonth = YearMonth.now();
 
-            List<TestQuery> queries = createTestQueries();
-            printSuccess("Загружено запросов: " + queries.size());
+            printInfo("Продажи по месяцам за последние два года:");
+            reportDAO.findMonthlySales(currentMonth.minusMonths(23), currentMonth)
+                    .forEach(summary -> System.out.println("   " + summary));
 
-            int executedQueries = 0;
-            for (TestQuery query : queries) {
-                printQueryHeader(query.number, query.description);
-                System.out.println("SQL: " + query.sql);
-                printSeparator();
+            printInfo("Покупатели с наибольшей суммой заказов:");
+            reportDAO.findTopCustomers(5).forEach(customer -> System.out.println("   " + customer));
 
-                // Для UPDATE и DELETE запросов показываем состояние до и после
-                if (query.sql.toUpperCase().startsWith("UPDATE") || query.sql.toUpperCase().startsWith("DELETE")) {
-                    showStateBeforeQuery(connection, query);
-                }
+            SalesLeaderboard leaderboard = dbManager.getSalesLeaderboard();
+            printInfo("Лидеры продаж из памяти (товар: заказов): " + leaderboard.topProducts(3).stream()
+                    .map(entry -> entry.getKey() + ": " + entry.getScore())
+                    .collect(Collectors.joining(", ")));
 
-                executeSingleQuery(connection, query);
+        } catch (SQLException e) {
+            printError("Ошибка построения отчетов: " + e.getMessage());
+        }
+    }
 
-                // Для UPDATE и DELETE запросов показываем состояние после
-                if (query.sql.toUpperCase().startsWith("UPDATE") || query.sql.toUpperCase().startsWith("DELETE")) {
-                    showStateAfterQuery(connection, query);
-                }
+    private static void capturePlans(DatabaseManager dbManager, boolean saveAsBaseline) {
+        try (Connection connection = dbManager.getConnection()) {
+            List<PlanRegression> regressions = new QueryExecutor(connection)
+                    .captureQueryPlans(PLANS_CAPTURE + " " + LocalDateTime.now(), saveAsBaseline, dbManager.getPlanComparator());
+            if (!regressions.isEmpty()) {
+                printError("Найдено регрессий планов: " + regressions.size());
+            }
+        } catch (SQLException e) {
+            printError("Ошибка захвата планов: " + e.getMessage());
+        }
+    }
 
-                executedQueries++;
+    private static void exportSnapshot(DatabaseManager dbManager, Path directory) {
+        printHeader("💾 ВЫГРУЗКА БАЗЫ ДАННЫХ");
+        try {
+            SnapshotExporter exporter = dbManager.createSnapshotExporter();
+            printInfo("Потоков: " + exporter.getParallelism() + ", формат: " + exporter.getFormat());
+            ExportManifest manifest = exporter.export(dbManager, directory);
+            manifest.getRowsByTable().forEach((table, rows) -> printInfo(table + ": " + rows + " строк"));
+            printSuccess("Выгружено " + manifest.getTotalRows() + " строк в " + manifest.getFiles().size()
+                    + " файлов за " + manifest.getElapsedMs() + " мс (снимок " + manifest.getSnapshotId() + ")");
+        } catch (SQLException | IOException | IllegalStateException e) {
+            printError("Ошибка выгрузки: " + e.getMessage());
+        }
+    }
+
+    private static void executeTestSQLQueries(DatabaseManager dbManager) {
+        printHeader("📊 ВЫПОЛНЕНИЕ ТЕСТОВЫХ SQL-ЗАПРОСОВ");
+
+        try (Connection connection = dbManager.getConnection()) {
+
+            List<TestQuery> queries = createTestQueries();
+            printSuccess("Загружено запросов: " + queries.size());
 
-                try { Thread.sleep(300); } catch (InterruptedException e) {}
+            List<String> statements = queries.stream().map(query -> query.sql).collect(Collectors.toList());
+            int[] executedQueries = {0};
+
+            OrderSnapshot snapshot = dbManager.getOrderSnapshot();
+            if (snapshot != null) {
+                int appended = snapshot.refresh(connection);
+                printInfo("Запросы 1-5 выполняются по снимку в памяти: заказов " + snapshot.getOrderCount()
+                        + " (новых " + appended + ")");
             }
 
-            printSuccess("Выполнено запросов: " + executedQueries + " из " + queries.size());
+            // SELECT выполняются параллельно на соединениях из пула и печатаются по порядку;
+            // UPDATE и DELETE - последовательно на этом соединении с показом состояния до и после
+            new ParallelQueryRunner(dbManager.getAsyncExecutor()).run(statements, connection,
+                    (queryConnection, index, sql) -> {
+                        TestQuery query = queries.get(index);
+                        if (snapshot != null && query.number <= 5) {
+                            return fetchSnapshotResult(snapshot, query);
+                        }
+                        if (ParallelQueryRunner.isReadOnly(sql)) {
+                            return fetchQueryResult(queryConnection, query);
+                        }
+                        executeModifyingQuery(queryConnection, query);
+                        return null;
+                    },
+                    (index, sql, result) -> {
+                        if (result != null) {
+                            printQueryResult(queries.get(index), result);
+                        }
+                        executedQueries[0]++;
+                    },
+                    // Запрос упал - временные файлы еще не напечатанных чтений удаляются
+                    result -> {
+                        if (result != null) {
+                            deleteSpool(result.spool);
+                        }
+                    });
+
+            printSuccess("Выполнено запросов: " + executedQueries[0] + " из " + queries.size());
 
         } catch (Exception e) {
             printError("Ошибка выполнения тестовых запросов: " + e.getMessage());
         }
     }
 
+    private static void executeModifyingQuery(Connection connection, TestQuery query) throws SQLException {
+        printQueryHeader(query.number, query.description);
+        System.out.println("SQL: " + query.sql);
+        printSeparator();
+
+        showStateBeforeQuery(connection, query);
+        executeSingleQuery(connection, query);
+        showStateAfterQuery(connection, query);
+    }
+
     private static List<TestQuery> createTestQueries() {
         List<TestQuery> queries = new ArrayList<>();
 
@@ -600,7 +674,7 @@ public class App {
                 "UPDATE products SET quantity = quantity - 1 WHERE id = 1"));
 
         queries.add(new TestQuery(7, "Обновление статуса заказа",
-                "UPDATE orders SET status_id = (SELECT id FROM order_status WHERE status_name = 'Завершен') " +
+                "UPDATE orders SET status_id = " + statusRegistry.requireId(StatusRegistry.COMPLETED) + " " +
                         "WHERE id = 1"));
 
         queries.add(new TestQuery(8, "Обновление цены товара",
@@ -611,7 +685,7 @@ public class App {
                 "DELETE FROM orders WHERE id IN (16, 17)"));
 
         queries.add(new TestQuery(10, "Удаление старых отмененных заказов",
-                "DELETE FROM orders WHERE status_id = (SELECT id FROM order_status WHERE status_name = 'Отменен') " +
+                "DELETE FROM orders WHERE status_id = " + statusRegistry.requireId(StatusRegistry.CANCELLED) + " " +
                         "AND order_date < '2025-09-20'"));
 
         return queries;
@@ -695,7 +769,7 @@ public class App {
     private static void showOldCancelledOrders(Connection connection, String state) throws SQLException {
         String sql = "SELECT COUNT(*) as count " +
                 "FROM orders " +
-                "WHERE status_id = (SELECT id FROM order_status WHERE status_name = 'Отменен') " +
+                "WHERE status_id = " + statusRegistry.requireId(StatusRegistry.CANCELLED) + " " +
                 "AND order_date < '2025-09-20'";
         try (Statement stmt = connection.createStatement();
              ResultSet rs = stmt.executeQuery(sql)) {
@@ -725,62 +799,80 @@ public class App {
 
     private static void executeSingleQuery(Connection connection, TestQuery query) {
         try (Statement statement = connection.createStatement()) {
-
-            if (query.sql.toUpperCase().startsWith("SELECT")) {
-                executeSelectQuery(statement, query.sql, query.number);
-            } else {
-                executeUpdateQuery(statement, query.sql, query.number);
-            }
-
+            executeUpdateQuery(statement, query.sql, query.number);
         } catch (Exception e) {
             printError("Ошибка запроса #" + query.number + ": " + e.getMessage());
         }
     }
 
-    private static void executeSelectQuery(Statement statement, String query, int queryNumber) throws SQLException {
-        try (ResultSet resultSet = statement.executeQuery(query)) {
-            ResultSetMetaData metaData = resultSet.getMetaData();
-            int columnCount = metaData.getColumnCount();
-
-            List<String> headers = new ArrayList<>();
-            List<Integer> columnWidths = new ArrayList<>();
-            List<List<String>> allRows = new ArrayList<>();
-            int rowCount = 0;
+    // Результат пишется курсором во временный файл, а не в память: параллельные запросы
+    // печатаются по порядку, и даже миллионы строк не занимают кучу
+    private static QueryResult fetchQueryResult(Connection connection, TestQuery query) {
+        return spoolQueryResult(query, sink -> new ResultStreamer().stream(connection, query.sql, sink));
+    }
 
-            while (resultSet.next()) {
-                List<String> row = new ArrayList<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    Object value = resultSet.getObject(i);
-                    String stringValue;
+    // Запросы 1-5 из колоночного снимка в памяти, без обращения к базе
+    private static QueryResult fetchSnapshotResult(OrderSnapshot snapshot, TestQuery query) {
+        return spoolQueryResult(query, sink -> switch (query.number) {
+            case 1 -> snapshot.recentOrders(LocalDate.now().minusDays(7).atStartOfDay(), sink);
+            case 2 -> snapshot.topProducts(3, sink);
+            case 3 -> snapshot.customerSpending(sink);
+            case 4 -> snapshot.lowStockProducts(10, sink);
+            case 5 -> snapshot.monthlyStats(sink);
+            default -> throw new IllegalArgumentException("Запрос #" + query.number + " не поддерживается снимком");
+        });
+    }
 
-                    if (value instanceof java.sql.Timestamp) {
-                        String dateString = value.toString();
-                        if (dateString.length() > 19) {
-                            dateString = dateString.substring(0, 19);
-                        }
-                        stringValue = dateString;
-                    } else {
-                        stringValue = value != null ? value.toString() : "NULL";
-                    }
+    private interface ResultWriter {
+        long write(RowSink sink) throws SQLException, IOException;
+    }
 
-                    row.add(stringValue);
-                }
-                allRows.add(row);
-                rowCount++;
+    private static QueryResult spoolQueryResult(TestQuery query, ResultWriter resultWriter) {
+        Path spool = null;
+        try {
+            spool = Files.createTempFile("query-" + query.number + "-", ".out");
+            long rowCount;
+            try (Writer writer = Files.newBufferedWriter(spool, StandardCharsets.UTF_8)) {
+                rowCount = resultWriter.write(REPORT_FORMAT.createSink(writer));
             }
+            return new QueryResult(spool, rowCount, null);
 
-            for (int i = 1; i <= columnCount; i++) {
-                String columnName = metaData.getColumnName(i);
-                int maxWidth = columnName.length();
-                for (List<String> row : allRows) {
-                    maxWidth = Math.max(maxWidth, row.get(i-1).length());
-                }
-                headers.add(columnName);
-                columnWidths.add(Math.max(maxWidth, 8) + 2);
-            }
+        } catch (SQLException | IOException | RuntimeException e) {
+            deleteSpool(spool);
+            return new QueryResult(null, 0, e.getMessage());
+        }
+    }
+
+    private static void printQueryResult(TestQuery query, QueryResult result) {
+        printQueryHeader(query.number, query.description);
+        System.out.println("SQL: " + query.sql);
+        printSeparator();
+
+        if (result.error != null) {
+            printError("Ошибка запроса #" + query.number + ": " + result.error);
+            return;
+        }
+
+        try {
+            System.out.flush();
+            Files.copy(result.spool, System.out);
+            System.out.flush();
+            printSuccess("Найдено строк: " + result.rowCount);
+        } catch (IOException e) {
+            printError("Ошибка вывода результата запроса #" + query.number + ": " + e.getMessage());
+        } finally {
+            deleteSpool(result.spool);
+        }
+    }
 
-            printTable(headers, allRows, columnWidths);
-            printSuccess("Найдено строк: " + rowCount);
+    private static void deleteSpool(Path spool) {
+        if (spool == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(spool);
+        } catch (IOException e) {
+            printError("Не удалось удалить временный файл " + spool + ": " + e.getMessage());
         }
     }
 
@@ -796,48 +888,6 @@ public class App {
     }
 
     // Вспомогательные методы для вывода
-    private static void printTable(List<String> headers, List<List<String>> rows, List<Integer> widths) {
-        printTableBorder("┌", "┬", "┐", widths);
-
-        StringBuilder headerLine = new StringBuilder("│");
-        for (int i = 0; i < headers.size(); i++) {
-            headerLine.append(" ").append(padCenter(headers.get(i), widths.get(i))).append(" │");
-        }
-        System.out.println(headerLine);
-
-        printTableBorder("├", "┼", "┤", widths);
-
-        for (List<String> row : rows) {
-            StringBuilder dataLine = new StringBuilder("│");
-            for (int i = 0; i < row.size(); i++) {
-                dataLine.append(" ").append(padRight(row.get(i), widths.get(i))).append(" │");
-            }
-            System.out.println(dataLine);
-        }
-
-        printTableBorder("└", "┴", "┘", widths);
-    }
-
-    private static void printTableBorder(String left, String middle, String right, List<Integer> widths) {
-        StringBuilder border = new StringBuilder(left);
-        for (int i = 0; i < widths.size(); i++) {
-            border.append("─".repeat(widths.get(i) + 2));
-            border.append(i < widths.size() - 1 ? middle : right);
-        }
-        System.out.println(border);
-    }
-
-    private static String padRight(String s, int length) {
-        return s.length() > length ? s.substring(0, length - 3) + "..." :
-                String.format("%-" + length + "s", s);
-    }
-
-    private static String padCenter(String s, int length) {
-        if (s.length() >= length) return s.substring(0, length);
-        int padding = length - s.length();
-        return " ".repeat(padding / 2) + s + " ".repeat(padding - padding / 2);
-    }
-
     private static void printHeader(String text) {
         System.out.println("\n" + "=".repeat(80));
         System.out.println("✨ " + text);
@@ -866,6 +916,18 @@ public class App {
         System.out.println("❌ " + text);
     }
 
+    private static class QueryResult {
+        Path spool;
+        long rowCount;
+        String error;
+
+        QueryResult(Path spool, long rowCount, String error) {
+            this.spool = spool;
+            this.rowCount = rowCount;
+            this.error = error;
+        }
+    }
+
     private static class TestQuery {
         int number;
         String description;
@@ -1,26 +1,412 @@
 package com.example.orders;
 
+import com.example.orders.analytics.OrderSnapshot;
+import com.example.orders.archive.ArchiveConfig;
+import com.example.orders.archive.OrderArchiver;
+import com.example.orders.async.AsyncExecutor;
+import com.example.orders.bulk.CopyFormat;
+import com.example.orders.cache.CacheStats;
+import com.example.orders.cache.ProductCache;
+import com.example.orders.cache.StatusRegistry;
+import com.example.orders.export.SnapshotExporter;
+import com.example.orders.id.IdGenerator;
+import com.example.orders.metrics.StatementMetrics;
+import com.example.orders.notify.ChangeEvent;
+import com.example.orders.notify.ChangeNotifier;
+import com.example.orders.partition.MaintenanceResult;
+import com.example.orders.partition.PartitionManager;
+import com.example.orders.plan.PlanComparator;
+import com.example.orders.pool.ConnectionPool;
+import com.example.orders.pool.ConnectionSource;
+import com.example.orders.pool.PoolConfig;
+import com.example.orders.pool.PoolStats;
+import com.example.orders.ranking.SalesLeaderboard;
+import com.example.orders.stock.StockLedger;
 import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.ValidateResult;
+import java.io.IOException;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.sql.Connection;
-import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Enumeration;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
 import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+public class DatabaseManager implements ConnectionSource, AutoCloseable {
+    // Каталог, из которого Flyway берет миграции (classpath:db/migration)
+    private static final String MIGRATION_LOCATION = "db/migration";
+    private static final Pattern MIGRATION_SCRIPT = Pattern.compile("V(\\d+(?:[._]\\d+)*)__.+\\.sql");
 
-public class DatabaseManager {
     private final String url;
     private final String username;
     private final String password;
+    private final Properties settings;
+    private final ConnectionPool pool;
+    private final IdGenerator idGenerator;
+    private final ProductCache productCache;
+    // Периодический вывод метрик общий для процесса; останавливается, только если запущен здесь
+    private final boolean metricsDumpStarted;
+    private StatusRegistry statusRegistry;
+    private StockLedger stockLedger;
+    private AsyncExecutor asyncExecutor;
+    private SalesLeaderboard salesLeaderboard;
+    private PartitionManager partitionManager;
+    private OrderSnapshot orderSnapshot;
+    private ChangeNotifier changeNotifier;
+    private OrderArchiver orderArchiver;
 
     public DatabaseManager(String url, String username, String password) {
+        this(url, username, password, new Properties());
+    }
+
+    // settings - остальные параметры из application.properties (пул, генератор id, кэши)
+    public DatabaseManager(String url, String username, String password, Properties settings) {
         this.url = url;
         this.username = username;
         this.password = password;
+        this.settings = settings;
+        this.pool = new ConnectionPool(url, username, password, PoolConfig.fromProperties(settings));
+        this.idGenerator = new IdGenerator((int) longSetting("db.id.blockSize", IdGenerator.DEFAULT_BLOCK_SIZE));
+
+        int productCacheSize = (int) longSetting("cache.products.maxSize", 0);
+        this.productCache = productCacheSize > 0
+                ? new ProductCache(productCacheSize, longSetting("cache.products.ttlMs", 300_000))
+                : null;
+
+        long metricsDumpIntervalMs = longSetting("metrics.dumpIntervalMs", 0);
+        this.metricsDumpStarted = metricsDumpIntervalMs > 0
+                && StatementMetrics.startPeriodicDump(metricsDumpIntervalMs, System.out);
+    }
+
+    // Соединение берется из пула; close() возвращает его обратно
+    @Override
+    public Connection getConnection() throws SQLException {
+        return pool.getConnection();
+    }
+
+    // Общий для всех DAO генератор id: блоки значений последовательностей на весь процесс
+    public IdGenerator getIdGenerator() {
+        return idGenerator;
+    }
+
+    // null, если кэш товаров выключен (cache.products.maxSize=0)
+    public ProductCache getProductCache() {
+        return productCache;
+    }
+
+    // Справочник статусов загружается при первом обращении и дальше обновляется в фоне
+    public synchronized StatusRegistry getStatusRegistry() throws SQLException {
+        if (statusRegistry == null) {
+            StatusRegistry registry = new StatusRegistry();
+            try (Connection connection = getConnection()) {
+                registry.load(connection);
+            }
+            long refreshIntervalMs = longSetting("cache.statusRegistry.refreshIntervalMs", 60_000);
+            if (refreshIntervalMs > 0) {
+                registry.startAutoRefresh(this, refreshIntervalMs);
+            }
+            statusRegistry = registry;
+        }
+        return statusRegistry;
+    }
+
+    // Остатки загружаются при первом обращении и периодически сверяются с products.quantity
+    public synchronized StockLedger getStockLedger() throws SQLException {
+        if (stockLedger == null) {
+            StockLedger ledger = new StockLedger(longSetting("stock.reservationTimeoutMs", 60_000));
+            try (Connection connection = getConnection()) {
+                ledger.load(connection);
+            }
+            long reconcileIntervalMs = longSetting("stock.reconcileIntervalMs", 10_000);
+            if (reconcileIntervalMs > 0) {
+                ledger.startReconciliation(this, reconcileIntervalMs);
+            }
+            stockLedger = ledger;
+        }
+        return stockLedger;
+    }
+
+    // Лидеры продаж загружаются из агрегатов при первом обращении и периодически перезагружаются
+    public synchronized SalesLeaderboard getSalesLeaderboard() throws SQLException {
+        if (salesLeaderboard == null) {
+            SalesLeaderboard leaderboard = new SalesLeaderboard((int) longSetting("leaderboard.size", 10));
+            try (Connection connection = getConnection()) {
+                leaderboard.load(connection);
+            }
+            long reloadIntervalMs = longSetting("leaderboard.reloadIntervalMs", 300_000);
+            if (reloadIntervalMs > 0) {
+                leaderboard.startAutoReload(this, reloadIntervalMs);
+            }
+            salesLeaderboard = leaderboard;
+        }
+        return salesLeaderboard;
+    }
+
+    // Секции orders проверяются сразу при первом обращении и дальше обслуживаются в фоне
+    public synchronized PartitionManager getPartitionManager() throws SQLException {
+        if (partitionManager == null) {
+            PartitionManager manager = new PartitionManager(
+                    (int) longSetting("partitions.orders.monthsAhead", 3),
+                    (int) longSetting("partitions.orders.retentionMonths", 0),
+                    PartitionManager.RetentionAction.valueOf(settings.getProperty(
+                            "partitions.orders.retentionAction", "detach").trim().toUpperCase(Locale.ROOT)));
+            try (Connection connection = getConnection()) {
+                MaintenanceResult result = manager.maintain(connection);
+                if (result.hasChanges()) {
+                    System.out.println("🗂️  Секции заказов: " + result);
+                }
+            }
+            long maintenanceIntervalMs = longSetting("partitions.orders.maintenanceIntervalMs", 3_600_000);
+            if (maintenanceIntervalMs > 0) {
+                manager.startMaintenance(this, maintenanceIntervalMs);
+            }
+            partitionManager = manager;
+        }
+        return partitionManager;
+    }
+
+    // Колоночный снимок для аналитических запросов; null, если выключен (analytics.snapshot.enabled=false)
+    public synchronized OrderSnapshot getOrderSnapshot() throws SQLException {
+        if (orderSnapshot == null && Boolean.parseBoolean(settings.getProperty("analytics.snapshot.enabled", "false"))) {
+            OrderSnapshot snapshot = new OrderSnapshot((int) longSetting("analytics.snapshot.parallelism",
+                    Runtime.getRuntime().availableProcessors()));
+            try (Connection connection = getConnection()) {
+                snapshot.reload(connection);
+            }
+            long refreshIntervalMs = longSetting("analytics.snapshot.refreshIntervalMs", 5_000);
+            if (refreshIntervalMs > 0) {
+                snapshot.startAutoRefresh(this, refreshIntervalMs, longSetting("analytics.snapshot.reloadIntervalMs", 600_000));
+            }
+            orderSnapshot = snapshot;
+        }
+        return orderSnapshot;
+    }
+
+    // Слушатель уведомлений об изменениях таблиц (V9); null, если выключен (notify.enabled=false).
+    // Подписывает кэши процесса: изменения с других узлов сбрасывают их без ожидания TTL.
+    public synchronized ChangeNotifier getChangeNotifier() {
+        if (changeNotifier == null && Boolean.parseBoolean(settings.getProperty("notify.enabled", "true"))) {
+            ChangeNotifier notifier = new ChangeNotifier(url, username, password, longSetting("notify.coalesceMs", 50));
+            notifier.subscribe("products", this::onProductsChanged);
+            notifier.subscribe("customer", this::onCustomersChanged);
+            notifier.subscribe("order_status", this::onStatusesChanged);
+            notifier.start();
+            changeNotifier = notifier;
+        }
+        return changeNotifier;
+    }
+
+    private void onProductsChanged(ChangeEvent event) {
+        if (productCache != null) {
+            if (event.isAllRows()) {
+                productCache.invalidateAll();
+            } else {
+                event.getIds().forEach(productCache::invalidate);
+            }
+        }
+        StockLedger ledger;
+        synchronized (this) {
+            ledger = stockLedger;
+        }
+        // Сверяются только измененные товары; собственные списания узла ledger пропускает сам
+        if (ledger != null) {
+            try (Connection connection = getConnection()) {
+                if (event.isAllRows()) {
+                    ledger.reconcile(connection);
+                } else {
+                    ledger.reconcile(connection, event.getIds());
+                }
+            } catch (SQLException e) {
+                System.err.println("⚠️  Не удалось сверить остатки после изменения товаров: " + e.getMessage());
+            }
+        }
+    }
+
+    private void onCustomersChanged(ChangeEvent event) {
+        OrderSnapshot snapshot;
+        synchronized (this) {
+            snapshot = orderSnapshot;
+        }
+        if (snapshot != null) {
+            try (Connection connection = getConnection()) {
+                snapshot.reloadCustomers(connection);
+            } catch (SQLException e) {
+                System.err.println("⚠️  Не удалось обновить покупателей снимка по уведомлению: " + e.getMessage());
+            }
+        }
+    }
+
+    private void onStatusesChanged(ChangeEvent event) {
+        StatusRegistry registry;
+        synchronized (this) {
+            registry = statusRegistry;
+        }
+        if (registry != null) {
+            try (Connection connection = getConnection()) {
+                registry.refreshIfChanged(connection);
+            } catch (SQLException e) {
+                System.err.println("⚠️  Не удалось обновить справочник статусов по уведомлению: " + e.getMessage());
+            }
+        }
     }
 
-    public Connection getConnection() throws Exception {
-        return DriverManager.getConnection(url, username, password);
+    // Фоновая архивация старых заказов (V10); null, если выключена (archive.enabled=false).
+    // Первый прогон - через archive.intervalMs после запуска, не во время старта приложения.
+    public synchronized OrderArchiver getOrderArchiver() {
+        if (orderArchiver == null && Boolean.parseBoolean(settings.getProperty("archive.enabled", "false"))) {
+            OrderArchiver archiver = new OrderArchiver(ArchiveConfig.fromProperties(settings));
+            if (archiver.getConfig().getIntervalMs() > 0) {
+                archiver.startSchedule(this);
+            }
+            orderArchiver = archiver;
+        }
+        return orderArchiver;
+    }
+
+    // Исполнитель для асинхронных DAO: по умолчанию одновременно в базе не больше запросов, чем соединений в пуле
+    public synchronized AsyncExecutor getAsyncExecutor() {
+        if (asyncExecutor == null) {
+            int maxInFlight = (int) longSetting("db.async.maxInFlight", pool.getConfig().getMaxSize());
+            asyncExecutor = new AsyncExecutor(this, maxInFlight);
+        }
+        return asyncExecutor;
+    }
+
+    private long longSetting(String key, long defaultValue) {
+        String value = settings.getProperty(key);
+        return value != null ? Long.parseLong(value.trim()) : defaultValue;
     }
 
+    // Параллельная выгрузка в одном снимке (export.*). Одно соединение занимает координатор,
+    // поэтому потоков не больше, чем соединений в пуле, минус один
+    public SnapshotExporter createSnapshotExporter() {
+        // Координатор держит одно соединение до конца выгрузки, потокам нужно хотя бы еще одно
+        int maxWorkers = pool.getConfig().getMaxSize() - 1;
+        if (maxWorkers < 1) {
+            throw new IllegalStateException("Для выгрузки нужен пул минимум из 2 соединений, db.pool.maxSize = "
+                    + pool.getConfig().getMaxSize());
+        }
+        int parallelism = (int) longSetting("export.parallelism", Runtime.getRuntime().availableProcessors());
+        return new SnapshotExporter(getAsyncExecutor(), Math.min(parallelism, maxWorkers),
+                longSetting("export.rangeIds", 100_000),
+                CopyFormat.valueOf(settings.getProperty("export.format", "csv").trim().toUpperCase(Locale.ROOT)));
+    }
+
+    // Пороги сравнения планов с эталоном (plans.regression.*)
+    public PlanComparator getPlanComparator() {
+        return PlanComparator.fromProperties(settings);
+    }
+
+    public PoolStats getPoolStats() {
+        return pool.getStats();
+    }
+
+    public CacheStats getStatementCacheStats() {
+        return pool.getStatementCacheStats();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (changeNotifier != null) {
+                changeNotifier.close();
+            }
+            if (orderArchiver != null) {
+                orderArchiver.close();
+            }
+            if (asyncExecutor != null) {
+                asyncExecutor.close();
+            }
+            if (statusRegistry != null) {
+                statusRegistry.close();
+            }
+            if (stockLedger != null) {
+                stockLedger.close();
+            }
+            if (salesLeaderboard != null) {
+                salesLeaderboard.close();
+            }
+            if (partitionManager != null) {
+                partitionManager.close();
+            }
+            if (orderSnapshot != null) {
+                orderSnapshot.close();
+            }
+        }
+        if (metricsDumpStarted) {
+            StatementMetrics.stopPeriodicDump();
+        }
+        pool.close();
+    }
+
+    // По умолчанию схема только доводится до актуальной версии: примененные миграции не трогаются,
+    // данные сохраняются. Очистка и пересоздание базы - только с db.migrate.devClean=true.
     public void migrate() {
+        if (Boolean.parseBoolean(settings.getProperty("db.migrate.devClean", "false"))) {
+            migrateDev();
+        } else {
+            migrateProduction();
+        }
+    }
+
+    private void migrateProduction() {
+        String fingerprint = migrationsFingerprint();
+        Flyway flyway = Flyway.configure()
+                .dataSource(url, username, password)
+                .locations("classpath:db/migration")
+                .cleanDisabled(true)
+                .validateOnMigrate(true) // Измененная примененная миграция - ошибка, а не повторный запуск
+                .load();
+
+        // Быстрый путь: набор миграций не менялся с последнего успешного запуска - migrate() не нужен.
+        // validate() только сверяет flyway_schema_history с контрольными суммами скриптов: ручная правка
+        // истории или схема, откатившаяся из резервной копии, не пройдут мимо отпечатка
+        try (Connection connection = getConnection()) {
+            if (fingerprint.equals(readSchemaFingerprint(connection))) {
+                ValidateResult validation = flyway.validateWithResult();
+                if (validation.validationSuccessful) {
+                    System.out.println("✅ Схема базы данных актуальна, миграции не требуются");
+                    return;
+                }
+                System.out.println("⚠️  История миграций не совпадает со скриптами: " + validation.getAllErrorMessages());
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Не удалось проверить состояние схемы", e);
+        }
+
+        System.out.println("🔄 Применение новых миграций Flyway...");
+        try {
+            int executed = flyway.migrate().migrationsExecuted;
+
+            try (Connection connection = getConnection()) {
+                writeSchemaFingerprint(connection, fingerprint);
+            }
+            System.out.println("✅ Применено миграций: " + executed);
+
+        } catch (Exception e) {
+            // Ручное выполнение скриптов целиком повторило бы вставку тестовых данных - только ошибка
+            System.err.println("❌ Ошибка Flyway: " + e.getMessage());
+            throw new RuntimeException("Не удалось выполнить миграции", e);
+        }
+    }
+
+    private void migrateDev() {
         System.out.println("🔄 Запуск миграций Flyway...");
 
         try {
@@ -44,6 +430,101 @@ public class DatabaseManager {
         }
     }
 
+    // SHA-256 по именам и содержимому всех скриптов миграций. Скрипты перечисляются так же, как их
+    // находит Flyway, а не по списку в коде: новая миграция всегда меняет отпечаток
+    private String migrationsFingerprint() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String script : migrationScripts()) {
+                digest.update(script.getBytes(StandardCharsets.UTF_8));
+                digest.update(readResourceFile(script).getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Версионные скрипты из всех каталогов db/migration в classpath (классы или jar) по возрастанию версии
+    private List<String> migrationScripts() {
+        Set<String> names = new TreeSet<>(DatabaseManager::compareMigrationVersions);
+        try {
+            Enumeration<URL> locations = getClass().getClassLoader().getResources(MIGRATION_LOCATION);
+            while (locations.hasMoreElements()) {
+                URL location = locations.nextElement();
+                if ("jar".equals(location.getProtocol())) {
+                    JarURLConnection jarConnection = (JarURLConnection) location.openConnection();
+                    jarConnection.setUseCaches(false);
+                    try (JarFile jar = jarConnection.getJarFile()) {
+                        String prefix = MIGRATION_LOCATION + "/";
+                        jar.stream()
+                                .map(JarEntry::getName)
+                                .filter(name -> name.startsWith(prefix) && name.indexOf('/', prefix.length()) < 0)
+                                .map(name -> name.substring(prefix.length()))
+                                .filter(name -> MIGRATION_SCRIPT.matcher(name).matches())
+                                .forEach(names::add);
+                    }
+                } else {
+                    try (Stream<Path> files = Files.list(Path.of(location.toURI()))) {
+                        files.map(file -> file.getFileName().toString())
+                                .filter(name -> MIGRATION_SCRIPT.matcher(name).matches())
+                                .forEach(names::add);
+                    }
+                }
+            }
+        } catch (IOException | URISyntaxException e) {
+            throw new RuntimeException("Не удалось получить список миграций", e);
+        }
+        if (names.isEmpty()) {
+            throw new IllegalStateException("Миграции не найдены в classpath:" + MIGRATION_LOCATION);
+        }
+        return names.stream().map(name -> MIGRATION_LOCATION + "/" + name).toList();
+    }
+
+    // V2 < V10 < V10_1: версии сравниваются по числам, как у Flyway
+    private static int compareMigrationVersions(String left, String right) {
+        Matcher leftMatcher = MIGRATION_SCRIPT.matcher(left);
+        Matcher rightMatcher = MIGRATION_SCRIPT.matcher(right);
+        if (!leftMatcher.matches() || !rightMatcher.matches()) {
+            return left.compareTo(right);
+        }
+        String[] leftParts = leftMatcher.group(1).split("[._]");
+        String[] rightParts = rightMatcher.group(1).split("[._]");
+        for (int i = 0; i < Math.max(leftParts.length, rightParts.length); i++) {
+            long leftPart = i < leftParts.length ? Long.parseLong(leftParts[i]) : 0;
+            long rightPart = i < rightParts.length ? Long.parseLong(rightParts[i]) : 0;
+            if (leftPart != rightPart) {
+                return Long.compare(leftPart, rightPart);
+            }
+        }
+        return left.compareTo(right);
+    }
+
+    // Таблицу создает V11: до первого успешного migrate() ее нет, тогда отпечатка тоже нет
+    private String readSchemaFingerprint(Connection connection) throws SQLException {
+        try (var statement = connection.createStatement();
+             var resultSet = statement.executeQuery(
+                     "SELECT to_regclass('schema_fingerprint') IS NOT NULL")) {
+            if (!resultSet.next() || !resultSet.getBoolean(1)) {
+                return null;
+            }
+        }
+        try (var statement = connection.createStatement();
+             var resultSet = statement.executeQuery("SELECT fingerprint FROM schema_fingerprint WHERE id = 1")) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    private void writeSchemaFingerprint(Connection connection, String fingerprint) throws SQLException {
+        try (var statement = connection.prepareStatement("""
+                INSERT INTO schema_fingerprint (id, fingerprint) VALUES (1, ?)
+                ON CONFLICT (id) DO UPDATE SET fingerprint = EXCLUDED.fingerprint, updated_at = CURRENT_TIMESTAMP
+                """)) {
+            statement.setString(1, fingerprint);
+            statement.executeUpdate();
+        }
+    }
+
     private void manualMigration() {
         try (Connection connection = getConnection();
              var statement = connection.createStatement()) {
@@ -51,11 +532,9 @@ public class DatabaseManager {
             System.out.println("🔄 Выполнение миграций вручную...");
 
             // Читаем и выполняем файлы миграций
-            String schema = readResourceFile("db/migration/V1__Create_schema.sql");
-            statement.execute(schema);
-
-            String testData = readResourceFile("db/migration/V2__Insert_test_data.sql");
-            statement.execute(testData);
+            for (String script : migrationScripts()) {
+                statement.execute(readResourceFile(script));
+            }
 
             System.out.println("✅ Ручные миграции выполнены успешно");
 
@@ -100,7 +579,8 @@ public class DatabaseManager {
             return new DatabaseManager(
                     url != null ? url : "jdbc:postgresql://localhost:5432/order_management",
                     username != null ? username : "postgres",
-                    password != null ? password : "password"
+                    password != null ? password : "password",
+                    properties
             );
 
         } catch (Exception e) {
@@ -0,0 +1,122 @@
+package com.example.orders;
+
+import com.example.orders.async.AsyncExecutor;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+// Выполняет пачку SQL-операторов. Подряд идущие чтения запускаются параллельно, каждое на своем
+// соединении из пула; изменение - барьер: оно ждет все предыдущие чтения и выполняется на основном
+// соединении, поэтому каждый оператор видит те же данные, что и при последовательном выполнении.
+// Результаты передаются потребителю строго в исходном порядке.
+public class ParallelQueryRunner {
+    private static final Set<String> READ_ONLY_KEYWORDS = Set.of("SELECT", "WITH", "VALUES", "TABLE", "SHOW", "EXPLAIN");
+    private static final Pattern MODIFYING_KEYWORD =
+            Pattern.compile("\\b(INSERT|UPDATE|DELETE|MERGE|INTO|TRUNCATE|CREATE|DROP|ALTER)\\b");
+    private static final Pattern LEADING_COMMENTS = Pattern.compile("\\A(\\s+|--[^\\n]*(\\n|\\z)|/\\*.*?\\*/)+", Pattern.DOTALL);
+
+    @FunctionalInterface
+    public interface StatementHandler<T> {
+        T execute(Connection connection, int index, String sql) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface ResultConsumer<T> {
+        void accept(int index, String sql, T result);
+    }
+
+    private final AsyncExecutor executor;
+
+    public ParallelQueryRunner(AsyncExecutor executor) {
+        this.executor = executor;
+    }
+
+    public <T> void run(List<String> statements, Connection writeConnection,
+                        StatementHandler<T> handler, ResultConsumer<T> consumer) throws SQLException {
+        run(statements, writeConnection, handler, consumer, result -> {});
+    }
+
+    // discard получает результаты чтений, не переданные consumer из-за ошибки другого оператора
+    // (например, чтобы удалить временные файлы результатов), - по мере завершения этих чтений
+    public <T> void run(List<String> statements, Connection writeConnection, StatementHandler<T> handler,
+                        ResultConsumer<T> consumer, Consumer<T> discard) throws SQLException {
+        List<PendingRead<T>> pending = new ArrayList<>();
+        try {
+            for (int i = 0; i < statements.size(); i++) {
+                int index = i;
+                String sql = statements.get(i);
+
+                if (isReadOnly(sql)) {
+                    pending.add(new PendingRead<>(index, sql,
+                            executor.submit(connection -> handler.execute(connection, index, sql))));
+                } else {
+                    drain(pending, consumer);
+                    consumer.accept(index, sql, handler.execute(writeConnection, index, sql));
+                }
+            }
+            drain(pending, consumer);
+        } finally {
+            for (PendingRead<T> read : pending) {
+                read.result.thenAccept(discard);
+            }
+        }
+    }
+
+    // Текст без ведущих комментариев и пробелов; по нему определяется тип оператора
+    public static String stripLeadingComments(String sql) {
+        return LEADING_COMMENTS.matcher(sql).replaceFirst("");
+    }
+
+    // Консервативная оценка: все, что может изменить данные или схему, считается изменением
+    public static boolean isReadOnly(String sql) {
+        String text = stripLeadingComments(sql).toUpperCase(Locale.ROOT);
+        int end = 0;
+        while (end < text.length() && Character.isLetter(text.charAt(end))) {
+            end++;
+        }
+        String keyword = text.substring(0, end);
+        if (!READ_ONLY_KEYWORDS.contains(keyword)) {
+            return false;
+        }
+        // WITH ... DELETE, SELECT ... INTO, EXPLAIN ANALYZE UPDATE и т.п.
+        return !MODIFYING_KEYWORD.matcher(text).find();
+    }
+
+    // Результаты выдаются по порядку: следующий ждет, даже если уже готов. Чтение уходит из pending,
+    // как только его результат получен; при ошибке в pending остаются только непереданные результаты
+    private static <T> void drain(List<PendingRead<T>> pending, ResultConsumer<T> consumer) throws SQLException {
+        while (!pending.isEmpty()) {
+            PendingRead<T> read = pending.remove(0);
+            T result;
+            try {
+                result = read.result.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof SQLException) {
+                    throw (SQLException) e.getCause();
+                }
+                throw e;
+            }
+            consumer.accept(read.index, read.sql, result);
+        }
+    }
+
+    private static class PendingRead<T> {
+        final int index;
+        final String sql;
+        final CompletableFuture<T> result;
+
+        PendingRead(int index, String sql, CompletableFuture<T> result) {
+            this.index = index;
+            this.sql = sql;
+            this.result = result;
+        }
+    }
+}
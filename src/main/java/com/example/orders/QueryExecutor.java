@@ -1,14 +1,49 @@
 package com.example.orders;
 
+import com.example.orders.async.AsyncExecutor;
+import com.example.orders.metrics.StatementMetrics;
+import com.example.orders.plan.PlanCapture;
+import com.example.orders.plan.PlanComparator;
+import com.example.orders.plan.PlanRegression;
+import com.example.orders.plan.PlanStore;
+import com.example.orders.plan.QueryPlan;
+import com.example.orders.plan.StatementCounters;
+import com.example.orders.render.OutputFormat;
+import com.example.orders.render.ResultStreamer;
+import com.example.orders.render.RowSink;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
 public class QueryExecutor {
+    private static final int MAX_PRINTED_ROWS = 100;
+
     private final Connection connection;
+    private final AsyncExecutor asyncExecutor;
+    private final OutputFormat format;
 
     public QueryExecutor(Connection connection) {
+        this(connection, null, OutputFormat.TABLE);
+    }
+
+    // С asyncExecutor независимые SELECT выполняются параллельно на соединениях из пула,
+    // изменения - по порядку на connection; вывод остается в порядке файла
+    public QueryExecutor(Connection connection, AsyncExecutor asyncExecutor) {
+        this(connection, asyncExecutor, OutputFormat.TABLE);
+    }
+
+    // format - вид вывода результатов SELECT: таблица, CSV или JSON lines
+    public QueryExecutor(Connection connection, AsyncExecutor asyncExecutor, OutputFormat format) {
         this.connection = connection;
+        this.asyncExecutor = asyncExecutor;
+        this.format = format;
     }
 
     public void executeTestQueries() {
@@ -16,31 +51,114 @@ public class QueryExecutor {
 
         try {
             String[] queries = loadQueriesFromFile();
+            List<String> statements = new ArrayList<>();
+            List<Integer> numbers = new ArrayList<>();
 
             for (int i = 0; i < queries.length; i++) {
                 if (queries[i].trim().isEmpty()) continue;
+                statements.add(queries[i]);
+                numbers.add(i + 1);
+            }
 
-                printSection("Запрос #" + (i + 1));
-                System.out.println(queries[i]);
-
-                if (queries[i].trim().toUpperCase().startsWith("SELECT")) {
-                    executeSelectQuery(queries[i], i + 1);
-                } else if (queries[i].trim().toUpperCase().startsWith("UPDATE")) {
-                    executeUpdateQuery(queries[i], i + 1);
-                } else if (queries[i].trim().toUpperCase().startsWith("DELETE")) {
-                    executeDeleteQuery(queries[i], i + 1);
-                } else if (queries[i].trim().toUpperCase().startsWith("INSERT")) {
-                    executeUpdateQuery(queries[i], i + 1);
+            if (asyncExecutor == null) {
+                for (int i = 0; i < statements.size(); i++) {
+                    executeQuery(connection, statements.get(i), numbers.get(i), System.out, System.err);
                 }
-
-                System.out.println();
+                return;
             }
 
+            // Каждый запрос пишет вывод и ошибки в свой буфер, буферы печатаются в исходном порядке
+            new ParallelQueryRunner(asyncExecutor).run(statements, connection,
+                    (queryConnection, index, sql) -> {
+                        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                        PrintStream out = new PrintStream(buffer, true, StandardCharsets.UTF_8);
+                        executeQuery(queryConnection, sql, numbers.get(index), out, out);
+                        return buffer.toString(StandardCharsets.UTF_8);
+                    },
+                    (index, sql, output) -> System.out.print(output));
+
         } catch (Exception e) {
             System.err.println("❌ Ошибка выполнения тестовых запросов: " + e.getMessage());
         }
     }
 
+    // Режим захвата планов: каждый запрос выполняется под EXPLAIN ANALYZE с откатом, планы сохраняются
+    // прогоном в query_plans и сравниваются с последним эталоном. Возвращает найденные регрессии.
+    public List<PlanRegression> captureQueryPlans(String label, boolean saveAsBaseline, PlanComparator comparator) {
+        printHeader("🔬 ЗАХВАТ ПЛАНОВ TEST-QUERIES.SQL");
+
+        PlanCapture capture = new PlanCapture();
+        PlanStore store = new PlanStore();
+        List<QueryPlan> plans = new ArrayList<>();
+        List<PlanRegression> regressions = new ArrayList<>();
+
+        try {
+            String[] queries = loadQueriesFromFile();
+            Map<Long, StatementCounters> statsBefore = store.readStatementStats(connection);
+            for (int i = 0; i < queries.length; i++) {
+                String sql = ParallelQueryRunner.stripLeadingComments(queries[i]).strip();
+                if (sql.isEmpty()) continue;
+                try {
+                    QueryPlan plan = capture.capture(connection, i + 1, sql);
+                    plans.add(plan);
+                    System.out.println("📐 " + plan);
+                } catch (SQLException e) {
+                    System.err.println("❌ Не удалось получить план запроса #" + (i + 1) + ": " + e.getMessage());
+                }
+            }
+
+            Integer baselineRunId = store.findBaselineRunId(connection);
+            int runId = store.saveRun(connection, label, saveAsBaseline, plans);
+            int statements = store.ingestStatementStats(connection, runId, statsBefore);
+            System.out.println("💾 Прогон #" + runId + " сохранен: планов " + plans.size()
+                    + (saveAsBaseline ? " (эталон)" : "")
+                    + (statements >= 0 ? ", операторов pg_stat_statements " + statements : ", pg_stat_statements недоступно"));
+
+            if (baselineRunId == null) {
+                System.out.println("ℹ️  Эталон не найден - сравнивать не с чем");
+                return regressions;
+            }
+
+            Map<String, QueryPlan> baseline = store.loadPlans(connection, baselineRunId);
+            regressions.addAll(comparator.compare(baseline, plans));
+            if (statements >= 0) {
+                regressions.addAll(store.findStatementRegressions(connection, runId, baselineRunId,
+                        comparator.getFactor(), comparator.getMinExecutionMs()));
+            }
+
+            printSection("Регрессии относительно прогона #" + baselineRunId, System.out);
+            if (regressions.isEmpty()) {
+                System.out.println("✅ Регрессий планов не найдено");
+            }
+            for (PlanRegression regression : regressions) {
+                System.out.println("⚠️  " + regression);
+            }
+
+        } catch (Exception e) {
+            System.err.println("❌ Ошибка захвата планов: " + e.getMessage());
+        }
+        return regressions;
+    }
+
+    private void executeQuery(Connection connection, String query, int queryNumber, PrintStream out, PrintStream err) {
+        printSection("Запрос #" + queryNumber, out);
+        out.println(query);
+
+        // Тип определяется без ведущих комментариев "-- N. ..."
+        String statement = ParallelQueryRunner.stripLeadingComments(query).toUpperCase(Locale.ROOT);
+        if (ParallelQueryRunner.isReadOnly(query)) {
+            executeSelectQuery(connection, query, queryNumber, out, err);
+        } else if (statement.startsWith("UPDATE")) {
+            executeUpdateQuery(connection, query, queryNumber, out, err);
+        } else if (statement.startsWith("DELETE")) {
+            executeDeleteQuery(connection, query, queryNumber, out, err);
+        } else if (statement.startsWith("INSERT")) {
+            executeUpdateQuery(connection, query, queryNumber, out, err);
+        }
+
+        out.println();
+    }
+
     private String[] loadQueriesFromFile() {
         try {
             var inputStream = getClass().getClassLoader().getResourceAsStream("test-queries.sql");
@@ -57,73 +175,57 @@ public class QueryExecutor {
         }
     }
 
-    private void executeSelectQuery(String query, int queryNumber) {
-        try (Statement statement = connection.createStatement();
-             ResultSet resultSet = statement.executeQuery(query)) {
-
-            ResultSetMetaData metaData = resultSet.getMetaData();
-            int columnCount = metaData.getColumnCount();
-
-            // Вывод заголовков
-            List<String> headers = new ArrayList<>();
-            List<Integer> columnWidths = new ArrayList<>();
-
-            for (int i = 1; i <= columnCount; i++) {
-                String columnName = metaData.getColumnName(i);
-                headers.add(columnName);
-                columnWidths.add(Math.max(columnName.length(), 15));
-            }
-
-            // Вывод таблицы
-            printTable(headers, columnWidths);
-
-            // Вывод данных
-            List<List<String>> rows = new ArrayList<>();
-            int rowCount = 0;
-
-            while (resultSet.next() && rowCount < 100) { // Ограничиваем вывод 100 строками
-                List<String> row = new ArrayList<>();
-                for (int i = 1; i <= columnCount; i++) {
-                    Object value = resultSet.getObject(i);
-                    row.add(value != null ? value.toString() : "NULL");
-                }
-                rows.add(row);
-                rowCount++;
-            }
-
-            for (List<String> row : rows) {
-                printTableRow(row, columnWidths);
-            }
-
-            printSeparator(columnWidths);
-            System.out.println("✅ Найдено строк: " + rowCount);
+    private void executeSelectQuery(Connection connection, String query, int queryNumber, PrintStream out,
+                                    PrintStream err) {
+        try {
+            int rowCount = StatementMetrics.time("QueryExecutor.query" + queryNumber,
+                    () -> readAndPrintRows(connection, query, out));
+            out.println("✅ Найдено строк: " + rowCount);
 
         } catch (SQLException e) {
-            System.err.println("❌ Ошибка выполнения SELECT запроса #" + queryNumber + ": " + e.getMessage());
+            err.println("❌ Ошибка выполнения SELECT запроса #" + queryNumber + ": " + e.getMessage());
         }
     }
 
-    private void executeUpdateQuery(String query, int queryNumber) {
-        try (Statement statement = connection.createStatement()) {
-            int affectedRows = statement.executeUpdate(query);
-            System.out.println("✅ Запрос выполнен. Затронуто строк: " + affectedRows);
+    // Строки читаются курсором и печатаются сразу; после 100 строк чтение прекращается
+    private int readAndPrintRows(Connection connection, String query, PrintStream out) throws SQLException {
+        RowSink sink = format == OutputFormat.TABLE
+                ? new ConsoleTableSink(out)
+                : format.createSink(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        return (int) new ResultStreamer(MAX_PRINTED_ROWS).stream(connection, query, sink, MAX_PRINTED_ROWS);
+    }
+
+    private void executeUpdateQuery(Connection connection, String query, int queryNumber, PrintStream out,
+                                    PrintStream err) {
+        try {
+            int affectedRows = executeTimedUpdate(connection, query, queryNumber);
+            out.println("✅ Запрос выполнен. Затронуто строк: " + affectedRows);
 
         } catch (SQLException e) {
-            System.err.println("❌ Ошибка выполнения UPDATE запроса #" + queryNumber + ": " + e.getMessage());
+            err.println("❌ Ошибка выполнения UPDATE запроса #" + queryNumber + ": " + e.getMessage());
         }
     }
 
-    private void executeDeleteQuery(String query, int queryNumber) {
-        try (Statement statement = connection.createStatement()) {
-            int affectedRows = statement.executeUpdate(query);
-            System.out.println("✅ Запрос выполнен. Удалено строк: " + affectedRows);
+    private void executeDeleteQuery(Connection connection, String query, int queryNumber, PrintStream out,
+                                    PrintStream err) {
+        try {
+            int affectedRows = executeTimedUpdate(connection, query, queryNumber);
+            out.println("✅ Запрос выполнен. Удалено строк: " + affectedRows);
 
         } catch (SQLException e) {
-            System.err.println("❌ Ошибка выполнения DELETE запроса #" + queryNumber + ": " + e.getMessage());
+            err.println("❌ Ошибка выполнения DELETE запроса #" + queryNumber + ": " + e.getMessage());
         }
     }
 
-    private void printTable(List<String> headers, List<Integer> widths) {
+    private int executeTimedUpdate(Connection connection, String query, int queryNumber) throws SQLException {
+        return StatementMetrics.time("QueryExecutor.query" + queryNumber, () -> {
+            try (Statement statement = connection.createStatement()) {
+                return statement.executeUpdate(query);
+            }
+        });
+    }
+
+    private void printTable(List<String> headers, List<Integer> widths, PrintStream out) {
         StringBuilder headerLine = new StringBuilder();
         StringBuilder separator = new StringBuilder();
 
@@ -136,11 +238,11 @@ public class QueryExecutor {
             }
         }
 
-        System.out.println(headerLine);
-        System.out.println(separator);
+        out.println(headerLine);
+        out.println(separator);
     }
 
-    private void printTableRow(List<String> row, List<Integer> widths) {
+    private void printTableRow(List<String> row, List<Integer> widths, PrintStream out) {
         StringBuilder rowLine = new StringBuilder();
         for (int i = 0; i < row.size(); i++) {
             String value = row.get(i);
@@ -152,10 +254,10 @@ public class QueryExecutor {
                 rowLine.append(" │ ");
             }
         }
-        System.out.println(rowLine);
+        out.println(rowLine);
     }
 
-    private void printSeparator(List<Integer> widths) {
+    private void printSeparator(List<Integer> widths, PrintStream out) {
         StringBuilder separator = new StringBuilder();
         for (int i = 0; i < widths.size(); i++) {
             separator.append("─".repeat(widths.get(i)));
@@ -163,7 +265,40 @@ public class QueryExecutor {
                 separator.append("─┼─");
             }
         }
-        System.out.println(separator);
+        out.println(separator);
+    }
+
+    // Прежний вид таблицы: ширина колонок известна по заголовкам, строки печатаются сразу
+    private class ConsoleTableSink implements RowSink {
+        private final PrintStream out;
+        private List<Integer> columnWidths;
+
+        ConsoleTableSink(PrintStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void start(List<String> columns) {
+            columnWidths = new ArrayList<>();
+            for (String columnName : columns) {
+                columnWidths.add(Math.max(columnName.length(), 15));
+            }
+            printTable(columns, columnWidths, out);
+        }
+
+        @Override
+        public void row(Object[] values) {
+            List<String> row = new ArrayList<>(values.length);
+            for (Object value : values) {
+                row.add(value != null ? value.toString() : "NULL");
+            }
+            printTableRow(row, columnWidths, out);
+        }
+
+        @Override
+        public void finish(long rowCount) {
+            printSeparator(columnWidths, out);
+        }
     }
 
     private void printHeader(String text) {
@@ -172,9 +307,9 @@ public class QueryExecutor {
         System.out.println("=".repeat(80));
     }
 
-    private void printSection(String text) {
-        System.out.println("\n" + "─".repeat(60));
-        System.out.println("📌 " + text);
-        System.out.println("─".repeat(60));
+    private void printSection(String text, PrintStream out) {
+        out.println("\n" + "─".repeat(60));
+        out.println("📌 " + text);
+        out.println("─".repeat(60));
     }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.example.orders.analytics;
+
+// Колонки покупателей; строка покупателя по id - indexById[id]
+final class CustomerColumns {
+    final int size;
+    final int[] indexById;
+    final int[] ids;
+    final String[] firstNames;
+    final String[] lastNames;
+
+    CustomerColumns(int size, int[] ids, String[] firstNames, String[] lastNames) {
+        this.size = size;
+        this.ids = ids;
+        this.firstNames = firstNames;
+        this.lastNames = lastNames;
+        this.indexById = ProductColumns.indexById(ids, size);
+    }
+
+    // -1, если покупателя нет в снимке
+    int rowOf(int id) {
+        return id >= 0 && id < indexById.length ? indexById[id] : -1;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.orders.analytics;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Словарное кодирование строк: в колонке хранится номер значения, сами строки - один раз.
+// Пополняется только потоком обновления снимка; читатели получают копию значений через values().
+final class Dictionary {
+    private final Map<String, Integer> codes = new HashMap<>();
+    private String[] values = new String[16];
+    private int size;
+
+    int encode(String value) {
+        Integer code = codes.get(value);
+        if (code == null) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            code = size;
+            values[size++] = value;
+            codes.put(value, code);
+        }
+        return code;
+    }
+
+    String[] values() {
+        return Arrays.copyOf(values, size);
+    }
+}
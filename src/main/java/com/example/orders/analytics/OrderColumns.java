@@ -0,0 +1,136 @@
+package com.example.orders.analytics;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+// Колонки заказов: по примитивному массиву на поле, строка - общий индекс во всех массивах.
+// Объект неизменяем для читателей: дописывание создает новый объект с большим size, который
+// делит с прежним те же массивы, пока хватает емкости. Старый объект видит только свои size строк.
+final class OrderColumns {
+    final int size;
+    final int[] ids;
+    // Дата заказа - микросекунды от эпохи (время без часового пояса, как в колонке TIMESTAMP)
+    final long[] orderDates;
+    // Месяц заказа: год * 12 + (месяц - 1), заранее посчитан для группировок
+    final int[] months;
+    final int[] productIds;
+    final int[] customerIds;
+    final int[] quantities;
+    final int[] statusCodes;
+    final int maxId;
+    final long maxOrderDate;
+    final int minMonth;
+    final int maxMonth;
+
+    private OrderColumns(int size, int[] ids, long[] orderDates, int[] months, int[] productIds, int[] customerIds,
+                         int[] quantities, int[] statusCodes, int maxId, long maxOrderDate, int minMonth, int maxMonth) {
+        this.size = size;
+        this.ids = ids;
+        this.orderDates = orderDates;
+        this.months = months;
+        this.productIds = productIds;
+        this.customerIds = customerIds;
+        this.quantities = quantities;
+        this.statusCodes = statusCodes;
+        this.maxId = maxId;
+        this.maxOrderDate = maxOrderDate;
+        this.minMonth = minMonth;
+        this.maxMonth = maxMonth;
+    }
+
+    static OrderColumns empty(int capacity) {
+        int length = Math.max(capacity, 16);
+        return new OrderColumns(0, new int[length], new long[length], new int[length], new int[length],
+                new int[length], new int[length], new int[length], 0, Long.MIN_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE);
+    }
+
+    // Вызывается только потоком обновления снимка
+    OrderColumns append(Batch batch) {
+        if (batch.size == 0) {
+            return this;
+        }
+        int newSize = size + batch.size;
+        OrderColumns target = this;
+        if (newSize > ids.length) {
+            int capacity = Math.max(newSize, ids.length + (ids.length >> 1));
+            target = new OrderColumns(size, Arrays.copyOf(ids, capacity), Arrays.copyOf(orderDates, capacity),
+                    Arrays.copyOf(months, capacity), Arrays.copyOf(productIds, capacity),
+                    Arrays.copyOf(customerIds, capacity), Arrays.copyOf(quantities, capacity),
+                    Arrays.copyOf(statusCodes, capacity), maxId, maxOrderDate, minMonth, maxMonth);
+        }
+
+        int newMaxId = maxId;
+        long newMaxOrderDate = maxOrderDate;
+        int newMinMonth = minMonth;
+        int newMaxMonth = maxMonth;
+        for (int i = 0; i < batch.size; i++) {
+            int row = size + i;
+            target.ids[row] = batch.ids[i];
+            target.orderDates[row] = batch.orderDates[i];
+            target.months[row] = batch.months[i];
+            target.productIds[row] = batch.productIds[i];
+            target.customerIds[row] = batch.customerIds[i];
+            target.quantities[row] = batch.quantities[i];
+            target.statusCodes[row] = batch.statusCodes[i];
+            newMaxId = Math.max(newMaxId, batch.ids[i]);
+            newMaxOrderDate = Math.max(newMaxOrderDate, batch.orderDates[i]);
+            newMinMonth = Math.min(newMinMonth, batch.months[i]);
+            newMaxMonth = Math.max(newMaxMonth, batch.months[i]);
+        }
+
+        return new OrderColumns(newSize, target.ids, target.orderDates, target.months, target.productIds,
+                target.customerIds, target.quantities, target.statusCodes,
+                newMaxId, newMaxOrderDate, newMinMonth, newMaxMonth);
+    }
+
+    static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    static int monthKey(LocalDateTime dateTime) {
+        return dateTime.getYear() * 12 + dateTime.getMonthValue() - 1;
+    }
+
+    // Прочитанные из базы строки до добавления в колонки
+    static final class Batch {
+        private int size;
+        private int[] ids = new int[256];
+        private long[] orderDates = new long[256];
+        private int[] months = new int[256];
+        private int[] productIds = new int[256];
+        private int[] customerIds = new int[256];
+        private int[] quantities = new int[256];
+        private int[] statusCodes = new int[256];
+
+        void add(int id, LocalDateTime orderDate, int productId, int customerId, int quantity, int statusCode) {
+            if (size == ids.length) {
+                int capacity = size * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                orderDates = Arrays.copyOf(orderDates, capacity);
+                months = Arrays.copyOf(months, capacity);
+                productIds = Arrays.copyOf(productIds, capacity);
+                customerIds = Arrays.copyOf(customerIds, capacity);
+                quantities = Arrays.copyOf(quantities, capacity);
+                statusCodes = Arrays.copyOf(statusCodes, capacity);
+            }
+            ids[size] = id;
+            orderDates[size] = toMicros(orderDate);
+            months[size] = monthKey(orderDate);
+            productIds[size] = productId;
+            customerIds[size] = customerId;
+            quantities[size] = quantity;
+            statusCodes[size] = statusCode;
+            size++;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+}
@@ -0,0 +1,485 @@
+package com.example.orders.analytics;
+
+import com.example.orders.pool.ConnectionSource;
+import com.example.orders.render.RowSink;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Колоночный снимок orders, products и customer в памяти для аналитических запросов 1-5 из
+// test-queries.sql. Категория и статус хранятся словарными кодами, фильтры и группировки идут
+// параллельно по диапазонам строк на ForkJoinPool.
+//
+// refresh() дочитывает только новые заказы: id больше отметки или order_date не раньше отметки
+// минус LATE_COMMIT_WINDOW (id из блоков IdGenerator могут зафиксироваться не по порядку);
+// товары и покупатели - маленькие таблицы, они перечитываются целиком. Изменения и удаления
+// существующих заказов попадают в снимок при полной перезагрузке reload().
+public class OrderSnapshot implements AutoCloseable {
+    private static final Duration LATE_COMMIT_WINDOW = Duration.ofMinutes(10);
+    private static final int FETCH_SIZE = 5_000;
+
+    private final ForkJoinPool pool;
+    // Состояние только для потока обновления (под монитором снимка)
+    private final Dictionary statusDictionary = new Dictionary();
+    private final Dictionary categoryDictionary = new Dictionary();
+    private final BitSet loadedOrderIds = new BitSet();
+    private volatile State state;
+    private ScheduledExecutorService refresher;
+
+    public OrderSnapshot(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    // Полная загрузка: новые массивы, старый снимок остается доступен читателям до подмены
+    public synchronized int reload(Connection connection) throws SQLException {
+        loadedOrderIds.clear();
+        Map<Integer, Integer> statusCodes = loadStatusCodes(connection);
+        OrderColumns.Batch batch = loadOrders(connection,
+                "SELECT id, order_date, product_id, customer_id, quantity, status_id FROM orders",
+                statement -> {}, statusCodes);
+        OrderColumns orders = OrderColumns.empty(batch.size()).append(batch);
+        state = new State(orders, loadProducts(connection), loadCustomers(connection), statusDictionary.values(),
+                LocalDateTime.now());
+        return batch.size();
+    }
+
+    // Дочитывает заказы после отметки; до первой загрузки выполняет reload(). Возвращает число новых строк.
+    public synchronized int refresh(Connection connection) throws SQLException {
+        State current = state;
+        if (current == null || current.orders.size == 0) {
+            return reload(connection);
+        }
+
+        Map<Integer, Integer> statusCodes = loadStatusCodes(connection);
+        OrderColumns orders = current.orders;
+        LocalDateTime since = OrderColumns.fromMicros(orders.maxOrderDate).minus(LATE_COMMIT_WINDOW);
+        OrderColumns.Batch batch = loadOrders(connection, """
+                SELECT id, order_date, product_id, customer_id, quantity, status_id
+                FROM orders
+                WHERE id > ? OR order_date >= ?
+                """, statement -> {
+            statement.setInt(1, orders.maxId);
+            statement.setTimestamp(2, Timestamp.valueOf(since));
+        }, statusCodes);
+
+        state = new State(orders.append(batch), loadProducts(connection), loadCustomers(connection),
+                statusDictionary.values(), LocalDateTime.now(), current.loadedAt);
+        return batch.size();
+    }
+
+    // Перечитывает только покупателей (уведомление об изменении customer); заказы и товары остаются прежними
+    public synchronized void reloadCustomers(Connection connection) throws SQLException {
+        State current = state;
+        if (current != null) {
+            state = new State(current.orders, current.products, loadCustomers(connection), current.statusNames,
+                    current.refreshedAt, current.loadedAt);
+        }
+    }
+
+    public int getOrderCount() {
+        State current = state;
+        return current != null ? current.orders.size : 0;
+    }
+
+    public LocalDateTime getRefreshedAt() {
+        State current = state;
+        return current != null ? current.refreshedAt : null;
+    }
+
+    // Запрос 1: заказы начиная с since, от новых к старым
+    public long recentOrders(LocalDateTime since, RowSink sink) throws IOException {
+        State current = requireState();
+        OrderColumns orders = current.orders;
+        long sinceMicros = OrderColumns.toMicros(since);
+
+        int[] rows = ParallelScan.reduce(pool, orders.size, (from, to) -> {
+            int[] matches = new int[16];
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                if (orders.orderDates[i] >= sinceMicros) {
+                    if (count == matches.length) {
+                        matches = Arrays.copyOf(matches, count * 2);
+                    }
+                    matches[count++] = i;
+                }
+            }
+            return Arrays.copyOf(matches, count);
+        }, OrderSnapshot::concat);
+
+        Integer[] sorted = Arrays.stream(rows).boxed().toArray(Integer[]::new);
+        Arrays.sort(sorted, Comparator.<Integer>comparingLong(row -> orders.orderDates[row])
+                .thenComparingInt(row -> orders.ids[row]).reversed());
+
+        sink.start(List.of("Номер заказа", "Дата заказа", "Имя", "Фамилия", "Товар", "Количество", "Статус"));
+        long count = 0;
+        for (int row : sorted) {
+            int customer = current.customers.rowOf(orders.customerIds[row]);
+            int product = current.products.rowOf(orders.productIds[row]);
+            if (customer < 0 || product < 0) {
+                continue;
+            }
+            sink.row(new Object[]{
+                    orders.ids[row],
+                    Timestamp.valueOf(OrderColumns.fromMicros(orders.orderDates[row])),
+                    current.customers.firstNames[customer],
+                    current.customers.lastNames[customer],
+                    current.products.descriptions[product],
+                    orders.quantities[row],
+                    current.statusNames[orders.statusCodes[row]]});
+            count++;
+        }
+        sink.finish(count);
+        return count;
+    }
+
+    // Запрос 2: товары с наибольшим числом заказов
+    public long topProducts(int limit, RowSink sink) throws IOException {
+        State current = requireState();
+        ProductColumns products = current.products;
+        long[] orderCounts = orderCountsByProduct(current);
+
+        List<Integer> ranked = rankDescending(products.size, orderCounts, products.ids);
+        sink.start(List.of("id", "description", "order_count"));
+        long count = 0;
+        for (int product : ranked.subList(0, Math.min(limit, ranked.size()))) {
+            sink.row(new Object[]{products.ids[product], products.descriptions[product], orderCounts[product]});
+            count++;
+        }
+        sink.finish(count);
+        return count;
+    }
+
+    // Запрос 3: покупатели по сумме заказов в текущих ценах
+    public long customerSpending(RowSink sink) throws IOException {
+        State current = requireState();
+        OrderColumns orders = current.orders;
+        ProductColumns products = current.products;
+        CustomerColumns customers = current.customers;
+
+        long[][] totals = ParallelScan.reduce(pool, orders.size, (from, to) -> {
+            // [0] - сумма в копейках, [1] - число заказов (покупатели без заказов в результат не входят)
+            long[][] partial = new long[2][customers.size];
+            for (int i = from; i < to; i++) {
+                int customer = customers.rowOf(orders.customerIds[i]);
+                int product = products.rowOf(orders.productIds[i]);
+                if (customer >= 0 && product >= 0) {
+                    partial[0][customer] += products.prices[product] * orders.quantities[i];
+                    partial[1][customer]++;
+                }
+            }
+            return partial;
+        }, (left, right) -> {
+            addInto(left[0], right[0]);
+            addInto(left[1], right[1]);
+            return left;
+        });
+
+        List<Integer> ranked = new ArrayList<>();
+        for (int customer = 0; customer < customers.size; customer++) {
+            if (totals[1][customer] > 0) {
+                ranked.add(customer);
+            }
+        }
+        ranked.sort(Comparator.<Integer>comparingLong(customer -> totals[0][customer]).reversed()
+                .thenComparingInt(customer -> customers.ids[customer]));
+
+        sink.start(List.of("id", "first_name", "last_name", "total_spent"));
+        for (int customer : ranked) {
+            sink.row(new Object[]{customers.ids[customer], customers.firstNames[customer],
+                    customers.lastNames[customer], BigDecimal.valueOf(totals[0][customer], 2)});
+        }
+        sink.finish(ranked.size());
+        return ranked.size();
+    }
+
+    // Запрос 4: товары с остатком меньше threshold, по возрастанию остатка
+    public long lowStockProducts(int threshold, RowSink sink) throws IOException {
+        ProductColumns products = requireState().products;
+        List<Integer> rows = new ArrayList<>();
+        for (int product = 0; product < products.size; product++) {
+            if (products.quantities[product] < threshold) {
+                rows.add(product);
+            }
+        }
+        rows.sort(Comparator.comparingInt(product -> products.quantities[product]));
+
+        sink.start(List.of("description", "quantity", "category"));
+        for (int product : rows) {
+            sink.row(new Object[]{products.descriptions[product], products.quantities[product],
+                    products.categories[products.categoryCodes[product]]});
+        }
+        sink.finish(rows.size());
+        return rows.size();
+    }
+
+    // Запрос 5: число заказов и сумма по месяцам
+    public long monthlyStats(RowSink sink) throws IOException {
+        State current = requireState();
+        OrderColumns orders = current.orders;
+        ProductColumns products = current.products;
+        int minMonth = orders.minMonth;
+        int span = orders.size > 0 ? orders.maxMonth - minMonth + 1 : 0;
+
+        long[][] totals = ParallelScan.reduce(pool, orders.size, (from, to) -> {
+            // [0] - число заказов, [1] - сумма в копейках
+            long[][] partial = new long[2][span];
+            for (int i = from; i < to; i++) {
+                int product = products.rowOf(orders.productIds[i]);
+                if (product >= 0) {
+                    int month = orders.months[i] - minMonth;
+                    partial[0][month]++;
+                    partial[1][month] += products.prices[product] * orders.quantities[i];
+                }
+            }
+            return partial;
+        }, (left, right) -> {
+            addInto(left[0], right[0]);
+            addInto(left[1], right[1]);
+            return left;
+        });
+
+        sink.start(List.of("year", "month", "order_count", "total_amount"));
+        long count = 0;
+        for (int month = 0; month < span; month++) {
+            if (totals[0][month] == 0) {
+                continue;
+            }
+            int key = minMonth + month;
+            sink.row(new Object[]{key / 12, key % 12 + 1, totals[0][month], BigDecimal.valueOf(totals[1][month], 2)});
+            count++;
+        }
+        sink.finish(count);
+        return count;
+    }
+
+    public synchronized void startAutoRefresh(ConnectionSource source, long refreshIntervalMs, long reloadIntervalMs) {
+        if (refresher != null) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "order-snapshot-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            try (Connection connection = source.getConnection()) {
+                State current = state;
+                if (reloadIntervalMs > 0 && current != null
+                        && Duration.between(current.loadedAt, LocalDateTime.now()).toMillis() >= reloadIntervalMs) {
+                    reload(connection);
+                } else {
+                    refresh(connection);
+                }
+            } catch (SQLException e) {
+                System.err.println("⚠️  Не удалось обновить аналитический снимок заказов: " + e.getMessage());
+            }
+        }, refreshIntervalMs, refreshIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+        pool.shutdownNow();
+    }
+
+    private long[] orderCountsByProduct(State current) {
+        OrderColumns orders = current.orders;
+        ProductColumns products = current.products;
+        return ParallelScan.reduce(pool, orders.size, (from, to) -> {
+            long[] partial = new long[products.size];
+            for (int i = from; i < to; i++) {
+                int product = products.rowOf(orders.productIds[i]);
+                if (product >= 0) {
+                    partial[product]++;
+                }
+            }
+            return partial;
+        }, (left, right) -> {
+            addInto(left, right);
+            return left;
+        });
+    }
+
+    // Строки с ненулевым значением по убыванию значения, при равенстве - по id
+    private static List<Integer> rankDescending(int size, long[] values, int[] ids) {
+        List<Integer> rows = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            if (values[row] > 0) {
+                rows.add(row);
+            }
+        }
+        rows.sort(Comparator.<Integer>comparingLong(row -> values[row]).reversed().thenComparingInt(row -> ids[row]));
+        return rows;
+    }
+
+    private static void addInto(long[] target, long[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+        }
+    }
+
+    private static int[] concat(int[] left, int[] right) {
+        int[] result = Arrays.copyOf(left, left.length + right.length);
+        System.arraycopy(right, 0, result, left.length, right.length);
+        return result;
+    }
+
+    private State requireState() {
+        State current = state;
+        if (current == null) {
+            throw new IllegalStateException("Снимок заказов еще не загружен");
+        }
+        return current;
+    }
+
+    private interface ParameterBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    // Заказы читаются курсором; уже загруженные id (повторно попавшие в окно по дате) пропускаются
+    private OrderColumns.Batch loadOrders(Connection connection, String sql, ParameterBinder binder,
+                                          Map<Integer, Integer> statusCodes) throws SQLException {
+        OrderColumns.Batch batch = new OrderColumns.Batch();
+        boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            binder.bind(statement);
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    int id = resultSet.getInt(1);
+                    if (loadedOrderIds.get(id)) {
+                        continue;
+                    }
+                    loadedOrderIds.set(id);
+                    batch.add(id, resultSet.getTimestamp(2).toLocalDateTime(), resultSet.getInt(3),
+                            resultSet.getInt(4), resultSet.getInt(5), statusCodes.getOrDefault(resultSet.getInt(6), 0));
+                }
+            }
+            if (autoCommit) {
+                connection.commit();
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (autoCommit) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            if (autoCommit) {
+                connection.setAutoCommit(true);
+            }
+        }
+        return batch;
+    }
+
+    // id статуса -> код имени статуса в словаре
+    private Map<Integer, Integer> loadStatusCodes(Connection connection) throws SQLException {
+        Map<Integer, Integer> codes = new HashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT id, status_name FROM order_status")) {
+            while (resultSet.next()) {
+                codes.put(resultSet.getInt("id"), statusDictionary.encode(resultSet.getString("status_name")));
+            }
+        }
+        return codes;
+    }
+
+    private ProductColumns loadProducts(Connection connection) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT id, description, price, quantity, category FROM products ORDER BY id")) {
+            while (resultSet.next()) {
+                rows.add(new Object[]{resultSet.getInt(1), resultSet.getString(2), resultSet.getBigDecimal(3),
+                        resultSet.getInt(4), resultSet.getString(5)});
+            }
+        }
+
+        int size = rows.size();
+        int[] ids = new int[size];
+        String[] descriptions = new String[size];
+        long[] prices = new long[size];
+        int[] quantities = new int[size];
+        int[] categoryCodes = new int[size];
+        for (int i = 0; i < size; i++) {
+            Object[] row = rows.get(i);
+            ids[i] = (Integer) row[0];
+            descriptions[i] = (String) row[1];
+            prices[i] = ((BigDecimal) row[2]).setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            quantities[i] = (Integer) row[3];
+            categoryCodes[i] = categoryDictionary.encode((String) row[4]);
+        }
+        return new ProductColumns(size, ids, descriptions, prices, quantities, categoryCodes, categoryDictionary.values());
+    }
+
+    private CustomerColumns loadCustomers(Connection connection) throws SQLException {
+        List<Object[]> rows = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT id, first_name, last_name FROM customer ORDER BY id")) {
+            while (resultSet.next()) {
+                rows.add(new Object[]{resultSet.getInt(1), resultSet.getString(2), resultSet.getString(3)});
+            }
+        }
+
+        int size = rows.size();
+        int[] ids = new int[size];
+        String[] firstNames = new String[size];
+        String[] lastNames = new String[size];
+        for (int i = 0; i < size; i++) {
+            Object[] row = rows.get(i);
+            ids[i] = (Integer) row[0];
+            firstNames[i] = (String) row[1];
+            lastNames[i] = (String) row[2];
+        }
+        return new CustomerColumns(size, ids, firstNames, lastNames);
+    }
+
+    private static final class State {
+        final OrderColumns orders;
+        final ProductColumns products;
+        final CustomerColumns customers;
+        final String[] statusNames;
+        final LocalDateTime refreshedAt;
+        final LocalDateTime loadedAt;
+
+        State(OrderColumns orders, ProductColumns products, CustomerColumns customers, String[] statusNames,
+              LocalDateTime refreshedAt) {
+            this(orders, products, customers, statusNames, refreshedAt, refreshedAt);
+        }
+
+        State(OrderColumns orders, ProductColumns products, CustomerColumns customers, String[] statusNames,
+              LocalDateTime refreshedAt, LocalDateTime loadedAt) {
+            this.orders = orders;
+            this.products = products;
+            this.customers = customers;
+            this.statusNames = statusNames;
+            this.refreshedAt = refreshedAt;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.orders.analytics;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+
+// Параллельный проход по диапазону строк колонок: диапазон делится пополам, пока не станет
+// меньше THRESHOLD; частичные результаты сливаются попарно
+final class ParallelScan {
+    static final int THRESHOLD = 32_768;
+
+    interface RangeScan<A> {
+        A scan(int from, int to);
+    }
+
+    private ParallelScan() {}
+
+    static <A> A reduce(ForkJoinPool pool, int size, RangeScan<A> scan, BinaryOperator<A> merge) {
+        return pool.invoke(new ScanTask<>(0, size, scan, merge));
+    }
+
+    private static class ScanTask<A> extends RecursiveTask<A> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        // Задачи ForkJoin не сериализуются; Serializable достался от ForkJoinTask
+        private final transient RangeScan<A> scan;
+        private final transient BinaryOperator<A> merge;
+
+        ScanTask(int from, int to, RangeScan<A> scan, BinaryOperator<A> merge) {
+            this.from = from;
+            this.to = to;
+            this.scan = scan;
+            this.merge = merge;
+        }
+
+        @Override
+        protected A compute() {
+            if (to - from <= THRESHOLD) {
+                return scan.scan(from, to);
+            }
+            int middle = (from + to) >>> 1;
+            ScanTask<A> left = new ScanTask<>(from, middle, scan, merge);
+            left.fork();
+            A right = new ScanTask<>(middle, to, scan, merge).compute();
+            return merge.apply(left.join(), right);
+        }
+    }
+}
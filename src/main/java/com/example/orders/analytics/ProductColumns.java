@@ -0,0 +1,45 @@
+package com.example.orders.analytics;
+
+import java.util.Arrays;
+
+// Колонки товаров; строка товара по id - indexById[id]. Цена хранится в копейках.
+final class ProductColumns {
+    final int size;
+    final int[] indexById;
+    final int[] ids;
+    final String[] descriptions;
+    final long[] prices;
+    final int[] quantities;
+    final int[] categoryCodes;
+    final String[] categories;
+
+    ProductColumns(int size, int[] ids, String[] descriptions, long[] prices, int[] quantities,
+                   int[] categoryCodes, String[] categories) {
+        this.size = size;
+        this.ids = ids;
+        this.descriptions = descriptions;
+        this.prices = prices;
+        this.quantities = quantities;
+        this.categoryCodes = categoryCodes;
+        this.categories = categories;
+        this.indexById = indexById(ids, size);
+    }
+
+    // -1, если товара нет в снимке
+    int rowOf(int id) {
+        return id >= 0 && id < indexById.length ? indexById[id] : -1;
+    }
+
+    static int[] indexById(int[] ids, int size) {
+        int maxId = 0;
+        for (int i = 0; i < size; i++) {
+            maxId = Math.max(maxId, ids[i]);
+        }
+        int[] index = new int[maxId + 1];
+        Arrays.fill(index, -1);
+        for (int i = 0; i < size; i++) {
+            index[ids[i]] = i;
+        }
+        return index;
+    }
+}
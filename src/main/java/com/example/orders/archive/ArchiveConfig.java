@@ -0,0 +1,64 @@
+package com.example.orders.archive;
+
+import com.example.orders.render.OutputFormat;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+public class ArchiveConfig {
+    private final List<String> statusNames;
+    private final int retentionDays;
+    private final int chunkSize;
+    private final int targetRowsPerSecond;
+    private final long lockTimeoutMs;
+    private final OutputFormat fileFormat;
+    private final Path directory;
+    private final long intervalMs;
+
+    // fileFormat = null - архив в таблицу orders_archive, иначе сжатые файлы CSV или JSON lines в directory
+    public ArchiveConfig(List<String> statusNames, int retentionDays, int chunkSize, int targetRowsPerSecond,
+                         long lockTimeoutMs, OutputFormat fileFormat, Path directory, long intervalMs) {
+        if (chunkSize < 1 || targetRowsPerSecond < 1) {
+            throw new IllegalArgumentException("Размер порции и темп архивации должны быть положительными");
+        }
+        if (fileFormat == OutputFormat.TABLE) {
+            throw new IllegalArgumentException("Архивный файл пишется только в CSV или JSON lines");
+        }
+        this.statusNames = List.copyOf(statusNames);
+        this.retentionDays = retentionDays;
+        this.chunkSize = chunkSize;
+        this.targetRowsPerSecond = targetRowsPerSecond;
+        this.lockTimeoutMs = lockTimeoutMs;
+        this.fileFormat = fileFormat;
+        this.directory = directory;
+        this.intervalMs = intervalMs;
+    }
+
+    // archive.destination: table (orders_archive), csv или jsonl (файлы .gz в archive.directory)
+    public static ArchiveConfig fromProperties(Properties properties) {
+        String destination = properties.getProperty("archive.destination", "table").trim();
+        return new ArchiveConfig(
+                Arrays.stream(properties.getProperty("archive.statusNames", "Отменен").split(","))
+                        .map(String::trim)
+                        .filter(name -> !name.isEmpty())
+                        .toList(),
+                Integer.parseInt(properties.getProperty("archive.retentionDays", "30").trim()),
+                Integer.parseInt(properties.getProperty("archive.chunkSize", "500").trim()),
+                Integer.parseInt(properties.getProperty("archive.targetRowsPerSecond", "2000").trim()),
+                Long.parseLong(properties.getProperty("archive.lockTimeoutMs", "200").trim()),
+                "table".equalsIgnoreCase(destination) ? null : OutputFormat.parse(destination),
+                Path.of(properties.getProperty("archive.directory", "archive").trim()),
+                Long.parseLong(properties.getProperty("archive.intervalMs", "3600000").trim()));
+    }
+
+    public List<String> getStatusNames() { return statusNames; }
+    public int getRetentionDays() { return retentionDays; }
+    public int getChunkSize() { return chunkSize; }
+    public int getTargetRowsPerSecond() { return targetRowsPerSecond; }
+    public long getLockTimeoutMs() { return lockTimeoutMs; }
+    public OutputFormat getFileFormat() { return fileFormat; }
+    public Path getDirectory() { return directory; }
+    public long getIntervalMs() { return intervalMs; }
+}
@@ -0,0 +1,36 @@
+package com.example.orders.archive;
+
+import java.nio.file.Path;
+
+public class ArchiveReport {
+    private final long rows;
+    private final int chunks;
+    private final int lockTimeouts;
+    private final long elapsedMs;
+    private final boolean completed;
+    private final Path file;
+
+    public ArchiveReport(long rows, int chunks, int lockTimeouts, long elapsedMs, boolean completed, Path file) {
+        this.rows = rows;
+        this.chunks = chunks;
+        this.lockTimeouts = lockTimeouts;
+        this.elapsedMs = elapsedMs;
+        this.completed = completed;
+        this.file = file;
+    }
+
+    public long getRows() { return rows; }
+    public int getChunks() { return chunks; }
+    public int getLockTimeouts() { return lockTimeouts; }
+    public long getElapsedMs() { return elapsedMs; }
+    // false - прогон прерван; следующий продолжит с сохраненной позиции
+    public boolean isCompleted() { return completed; }
+    // null, если архив пишется в таблицу или ни одной строки не перенесено
+    public Path getFile() { return file; }
+
+    @Override
+    public String toString() {
+        return String.format("ArchiveReport{rows=%d, chunks=%d, lockTimeouts=%d, elapsedMs=%d, completed=%s%s}",
+                rows, chunks, lockTimeouts, elapsedMs, completed, file != null ? ", file=" + file : "");
+    }
+}
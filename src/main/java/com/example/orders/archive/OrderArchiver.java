@@ -0,0 +1,347 @@
+package com.example.orders.archive;
+
+import com.example.orders.pool.ConnectionSource;
+import com.example.orders.render.OutputFormat;
+import com.example.orders.render.RowSink;
+
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Фоновая архивация старых заказов (например, отмененных) вместо одного большого DELETE, как в
+// тестовом запросе 10. Заказы выбираются порциями по ключу (order_date, id), каждая порция
+// переносится в orders_archive или в сжатый файл и удаляется из orders в своей короткой транзакции
+// вместе с сохранением позиции. Строки, занятые живыми транзакциями, пропускаются (SKIP LOCKED),
+// а lock_timeout не дает архивации ждать блокировки дольше lockTimeoutMs. Между порциями
+// архиватор спит так, чтобы не превышать targetRowsPerSecond. Как и отключение секций в
+// PartitionManager, архивация не уменьшает агрегаты продаж: они остаются историей продаж.
+public class OrderArchiver implements AutoCloseable {
+    public static final String JOB_NAME = "orders-archive";
+
+    private static final int MAX_LOCK_TIMEOUTS_IN_ROW = 5;
+    private static final DateTimeFormatter FILE_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+    private static final List<String> COLUMNS =
+            List.of("id", "product_id", "customer_id", "order_date", "quantity", "status_id");
+
+    // Позиция хранится в archive_checkpoints, поэтому прогон, прерванный остановкой или ошибкой,
+    // не начинает заново
+    private static final String VICTIMS_CTE = """
+            WITH victims AS (
+                SELECT o.id, o.order_date
+                FROM orders o
+                WHERE o.status_id IN (SELECT id FROM order_status WHERE status_name = ANY(?))
+                  AND o.order_date < ?
+                  AND (o.order_date, o.id) > (COALESCE(?::timestamp, '-infinity'), COALESCE(?::int, 0))
+                ORDER BY o.order_date, o.id
+                LIMIT ?
+                FOR UPDATE OF o SKIP LOCKED
+            ),
+            moved AS (
+                DELETE FROM orders o
+                USING victims v
+                WHERE o.id = v.id AND o.order_date = v.order_date
+                RETURNING o.id, o.product_id, o.customer_id, o.order_date, o.quantity, o.status_id
+            )
+            """;
+
+    private static final String MOVE_TO_TABLE_SQL = VICTIMS_CTE + """
+            , archived AS (
+                INSERT INTO orders_archive (id, product_id, customer_id, order_date, quantity, status_id)
+                SELECT id, product_id, customer_id, order_date, quantity, status_id FROM moved
+            )
+            SELECT m.id, m.product_id, m.customer_id, m.order_date, m.quantity, m.status_id
+            FROM moved m
+            ORDER BY m.order_date, m.id
+            """;
+
+    private static final String MOVE_TO_FILE_SQL = VICTIMS_CTE + """
+            SELECT m.id, m.product_id, m.customer_id, m.order_date, m.quantity, m.status_id
+            FROM moved m
+            ORDER BY m.order_date, m.id
+            """;
+
+    private final ArchiveConfig config;
+    private volatile boolean stopped;
+    private ScheduledExecutorService scheduler;
+
+    public OrderArchiver(ArchiveConfig config) {
+        this.config = config;
+    }
+
+    // Архивирует все подходящие заказы порциями; соединение берется из пула на каждую порцию,
+    // чтобы пауза между порциями не держала соединение
+    public synchronized ArchiveReport runOnce(ConnectionSource source) throws SQLException, IOException {
+        long startedAt = System.currentTimeMillis();
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(config.getRetentionDays());
+        long rows = 0;
+        int chunks = 0;
+        int lockTimeouts = 0;
+        int lockTimeoutsInRow = 0;
+        boolean completed = false;
+        ArchiveFile file = null;
+
+        try {
+            while (!stopped) {
+                int moved;
+                try (Connection connection = source.getConnection()) {
+                    if (config.getFileFormat() != null && file == null) {
+                        file = ArchiveFile.create(config.getDirectory(), config.getFileFormat());
+                    }
+                    moved = moveChunk(connection, cutoff, file);
+                } catch (SQLException e) {
+                    // Порция уперлась в блокировку живой транзакции: уступаем и пробуем позже
+                    if (!"55P03".equals(e.getSQLState()) || ++lockTimeoutsInRow > MAX_LOCK_TIMEOUTS_IN_ROW) {
+                        throw e;
+                    }
+                    lockTimeouts++;
+                    sleep(config.getLockTimeoutMs() * lockTimeoutsInRow);
+                    continue;
+                }
+
+                lockTimeoutsInRow = 0;
+                if (moved == 0) {
+                    completed = true;
+                    break;
+                }
+                rows += moved;
+                chunks++;
+                pace(rows, startedAt);
+            }
+
+            if (completed) {
+                try (Connection connection = source.getConnection()) {
+                    resetCheckpoint(connection);
+                }
+            }
+        } finally {
+            if (file != null) {
+                file.close();
+            }
+        }
+
+        Path path = file != null && rows > 0 ? file.path : null;
+        if (file != null && rows == 0) {
+            Files.deleteIfExists(file.path);
+        }
+        return new ArchiveReport(rows, chunks, lockTimeouts, System.currentTimeMillis() - startedAt, completed, path);
+    }
+
+    // Одна порция - одна транзакция: выборка, перенос, удаление и позиция фиксируются вместе.
+    // Заказ, уже лежащий в orders_archive, нарушает первичный ключ архива, и вся порция
+    // откатывается: строка не может исчезнуть из orders, не попав в архив.
+    // В файловом режиме строки сбрасываются на диск до COMMIT: при сбое после записи файла порция
+    // будет перенесена повторно (в файле возможен дубль), но не потеряна.
+    private int moveChunk(Connection connection, LocalDateTime cutoff, ArchiveFile file) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET LOCAL lock_timeout = '" + config.getLockTimeoutMs() + "ms'");
+                // Триггер агрегатов продаж пропускает удаление по сроку хранения (V10)
+                statement.execute("SET LOCAL orders.retention = 'on'");
+            }
+
+            Timestamp lastOrderDate = null;
+            Integer lastId = null;
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT last_order_date, last_id FROM archive_checkpoints WHERE job_name = ? FOR UPDATE")) {
+                statement.setString(1, JOB_NAME);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        lastOrderDate = resultSet.getTimestamp("last_order_date");
+                        lastId = (Integer) resultSet.getObject("last_id");
+                    }
+                }
+            }
+
+            int moved = 0;
+            try (PreparedStatement statement = connection.prepareStatement(
+                    file != null ? MOVE_TO_FILE_SQL : MOVE_TO_TABLE_SQL)) {
+                statement.setArray(1, connection.createArrayOf("varchar", config.getStatusNames().toArray()));
+                statement.setTimestamp(2, Timestamp.valueOf(cutoff));
+                statement.setTimestamp(3, lastOrderDate);
+                statement.setObject(4, lastId, java.sql.Types.INTEGER);
+                statement.setInt(5, config.getChunkSize());
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    Object[] row = new Object[COLUMNS.size()];
+                    while (resultSet.next()) {
+                        for (int i = 0; i < row.length; i++) {
+                            row[i] = resultSet.getObject(i + 1);
+                        }
+                        if (file != null) {
+                            file.write(row);
+                        }
+                        lastOrderDate = resultSet.getTimestamp("order_date");
+                        lastId = resultSet.getInt("id");
+                        moved++;
+                    }
+                }
+            }
+
+            if (moved > 0) {
+                if (file != null) {
+                    file.sync();
+                }
+                saveCheckpoint(connection, lastOrderDate, lastId, moved);
+            }
+            connection.commit();
+            return moved;
+
+        } catch (IOException e) {
+            connection.rollback();
+            throw new SQLException("Ошибка записи архивного файла: " + e.getMessage(), e);
+
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    private void saveCheckpoint(Connection connection, Timestamp lastOrderDate, int lastId, int moved) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("""
+                INSERT INTO archive_checkpoints (job_name, last_order_date, last_id, archived_rows)
+                VALUES (?, ?, ?, ?)
+                ON CONFLICT (job_name) DO UPDATE
+                SET last_order_date = EXCLUDED.last_order_date,
+                    last_id = EXCLUDED.last_id,
+                    archived_rows = archive_checkpoints.archived_rows + EXCLUDED.archived_rows,
+                    updated_at = CURRENT_TIMESTAMP
+                """)) {
+            statement.setString(1, JOB_NAME);
+            statement.setTimestamp(2, lastOrderDate);
+            statement.setInt(3, lastId);
+            statement.setLong(4, moved);
+            statement.executeUpdate();
+        }
+    }
+
+    // Прогон дошел до конца: следующий начнет сначала и подберет строки, пропущенные из-за блокировок
+    private void resetCheckpoint(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(
+                "UPDATE archive_checkpoints SET last_order_date = NULL, last_id = NULL, updated_at = CURRENT_TIMESTAMP "
+                        + "WHERE job_name = ?")) {
+            statement.setString(1, JOB_NAME);
+            statement.executeUpdate();
+        }
+    }
+
+    // Пауза, после которой средний темп прогона не превышает targetRowsPerSecond
+    private void pace(long rows, long startedAt) {
+        long expectedMs = rows * 1000 / config.getTargetRowsPerSecond();
+        long elapsedMs = System.currentTimeMillis() - startedAt;
+        sleep(expectedMs - elapsedMs);
+    }
+
+    private void sleep(long ms) {
+        if (ms <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            stopped = true;
+        }
+    }
+
+    public synchronized void startSchedule(ConnectionSource source) {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "orders-archiver");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                ArchiveReport report = runOnce(source);
+                if (report.getRows() > 0) {
+                    System.out.println("🗄️  Архивация заказов: " + report);
+                }
+            } catch (SQLException | IOException e) {
+                System.err.println("⚠️  Ошибка архивации заказов: " + e.getMessage());
+            }
+        }, config.getIntervalMs(), config.getIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    public ArchiveConfig getConfig() {
+        return config;
+    }
+
+    // Текущая порция дописывается и фиксируется, следующая уже не начинается
+    @Override
+    public void close() {
+        stopped = true;
+        ScheduledExecutorService current;
+        synchronized (this) {
+            current = scheduler;
+            scheduler = null;
+        }
+        if (current != null) {
+            current.shutdownNow();
+        }
+    }
+
+    // Сжатый файл архива одного прогона
+    private static final class ArchiveFile {
+        private final Path path;
+        private final FileOutputStream fileStream;
+        private final Writer writer;
+        private final RowSink sink;
+        private long rows;
+
+        private ArchiveFile(Path path, OutputFormat format) throws IOException {
+            this.path = path;
+            this.fileStream = new FileOutputStream(path.toFile());
+            // syncFlush: flush() выталкивает сжатые данные в файл, не дожидаясь конца блока
+            this.writer = new BufferedWriter(new OutputStreamWriter(
+                    new GZIPOutputStream(fileStream, 64 * 1024, true), StandardCharsets.UTF_8));
+            this.sink = format.createSink(writer);
+            sink.start(COLUMNS);
+        }
+
+        static ArchiveFile create(Path directory, OutputFormat format) throws IOException {
+            Files.createDirectories(directory);
+            String extension = format == OutputFormat.CSV ? ".csv.gz" : ".ndjson.gz";
+            return new ArchiveFile(directory.resolve("orders-archive-" + LocalDateTime.now().format(FILE_SUFFIX)
+                    + extension), format);
+        }
+
+        void write(Object[] row) throws IOException {
+            sink.row(row);
+            rows++;
+        }
+
+        void sync() throws IOException {
+            writer.flush();
+            fileStream.getChannel().force(false);
+        }
+
+        void close() throws IOException {
+            sink.finish(rows);
+            writer.close();
+        }
+    }
+}
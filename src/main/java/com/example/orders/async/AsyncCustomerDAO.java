@@ -0,0 +1,61 @@
+package com.example.orders.async;
+
+import com.example.orders.dao.CustomerDAO;
+import com.example.orders.id.IdGenerator;
+import com.example.orders.model.Customer;
+
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Асинхронная обертка над CustomerDAO
+public class AsyncCustomerDAO {
+    private final AsyncExecutor executor;
+    private final IdGenerator idGenerator;
+
+    public AsyncCustomerDAO(AsyncExecutor executor) {
+        this(executor, null);
+    }
+
+    public AsyncCustomerDAO(AsyncExecutor executor, IdGenerator idGenerator) {
+        this.executor = executor;
+        this.idGenerator = idGenerator;
+    }
+
+    public CompletableFuture<Customer> create(Customer customer) {
+        return executor.submit(connection -> {
+            dao(connection).create(customer);
+            return customer;
+        });
+    }
+
+    public CompletableFuture<Customer> findById(Long id) {
+        return executor.submit(connection -> dao(connection).findById(id));
+    }
+
+    public CompletableFuture<List<Customer>> findAll() {
+        return executor.submit(connection -> dao(connection).findAll());
+    }
+
+    public CompletableFuture<List<Customer>> findPage(Long afterId, int limit) {
+        return executor.submit(connection -> dao(connection).findPage(afterId, limit));
+    }
+
+    public CompletableFuture<Void> update(Customer customer) {
+        return executor.submit(connection -> {
+            dao(connection).update(customer);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> delete(Long id) {
+        return executor.submit(connection -> {
+            dao(connection).delete(id);
+            return null;
+        });
+    }
+
+    private CustomerDAO dao(Connection connection) {
+        return new CustomerDAO(connection, idGenerator);
+    }
+}
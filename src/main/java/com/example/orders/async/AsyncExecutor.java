@@ -0,0 +1,87 @@
+package com.example.orders.async;
+
+import com.example.orders.pool.ConnectionSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.LongAdder;
+
+// Выполняет блокирующие JDBC-вызовы на виртуальных потоках. Каждая задача берет свое соединение
+// из пула, поэтому запросов может быть сколько угодно, а одновременно в базе не больше maxInFlight.
+// Остальные задачи ждут разрешения на дешевом виртуальном потоке, а не на таймауте пула.
+public class AsyncExecutor implements AutoCloseable {
+    private final ConnectionSource source;
+    private final ExecutorService executor;
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    @FunctionalInterface
+    public interface ConnectionCall<T> {
+        T call(Connection connection) throws SQLException;
+    }
+
+    // maxInFlight не должен превышать размер пула, иначе лишние задачи упрутся в таймаут получения соединения
+    public AsyncExecutor(ConnectionSource source, int maxInFlight) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight должен быть положительным: " + maxInFlight);
+        }
+        this.source = source;
+        this.maxInFlight = maxInFlight;
+        this.inFlight = new Semaphore(maxInFlight, true);
+        this.executor = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("db-async-", 0).factory());
+    }
+
+    // SQLException из call приходит в future как причина CompletionException
+    public <T> CompletableFuture<T> submit(ConnectionCall<T> call) {
+        submitted.increment();
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failed.increment();
+                throw new CompletionException(new SQLException("Ожидание выполнения прервано", e));
+            }
+
+            try (Connection connection = source.getConnection()) {
+                T result = call.call(connection);
+                completed.increment();
+                return result;
+            } catch (SQLException | RuntimeException e) {
+                failed.increment();
+                throw e instanceof CompletionException ? (CompletionException) e : new CompletionException(e);
+            } finally {
+                inFlight.release();
+            }
+        }, executor);
+    }
+
+    public int getMaxInFlight() { return maxInFlight; }
+    public int getInFlight() { return maxInFlight - inFlight.availablePermits(); }
+    public int getWaiting() { return inFlight.getQueueLength(); }
+    public long getSubmitted() { return submitted.sum(); }
+    public long getCompleted() { return completed.sum(); }
+    public long getFailed() { return failed.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("AsyncExecutor{maxInFlight=%d, inFlight=%d, waiting=%d, submitted=%d, completed=%d, failed=%d}",
+                maxInFlight, getInFlight(), getWaiting(), getSubmitted(), getCompleted(), getFailed());
+    }
+
+    // Новые задачи не принимаются, уже запущенные дорабатывают
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
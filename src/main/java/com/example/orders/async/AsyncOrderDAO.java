@@ -0,0 +1,99 @@
+package com.example.orders.async;
+
+import com.example.orders.cache.ProductCache;
+import com.example.orders.dao.BatchResult;
+import com.example.orders.dao.OrderDAO;
+import com.example.orders.id.IdGenerator;
+import com.example.orders.model.Order;
+import com.example.orders.ranking.SalesLeaderboard;
+import com.example.orders.stock.StockLedger;
+
+import java.sql.Connection;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Асинхронная обертка над OrderDAO: каждый вызов выполняется на своем соединении из пула
+public class AsyncOrderDAO {
+    private final AsyncExecutor executor;
+    private final IdGenerator idGenerator;
+    private final SalesLeaderboard leaderboard;
+    private final ProductCache productCache;
+
+    public AsyncOrderDAO(AsyncExecutor executor) {
+        this(executor, null);
+    }
+
+    public AsyncOrderDAO(AsyncExecutor executor, IdGenerator idGenerator) {
+        this(executor, idGenerator, null);
+    }
+
+    public AsyncOrderDAO(AsyncExecutor executor, IdGenerator idGenerator, SalesLeaderboard leaderboard) {
+        this(executor, idGenerator, leaderboard, null);
+    }
+
+    public AsyncOrderDAO(AsyncExecutor executor, IdGenerator idGenerator, SalesLeaderboard leaderboard,
+                         ProductCache productCache) {
+        this.executor = executor;
+        this.idGenerator = idGenerator;
+        this.leaderboard = leaderboard;
+        this.productCache = productCache;
+    }
+
+    // Завершается тем же заказом с заполненным id
+    public CompletableFuture<Order> create(Order order) {
+        return executor.submit(connection -> {
+            dao(connection).create(order);
+            return order;
+        });
+    }
+
+    public CompletableFuture<BatchResult> createAll(List<Order> orders) {
+        return executor.submit(connection -> dao(connection).createAll(orders));
+    }
+
+    // false, если товара не хватило
+    public CompletableFuture<Boolean> createWithStock(Order order, StockLedger ledger) {
+        return executor.submit(connection -> dao(connection).createWithStock(order, ledger));
+    }
+
+    public CompletableFuture<List<Order>> findLastOrders(int limit) {
+        return executor.submit(connection -> dao(connection).findLastOrders(limit));
+    }
+
+    public CompletableFuture<List<Order>> findOrdersBefore(LocalDateTime orderDate, Long orderId, int limit) {
+        return executor.submit(connection -> dao(connection).findOrdersBefore(orderDate, orderId, limit));
+    }
+
+    public CompletableFuture<List<Order>> findCustomerOrders(Long customerId, LocalDateTime beforeDate, Long beforeId,
+                                                             int limit) {
+        return executor.submit(connection -> dao(connection).findCustomerOrders(customerId, beforeDate, beforeId, limit));
+    }
+
+    public CompletableFuture<Void> updateStatus(Long orderId, Long statusId) {
+        return executor.submit(connection -> {
+            dao(connection).updateStatus(orderId, statusId);
+            return null;
+        });
+    }
+
+    public CompletableFuture<List<Long>> updateStatusAll(Collection<Long> orderIds, Long statusId) {
+        return executor.submit(connection -> dao(connection).updateStatusAll(orderIds, statusId));
+    }
+
+    public CompletableFuture<List<Long>> deleteAll(Collection<Long> orderIds) {
+        return executor.submit(connection -> dao(connection).deleteAll(orderIds));
+    }
+
+    public CompletableFuture<Void> delete(Long orderId) {
+        return executor.submit(connection -> {
+            dao(connection).delete(orderId);
+            return null;
+        });
+    }
+
+    private OrderDAO dao(Connection connection) {
+        return new OrderDAO(connection, idGenerator, leaderboard, productCache);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.orders.async;
+
+import com.example.orders.cache.ProductCache;
+import com.example.orders.dao.ProductDAO;
+import com.example.orders.id.IdGenerator;
+import com.example.orders.model.Product;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Асинхронная обертка над ProductDAO; кэш товаров общий для всех вызовов
+public class AsyncProductDAO {
+    private final AsyncExecutor executor;
+    private final IdGenerator idGenerator;
+    private final ProductCache cache;
+
+    public AsyncProductDAO(AsyncExecutor executor) {
+        this(executor, null, null);
+    }
+
+    public AsyncProductDAO(AsyncExecutor executor, IdGenerator idGenerator, ProductCache cache) {
+        this.executor = executor;
+        this.idGenerator = idGenerator;
+        this.cache = cache;
+    }
+
+    public CompletableFuture<Product> create(Product product) {
+        return executor.submit(connection -> {
+            dao(connection).create(product);
+            return product;
+        });
+    }
+
+    // Попадание в кэш обслуживается без соединения и без ожидания разрешения
+    public CompletableFuture<Product> findById(Long id) {
+        if (cache != null) {
+            Product cached = cache.get(id);
+            if (cached != null) {
+                return CompletableFuture.completedFuture(cached);
+            }
+        }
+        return executor.submit(connection -> dao(connection).findById(id));
+    }
+
+    public CompletableFuture<List<Product>> findAll() {
+        return executor.submit(connection -> dao(connection).findAll());
+    }
+
+    public CompletableFuture<List<Product>> findPage(Long afterId, int limit) {
+        return executor.submit(connection -> dao(connection).findPage(afterId, limit));
+    }
+
+    public CompletableFuture<List<Product>> findTopProductsByQuantity(int limit) {
+        return executor.submit(connection -> dao(connection).findTopProductsByQuantity(limit));
+    }
+
+    public CompletableFuture<Void> update(Product product) {
+        return executor.submit(connection -> {
+            dao(connection).update(product);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> updatePrice(Long productId, BigDecimal newPrice) {
+        return executor.submit(connection -> {
+            dao(connection).updatePrice(productId, newPrice);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> updateQuantity(Long productId, Integer newQuantity) {
+        return executor.submit(connection -> {
+            dao(connection).updateQuantity(productId, newQuantity);
+            return null;
+        });
+    }
+
+    public CompletableFuture<Void> delete(Long id) {
+        return executor.submit(connection -> {
+            dao(connection).delete(id);
+            return null;
+        });
+    }
+
+    private ProductDAO dao(Connection connection) {
+        return new ProductDAO(connection, idGenerator, cache);
+    }
+}
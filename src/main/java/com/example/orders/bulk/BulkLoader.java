@@ -0,0 +1,135 @@
+package com.example.orders.bulk;
+
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class BulkLoader {
+    // Размер буфера, которым CopyManager передает поток на сервер: память не зависит от размера файла
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String PRODUCT_COLUMNS = "description, price, quantity, category";
+    private static final String CUSTOMER_COLUMNS = "first_name, last_name, phone, email";
+    private static final String ORDER_COLUMNS = "product_id, customer_id, order_date, quantity, status_id";
+
+    private final Connection connection;
+    private final CopyManager copyManager;
+
+    public BulkLoader(Connection connection) throws SQLException {
+        this.connection = connection;
+        this.copyManager = new CopyManager(connection.unwrap(BaseConnection.class));
+    }
+
+    public LoadReport loadProducts(Path file, CopyFormat format) throws SQLException, IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return loadProducts(input, format);
+        }
+    }
+
+    public LoadReport loadProducts(InputStream input, CopyFormat format) throws SQLException, IOException {
+        return copyDirect("products", PRODUCT_COLUMNS, input, format);
+    }
+
+    public LoadReport loadCustomers(Path file, CopyFormat format) throws SQLException, IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return loadCustomers(input, format);
+        }
+    }
+
+    public LoadReport loadCustomers(InputStream input, CopyFormat format) throws SQLException, IOException {
+        return copyDirect("customer", CUSTOMER_COLUMNS, input, format);
+    }
+
+    public LoadReport loadOrders(Path file, CopyFormat format) throws SQLException, IOException {
+        try (InputStream input = Files.newInputStream(file)) {
+            return loadOrders(input, format);
+        }
+    }
+
+    // Заказы сначала копируются в промежуточную таблицу без ограничений,
+    // затем внешние ключи проверяются одним запросом на весь набор и в orders переносятся только корректные строки
+    public LoadReport loadOrders(InputStream input, CopyFormat format) throws SQLException, IOException {
+        long start = System.nanoTime();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS orders_staging");
+            statement.execute("""
+                CREATE TEMP TABLE orders_staging (
+                    product_id INT,
+                    customer_id INT,
+                    order_date TIMESTAMP,
+                    quantity INT,
+                    status_id INT
+                )
+                """);
+
+            try {
+                long rowsRead = copyIn("orders_staging", ORDER_COLUMNS, input, format);
+                Map<String, Long> rejections = countOrderRejections(statement);
+
+                long rowsLoaded = statement.executeLargeUpdate("""
+                    INSERT INTO orders (product_id, customer_id, order_date, quantity, status_id)
+                    SELECT s.product_id, s.customer_id, COALESCE(s.order_date, CURRENT_TIMESTAMP), s.quantity, s.status_id
+                    FROM orders_staging s
+                    WHERE s.quantity > 0
+                      AND EXISTS (SELECT 1 FROM products p WHERE p.id = s.product_id)
+                      AND EXISTS (SELECT 1 FROM customer c WHERE c.id = s.customer_id)
+                      AND EXISTS (SELECT 1 FROM order_status os WHERE os.id = s.status_id)
+                    """);
+
+                return new LoadReport("orders", rowsRead, rowsLoaded, rejections, System.nanoTime() - start);
+            } finally {
+                statement.execute("DROP TABLE IF EXISTS orders_staging");
+            }
+        }
+    }
+
+    private Map<String, Long> countOrderRejections(Statement statement) throws SQLException {
+        String sql = """
+            SELECT COUNT(*) FILTER (WHERE p.id IS NULL) AS missing_product,
+                   COUNT(*) FILTER (WHERE c.id IS NULL) AS missing_customer,
+                   COUNT(*) FILTER (WHERE os.id IS NULL) AS missing_status,
+                   COUNT(*) FILTER (WHERE s.quantity IS NULL OR s.quantity <= 0) AS invalid_quantity
+            FROM orders_staging s
+            LEFT JOIN products p ON p.id = s.product_id
+            LEFT JOIN customer c ON c.id = s.customer_id
+            LEFT JOIN order_status os ON os.id = s.status_id
+            """;
+
+        Map<String, Long> rejections = new LinkedHashMap<>();
+        try (ResultSet resultSet = statement.executeQuery(sql)) {
+            if (resultSet.next()) {
+                for (String reason : new String[]{"missing_product", "missing_customer", "missing_status", "invalid_quantity"}) {
+                    long count = resultSet.getLong(reason);
+                    if (count > 0) {
+                        rejections.put(reason, count);
+                    }
+                }
+            }
+        }
+        return rejections;
+    }
+
+    private LoadReport copyDirect(String table, String columns, InputStream input, CopyFormat format)
+            throws SQLException, IOException {
+        long start = System.nanoTime();
+        long rows = copyIn(table, columns, input, format);
+        return new LoadReport(table, rows, rows, new LinkedHashMap<>(), System.nanoTime() - start);
+    }
+
+    private long copyIn(String table, String columns, InputStream input, CopyFormat format)
+            throws SQLException, IOException {
+        String sql = "COPY " + table + " (" + columns + ") FROM STDIN " + format.getOptions();
+        return copyManager.copyIn(sql, input, COPY_BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.orders.bulk;
+
+public enum CopyFormat {
+    // CSV с заголовком в первой строке
+    CSV("(FORMAT csv, HEADER true)"),
+    // Двоичный формат PostgreSQL COPY
+    BINARY("(FORMAT binary)");
+
+    private final String options;
+
+    CopyFormat(String options) {
+        this.options = options;
+    }
+
+    public String getOptions() {
+        return options;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.orders.bulk;
+
+import java.util.Collections;
+import java.util.Map;
+
+public class LoadReport {
+    private final String table;
+    private final long rowsRead;
+    private final long rowsLoaded;
+    private final Map<String, Long> rejections;
+    private final long elapsedNanos;
+
+    public LoadReport(String table, long rowsRead, long rowsLoaded, Map<String, Long> rejections, long elapsedNanos) {
+        this.table = table;
+        this.rowsRead = rowsRead;
+        this.rowsLoaded = rowsLoaded;
+        this.rejections = rejections;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getTable() { return table; }
+    public long getRowsRead() { return rowsRead; }
+    public long getRowsLoaded() { return rowsLoaded; }
+    public long getRowsRejected() { return rowsRead - rowsLoaded; }
+    // Причина отклонения -> количество строк (строка может нарушать несколько правил сразу)
+    public Map<String, Long> getRejections() { return Collections.unmodifiableMap(rejections); }
+    public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+
+    public double getRowsPerSecond() {
+        return elapsedNanos > 0 ? rowsLoaded * 1_000_000_000.0 / elapsedNanos : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("LoadReport{table='%s', read=%d, loaded=%d, rejected=%d, elapsed=%d ms, %.0f rows/s}",
+                table, rowsRead, rowsLoaded, getRowsRejected(), getElapsedMillis(), getRowsPerSecond());
+    }
+}
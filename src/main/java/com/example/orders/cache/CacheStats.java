@@ -0,0 +1,34 @@
+package com.example.orders.cache;
+
+public class CacheStats {
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final int size;
+
+    public CacheStats(long hits, long misses, long evictions, long expirations, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.size = size;
+    }
+
+    public long getHits() { return hits; }
+    public long getMisses() { return misses; }
+    public long getEvictions() { return evictions; }
+    public long getExpirations() { return expirations; }
+    public int getSize() { return size; }
+
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests > 0 ? (double) hits / requests : 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CacheStats{size=%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, expirations=%d}",
+                size, hits, misses, getHitRate() * 100, evictions, expirations);
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.orders.cache;
+
+import com.example.orders.model.Product;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Кэш товаров по id: LRU с ограничением размера и времени жизни записи.
+// Ключи распределены по сегментам, чтобы потоки не конкурировали за одну блокировку.
+// Хранятся и отдаются копии, поэтому изменение полученного объекта не портит кэш.
+public class ProductCache {
+    private static final int SEGMENT_COUNT = 16;
+
+    private final Segment[] segments;
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public ProductCache(int maxSize, long ttlMs) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Размер кэша должен быть положительным: " + maxSize);
+        }
+        this.ttlNanos = ttlMs > 0 ? ttlMs * 1_000_000 : Long.MAX_VALUE;
+        this.segments = new Segment[SEGMENT_COUNT];
+        int segmentCapacity = Math.max(1, (maxSize + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+        for (int i = 0; i < SEGMENT_COUNT; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+    }
+
+    public Product get(long id) {
+        Segment segment = segmentFor(id);
+        Entry entry;
+        synchronized (segment) {
+            entry = segment.get(id);
+            if (entry != null && System.nanoTime() - entry.loadedAt >= ttlNanos) {
+                segment.remove(id);
+                expirations.increment();
+                entry = null;
+            }
+        }
+
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return copyOf(entry.product);
+    }
+
+    // Только что записанная строка: заменяет запись и отменяет загрузки, начатые до записи
+    public void put(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        Entry entry = new Entry(copyOf(product), System.nanoTime());
+        Segment segment = segmentFor(product.getId());
+        synchronized (segment) {
+            segment.generation++;
+            segment.put(product.getId(), entry);
+        }
+    }
+
+    // Поколение берется до чтения строки из базы и передается в putIfUnchanged
+    public long generation(long id) {
+        Segment segment = segmentFor(id);
+        synchronized (segment) {
+            return segment.generation;
+        }
+    }
+
+    // Прочитанная строка кладется, только если с начала чтения в сегменте не было записи или сброса:
+    // иначе загрузка, начатая до изменения, вернула бы в кэш старую строку
+    public boolean putIfUnchanged(Product product, long generation) {
+        if (product == null || product.getId() == null) {
+            return false;
+        }
+        Entry entry = new Entry(copyOf(product), System.nanoTime());
+        Segment segment = segmentFor(product.getId());
+        synchronized (segment) {
+            if (segment.generation != generation) {
+                return false;
+            }
+            segment.put(product.getId(), entry);
+            return true;
+        }
+    }
+
+    public void invalidate(long id) {
+        Segment segment = segmentFor(id);
+        synchronized (segment) {
+            segment.generation++;
+            segment.remove(id);
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.generation++;
+                segment.clear();
+            }
+        }
+    }
+
+    public CacheStats getStats() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), size);
+    }
+
+    private Segment segmentFor(long id) {
+        int hash = Long.hashCode(id);
+        hash ^= hash >>> 16;
+        return segments[hash & (SEGMENT_COUNT - 1)];
+    }
+
+    private static Product copyOf(Product source) {
+        Product copy = new Product(source.getDescription(), source.getPrice(), source.getQuantity(), source.getCategory());
+        copy.setId(source.getId());
+        return copy;
+    }
+
+    private static class Entry {
+        final Product product;
+        final long loadedAt;
+
+        Entry(Product product, long loadedAt) {
+            this.product = product;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private class Segment extends LinkedHashMap<Long, Entry> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+        // Растет при каждой записи и сбросе в сегменте; меняется под монитором сегмента
+        private long generation;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.orders.cache;
+
+import com.example.orders.model.OrderStatus;
+import com.example.orders.pool.ConnectionSource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Справочник order_status в памяти. Поиск по id - индекс в массиве, по имени - готовая HashMap;
+// при изменении таблицы снимок целиком заменяется новым. Возвращаемые объекты общие, изменять их нельзя.
+public class StatusRegistry implements AutoCloseable {
+    public static final String NEW = "Новый";
+    public static final String PROCESSING = "В обработке";
+    public static final String PAID = "Оплачен";
+    public static final String DELIVERING = "Доставляется";
+    public static final String COMPLETED = "Завершен";
+    public static final String CANCELLED = "Отменен";
+    public static final String RETURNED = "Возврат";
+
+    private volatile Snapshot snapshot = new Snapshot(new OrderStatus[0], Map.of(), List.of(), null);
+    private ScheduledExecutorService refresher;
+
+    public void load(Connection connection) throws SQLException {
+        snapshot = readSnapshot(connection, fingerprint(connection));
+    }
+
+    // Перечитывает справочник, только если отпечаток таблицы изменился. Возвращает true при перезагрузке.
+    public boolean refreshIfChanged(Connection connection) throws SQLException {
+        String fingerprint = fingerprint(connection);
+        if (fingerprint != null && fingerprint.equals(snapshot.fingerprint)) {
+            return false;
+        }
+        snapshot = readSnapshot(connection, fingerprint);
+        return true;
+    }
+
+    public synchronized void startAutoRefresh(ConnectionSource source, long intervalMs) {
+        if (refresher != null) {
+            return;
+        }
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "status-registry-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(() -> {
+            try (Connection connection = source.getConnection()) {
+                refreshIfChanged(connection);
+            } catch (SQLException e) {
+                System.err.println("⚠️  Не удалось обновить справочник статусов: " + e.getMessage());
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public OrderStatus findById(long id) {
+        OrderStatus[] byId = snapshot.byId;
+        return id >= 0 && id < byId.length ? byId[(int) id] : null;
+    }
+
+    public OrderStatus findByName(String statusName) {
+        return snapshot.byName.get(statusName);
+    }
+
+    public long requireId(String statusName) {
+        OrderStatus status = findByName(statusName);
+        if (status == null) {
+            throw new IllegalStateException("Неизвестный статус заказа: " + statusName);
+        }
+        return status.getId();
+    }
+
+    public List<OrderStatus> findAll() {
+        return snapshot.all;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+            refresher = null;
+        }
+    }
+
+    private String fingerprint(Connection connection) throws SQLException {
+        String sql = "SELECT md5(string_agg(id || ':' || status_name, ',' ORDER BY id)) FROM order_status";
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            return resultSet.next() ? resultSet.getString(1) : null;
+        }
+    }
+
+    private Snapshot readSnapshot(Connection connection, String fingerprint) throws SQLException {
+        List<OrderStatus> statuses = new ArrayList<>();
+        long maxId = 0;
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT id, status_name FROM order_status ORDER BY id")) {
+            while (resultSet.next()) {
+                OrderStatus status = new OrderStatus(resultSet.getLong("id"), resultSet.getString("status_name"));
+                statuses.add(status);
+                maxId = Math.max(maxId, status.getId());
+            }
+        }
+
+        OrderStatus[] byId = new OrderStatus[(int) maxId + 1];
+        Map<String, OrderStatus> byName = new HashMap<>();
+        for (OrderStatus status : statuses) {
+            byId[status.getId().intValue()] = status;
+            byName.put(status.getStatusName(), status);
+        }
+        return new Snapshot(byId, byName, Collections.unmodifiableList(statuses), fingerprint);
+    }
+
+    private static class Snapshot {
+        final OrderStatus[] byId;
+        final Map<String, OrderStatus> byName;
+        final List<OrderStatus> all;
+        final String fingerprint;
+
+        Snapshot(OrderStatus[] byId, Map<String, OrderStatus> byName, List<OrderStatus> all, String fingerprint) {
+            this.byId = byId;
+            this.byName = byName;
+            this.all = all;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.orders.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class BatchResult {
+    private int succeeded;
+    private final List<RowFailure> failures = new ArrayList<>();
+
+    void addSucceeded(int count) {
+        succeeded += count;
+    }
+
+    void addFailure(int index, Object row, SQLException cause) {
+        failures.add(new RowFailure(index, row, cause));
+    }
+
+    public int getSucceeded() { return succeeded; }
+    public List<RowFailure> getFailures() { return Collections.unmodifiableList(failures); }
+    public boolean hasFailures() { return !failures.isEmpty(); }
+
+    @Override
+    public String toString() {
+        return String.format("BatchResult{succeeded=%d, failed=%d}", succeeded, failures.size());
+    }
+
+    public static class RowFailure {
+        private final int index;
+        private final Object row;
+        private final SQLException cause;
+
+        RowFailure(int index, Object row, SQLException cause) {
+            this.index = index;
+            this.row = row;
+            this.cause = cause;
+        }
+
+        // Позиция строки во входном списке
+        public int getIndex() { return index; }
+        public Object getRow() { return row; }
+        public SQLException getCause() { return cause; }
+
+        @Override
+        public String toString() {
+            return String.format("RowFailure{index=%d, error='%s'}", index, cause.getMessage());
+        }
+    }
+}
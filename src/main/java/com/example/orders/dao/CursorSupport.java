@@ -0,0 +1,60 @@
+package com.example.orders.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.function.Consumer;
+
+final class CursorSupport {
+    static final int DEFAULT_FETCH_SIZE = 500;
+
+    interface RowMapper<T> {
+        T map(ResultSet resultSet) throws SQLException;
+    }
+
+    interface ParameterBinder {
+        void bind(PreparedStatement statement) throws SQLException;
+    }
+
+    private CursorSupport() {}
+
+    // Читает результат серверным курсором порциями по fetchSize строк и отдает строки потребителю,
+    // не накапливая их в памяти. Возвращает количество переданных строк.
+    static <T> long stream(Connection connection, String sql, ParameterBinder binder, int fetchSize,
+                           RowMapper<T> mapper, Consumer<? super T> consumer) throws SQLException {
+        // Драйвер PostgreSQL использует курсор только внутри транзакции
+        boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+
+        long count = 0;
+        try (PreparedStatement statement = connection.prepareStatement(sql,
+                ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            binder.bind(statement);
+            statement.setFetchSize(fetchSize);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    consumer.accept(mapper.map(resultSet));
+                    count++;
+                }
+            }
+
+            if (autoCommit) {
+                connection.commit();
+            }
+        } catch (SQLException | RuntimeException e) {
+            if (autoCommit) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            if (autoCommit) {
+                connection.setAutoCommit(true);
+            }
+        }
+        return count;
+    }
+}
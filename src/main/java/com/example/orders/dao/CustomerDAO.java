@@ -1,87 +1,161 @@
 package com.example.orders.dao;
 
+import com.example.orders.id.IdGenerator;
+import com.example.orders.metrics.StatementMetrics;
 import com.example.orders.model.Customer;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class CustomerDAO {
     private final Connection connection;
+    private final IdGenerator idGenerator;
 
     public CustomerDAO(Connection connection) {
+        this(connection, null);
+    }
+
+    public CustomerDAO(Connection connection, IdGenerator idGenerator) {
         this.connection = connection;
+        this.idGenerator = idGenerator;
     }
 
     public void create(Customer customer) throws SQLException {
-        String sql = "INSERT INTO customer (first_name, last_name, phone, email) VALUES (?, ?, ?, ?)";
+        StatementMetrics.time("CustomerDAO.create", () -> {
+            if (idGenerator != null) {
+                return createWithAllocatedId(customer);
+            }
 
-        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            statement.setString(1, customer.getFirstName());
-            statement.setString(2, customer.getLastName());
-            statement.setString(3, customer.getPhone());
-            statement.setString(4, customer.getEmail());
+            String sql = "INSERT INTO customer (first_name, last_name, phone, email) VALUES (?, ?, ?, ?)";
 
-            int affectedRows = statement.executeUpdate();
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        customer.setId(generatedKeys.getLong(1));
+            try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                statement.setString(1, customer.getFirstName());
+                statement.setString(2, customer.getLastName());
+                statement.setString(3, customer.getPhone());
+                statement.setString(4, customer.getEmail());
+
+                int affectedRows = statement.executeUpdate();
+                if (affectedRows > 0) {
+                    try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            customer.setId(generatedKeys.getLong(1));
+                        }
                     }
                 }
+                return affectedRows;
             }
-        }
+        });
     }
 
-    public Customer findById(Long id) throws SQLException {
-        String sql = "SELECT * FROM customer WHERE id = ?";
+    // id берется из зарезервированного блока последовательности: вставка без RETURNING за один запрос
+    private int createWithAllocatedId(Customer customer) throws SQLException {
+        String sql = "INSERT INTO customer (id, first_name, last_name, phone, email) VALUES (?, ?, ?, ?, ?)";
+        long id = idGenerator.nextCustomerId(connection);
 
         try (PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setLong(1, id);
+            statement.setString(2, customer.getFirstName());
+            statement.setString(3, customer.getLastName());
+            statement.setString(4, customer.getPhone());
+            statement.setString(5, customer.getEmail());
+
+            int affectedRows = statement.executeUpdate();
+            customer.setId(id);
+            return affectedRows;
+        }
+    }
+
+    public Customer findById(Long id) throws SQLException {
+        return StatementMetrics.time("CustomerDAO.findById", () -> {
+            String sql = "SELECT * FROM customer WHERE id = ?";
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setLong(1, id);
 
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    return mapResultSetToCustomer(resultSet);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        return mapResultSetToCustomer(resultSet);
+                    }
                 }
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     public List<Customer> findAll() throws SQLException {
-        String sql = "SELECT * FROM customer ORDER BY id";
-        List<Customer> customers = new ArrayList<>();
+        return StatementMetrics.time("CustomerDAO.findAll", () -> {
+            String sql = "SELECT * FROM customer ORDER BY id";
+            List<Customer> customers = new ArrayList<>();
 
-        try (PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
+            try (PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
 
-            while (resultSet.next()) {
-                customers.add(mapResultSetToCustomer(resultSet));
+                while (resultSet.next()) {
+                    customers.add(mapResultSetToCustomer(resultSet));
+                }
             }
-        }
-        return customers;
+            return customers;
+        });
+    }
+
+    // Постраничное чтение по ключу: следующая страница начинается после последнего id предыдущей
+    public List<Customer> findPage(Long afterId, int limit) throws SQLException {
+        return StatementMetrics.time("CustomerDAO.findPage", () -> {
+            String sql = "SELECT * FROM customer WHERE id > ? ORDER BY id LIMIT ?";
+            List<Customer> customers = new ArrayList<>();
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setLong(1, afterId != null ? afterId : 0);
+                statement.setInt(2, limit);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        customers.add(mapResultSetToCustomer(resultSet));
+                    }
+                }
+            }
+            return customers;
+        });
+    }
+
+    public long streamAll(Consumer<? super Customer> consumer) throws SQLException {
+        return streamAll(consumer, CursorSupport.DEFAULT_FETCH_SIZE);
+    }
+
+    // Вся таблица через серверный курсор: в памяти одновременно не больше fetchSize строк
+    public long streamAll(Consumer<? super Customer> consumer, int fetchSize) throws SQLException {
+        return StatementMetrics.time("CustomerDAO.streamAll", () -> {
+            String sql = "SELECT * FROM customer ORDER BY id";
+            return CursorSupport.stream(connection, sql, statement -> {}, fetchSize, this::mapResultSetToCustomer, consumer);
+        });
     }
 
     public void update(Customer customer) throws SQLException {
-        String sql = "UPDATE customer SET first_name = ?, last_name = ?, phone = ?, email = ? WHERE id = ?";
+        StatementMetrics.time("CustomerDAO.update", () -> {
+            String sql = "UPDATE customer SET first_name = ?, last_name = ?, phone = ?, email = ? WHERE id = ?";
 
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, customer.getFirstName());
-            statement.setString(2, customer.getLastName());
-            statement.setString(3, customer.getPhone());
-            statement.setString(4, customer.getEmail());
-            statement.setLong(5, customer.getId());
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, customer.getFirstName());
+                statement.setString(2, customer.getLastName());
+                statement.setString(3, customer.getPhone());
+                statement.setString(4, customer.getEmail());
+                statement.setLong(5, customer.getId());
 
-            statement.executeUpdate();
-        }
+                return statement.executeUpdate();
+            }
+        });
     }
 
     public void delete(Long id) throws SQLException {
-        String sql = "DELETE FROM customer WHERE id = ?";
+        StatementMetrics.time("CustomerDAO.delete", () -> {
+            String sql = "DELETE FROM customer WHERE id = ?";
 
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setLong(1, id);
-            statement.executeUpdate();
-        }
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setLong(1, id);
+                return statement.executeUpdate();
+            }
+        });
     }
 
     private Customer mapResultSetToCustomer(ResultSet resultSet) throws SQLException {
@@ -1,94 +1,541 @@
 package com.example.orders.dao;
 
+import com.example.orders.cache.ProductCache;
+import com.example.orders.id.IdGenerator;
+import com.example.orders.metrics.StatementMetrics;
 import com.example.orders.model.Order;
+import com.example.orders.pool.TransactionCallbacks;
+import com.example.orders.ranking.SalesLeaderboard;
+import com.example.orders.stock.Reservation;
+import com.example.orders.stock.StockLedger;
+import java.math.BigDecimal;
 import java.sql.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class OrderDAO {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+    public static final int DEFAULT_BULK_CHUNK_SIZE = 10_000;
+
+    // Списки заказов читаются из order_listing (V8): имя покупателя, товар, статус и сумма
+    // уже лежат в строке заказа, соединять orders со справочниками не нужно
+    private static final String ORDER_DETAILS_SELECT = """
+            SELECT o.id, o.product_id, o.customer_id, o.order_date, o.quantity, o.status_id,
+                   o.customer_name, o.product_description, o.status_name, o.total_amount
+            FROM order_listing o
+            """;
+
+    // Дата заказа из order_locator: с ней запрос по id читает одну секцию orders, а не все
+    private static final String ORDER_DATE_BY_ID = "(SELECT order_date FROM order_locator WHERE id = ?)";
+
+    private static final String RETURNING_ID_AND_PRICE =
+            " RETURNING o.id, (SELECT p.price FROM products p WHERE p.id = o.product_id) AS price";
+
     private final Connection connection;
+    private final IdGenerator idGenerator;
+    private final SalesLeaderboard leaderboard;
+    private final ProductCache productCache;
 
     public OrderDAO(Connection connection) {
+        this(connection, null);
+    }
+
+    public OrderDAO(Connection connection, IdGenerator idGenerator) {
+        this(connection, idGenerator, null);
+    }
+
+    // С leaderboard каждый созданный и удаленный заказ учитывается в лидерах продаж после фиксации
+    public OrderDAO(Connection connection, IdGenerator idGenerator, SalesLeaderboard leaderboard) {
+        this(connection, idGenerator, leaderboard, null);
+    }
+
+    // productCache - тот же кэш, что у ProductDAO: списание остатка сбрасывает запись товара
+    public OrderDAO(Connection connection, IdGenerator idGenerator, SalesLeaderboard leaderboard,
+                    ProductCache productCache) {
         this.connection = connection;
+        this.idGenerator = idGenerator;
+        this.leaderboard = leaderboard;
+        this.productCache = productCache;
     }
 
     public void create(Order order) throws SQLException {
-        String sql = "INSERT INTO orders (product_id, customer_id, quantity, status_id) VALUES (?, ?, ?, ?)";
+        StatementMetrics.time("OrderDAO.create", () -> insert(order));
+    }
+
+    // Цена товара для лидеров продаж возвращается самой вставкой - без отдельного SELECT
+    private int insert(Order order) throws SQLException {
+        if (idGenerator != null) {
+            return createWithAllocatedId(order);
+        }
+
+        String sql = "INSERT INTO orders AS o (product_id, customer_id, quantity, status_id) VALUES (?, ?, ?, ?)"
+                + RETURNING_ID_AND_PRICE;
 
-        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setLong(1, order.getProductId());
             statement.setLong(2, order.getCustomerId());
             statement.setInt(3, order.getQuantity());
             statement.setLong(4, order.getStatusId());
+            return readInserted(statement, order);
+        }
+    }
 
-            int affectedRows = statement.executeUpdate();
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        order.setId(generatedKeys.getLong(1));
-                    }
-                }
+    // id берется из зарезервированного блока последовательности: вставка за один запрос без обращения к nextval
+    private int createWithAllocatedId(Order order) throws SQLException {
+        String sql = "INSERT INTO orders AS o (id, product_id, customer_id, quantity, status_id) VALUES (?, ?, ?, ?, ?)"
+                + RETURNING_ID_AND_PRICE;
+        long id = idGenerator.nextOrderId(connection);
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, id);
+            statement.setLong(2, order.getProductId());
+            statement.setLong(3, order.getCustomerId());
+            statement.setInt(4, order.getQuantity());
+            statement.setLong(5, order.getStatusId());
+            return readInserted(statement, order);
+        }
+    }
+
+    private int readInserted(PreparedStatement statement, Order order) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            if (!resultSet.next()) {
+                return 0;
             }
+            order.setId(resultSet.getLong("id"));
+            BigDecimal price = resultSet.getBigDecimal("price");
+            notifyLeaderboard(List.of(() -> leaderboard.onOrderCreated(order.getProductId(), order.getCustomerId(),
+                    order.getQuantity(), price)));
+            return 1;
         }
     }
 
-    public List<Order> findLastOrders(int limit) throws SQLException {
+    // Лидеры продаж меняются только после фиксации: откат транзакции не должен оставлять их
+    // неверными до следующей полной перезагрузки
+    private void notifyLeaderboard(List<Runnable> updates) throws SQLException {
+        if (leaderboard != null && !updates.isEmpty()) {
+            TransactionCallbacks.afterCommit(connection, () -> updates.forEach(Runnable::run));
+        }
+    }
+
+    public BatchResult createAll(List<Order> orders) throws SQLException {
+        return createAll(orders, DEFAULT_BATCH_SIZE);
+    }
+
+    // Вставляет заказы пачками по batchSize строк за один запрос и проставляет id в исходном порядке.
+    // Ошибочные строки попадают в BatchResult, остальные строки пачки все равно вставляются.
+    public BatchResult createAll(List<Order> orders, int batchSize) throws SQLException {
+        return StatementMetrics.time("OrderDAO.createAll", () -> {
+            if (batchSize < 1) {
+                throw new IllegalArgumentException("Размер пачки должен быть положительным: " + batchSize);
+            }
+
+            BatchResult result = new BatchResult();
+            for (int from = 0; from < orders.size(); from += batchSize) {
+                insertChunk(orders, from, Math.min(from + batchSize, orders.size()), result);
+            }
+            return result;
+        }, BatchResult::getSucceeded);
+    }
+
+    private void insertChunk(List<Order> orders, int from, int to, BatchResult result) throws SQLException {
+        // Вне autocommit ошибка прервала бы всю транзакцию, поэтому пачка изолируется точкой сохранения
+        Savepoint savepoint = connection.getAutoCommit() ? null : connection.setSavepoint();
+        try {
+            insertRows(orders.subList(from, to));
+            if (savepoint != null) {
+                connection.releaseSavepoint(savepoint);
+            }
+            result.addSucceeded(to - from);
+        } catch (SQLException e) {
+            if (savepoint != null) {
+                connection.rollback(savepoint);
+            }
+            // Потеря соединения не относится к конкретной строке
+            if (e.getSQLState() != null && e.getSQLState().startsWith("08")) {
+                throw e;
+            }
+            if (to - from == 1) {
+                result.addFailure(from, orders.get(from), e);
+                return;
+            }
+            // Делим пачку пополам, пока не найдем ошибочные строки
+            int middle = (from + to) >>> 1;
+            insertChunk(orders, from, middle, result);
+            insertChunk(orders, middle, to, result);
+        }
+    }
+
+    private void insertRows(List<Order> chunk) throws SQLException {
+        // Массивы вместо VALUES (...), (...): один и тот же текст запроса для пачки любого размера.
+        // Порядок строк RETURNING не гарантирован, поэтому id выдается каждой входной строке заранее
+        // и возвращается вместе с ее номером в массиве (WITH ORDINALITY)
         String sql = """
-            SELECT o.*, 
-                   c.first_name || ' ' || c.last_name as customer_name,
-                   p.description as product_description,
-                   os.status_name,
-                   (p.price * o.quantity) as total_amount
-            FROM orders o
-            JOIN customer c ON o.customer_id = c.id
-            JOIN product p ON o.product_id = p.id
-            JOIN order_status os ON o.status_id = os.id
-            ORDER BY o.order_date DESC
-            LIMIT ?
+            WITH input AS MATERIALIZED (
+                SELECT nextval('orders_id_seq') AS id, t.*
+                FROM unnest(?::bigint[], ?::bigint[], ?::timestamp[], ?::int[], ?::bigint[]) WITH ORDINALITY
+                     AS t(product_id, customer_id, order_date, quantity, status_id, ord)
+            ),
+            inserted AS (
+                INSERT INTO orders (id, product_id, customer_id, order_date, quantity, status_id)
+                SELECT id, product_id, customer_id, COALESCE(order_date, CURRENT_TIMESTAMP), quantity, status_id
+                FROM input
+                RETURNING id
+            )
+            SELECT input.ord, inserted.id, (SELECT p.price FROM products p WHERE p.id = input.product_id) AS price
+            FROM inserted
+            JOIN input ON input.id = inserted.id
             """;
 
-        List<Order> orders = new ArrayList<>();
+        int size = chunk.size();
+        Long[] productIds = new Long[size];
+        Long[] customerIds = new Long[size];
+        Timestamp[] orderDates = new Timestamp[size];
+        Integer[] quantities = new Integer[size];
+        Long[] statusIds = new Long[size];
+
+        for (int i = 0; i < size; i++) {
+            Order order = chunk.get(i);
+            productIds[i] = order.getProductId();
+            customerIds[i] = order.getCustomerId();
+            orderDates[i] = order.getOrderDate() != null ? Timestamp.valueOf(order.getOrderDate()) : null;
+            quantities[i] = order.getQuantity();
+            statusIds[i] = order.getStatusId();
+        }
 
         try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, limit);
+            statement.setArray(1, connection.createArrayOf("int8", productIds));
+            statement.setArray(2, connection.createArrayOf("int8", customerIds));
+            statement.setArray(3, connection.createArrayOf("timestamp", orderDates));
+            statement.setArray(4, connection.createArrayOf("int4", quantities));
+            statement.setArray(5, connection.createArrayOf("int8", statusIds));
 
+            List<Runnable> leaderboardUpdates = new ArrayList<>();
             try (ResultSet resultSet = statement.executeQuery()) {
                 while (resultSet.next()) {
-                    orders.add(mapResultSetToOrder(resultSet));
+                    Order order = chunk.get(resultSet.getInt(1) - 1);
+                    order.setId(resultSet.getLong(2));
+                    BigDecimal price = resultSet.getBigDecimal(3);
+                    leaderboardUpdates.add(() -> leaderboard.onOrderCreated(order.getProductId(),
+                            order.getCustomerId(), order.getQuantity(), price));
                 }
             }
+            notifyLeaderboard(leaderboardUpdates);
         }
-        return orders;
+    }
+
+    public List<Order> findLastOrders(int limit) throws SQLException {
+        return StatementMetrics.time("OrderDAO.findLastOrders", () -> {
+            String sql = ORDER_DETAILS_SELECT + """
+                ORDER BY o.order_date DESC, o.id DESC
+                LIMIT ?
+                """;
+
+            List<Order> orders = new ArrayList<>();
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, limit);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        orders.add(mapResultSetToOrder(resultSet));
+                    }
+                }
+            }
+            return orders;
+        });
+    }
+
+    // Следующая страница "последних заказов": заказы строго раньше ключа (order_date, id)
+    // последнего заказа предыдущей страницы. Первая страница - findLastOrders(limit).
+    public List<Order> findOrdersBefore(LocalDateTime orderDate, Long orderId, int limit) throws SQLException {
+        return StatementMetrics.time("OrderDAO.findOrdersBefore", () -> {
+            String sql = ORDER_DETAILS_SELECT + """
+                WHERE (o.order_date, o.id) < (?, ?)
+                ORDER BY o.order_date DESC, o.id DESC
+                LIMIT ?
+                """;
+
+            List<Order> orders = new ArrayList<>();
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setTimestamp(1, Timestamp.valueOf(orderDate));
+                statement.setLong(2, orderId);
+                statement.setInt(3, limit);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        orders.add(mapResultSetToOrder(resultSet));
+                    }
+                }
+            }
+            return orders;
+        });
+    }
+
+    // Заказы покупателя от новых к старым; beforeDate/beforeId - ключ последнего заказа предыдущей
+    // страницы или null для первой страницы
+    public List<Order> findCustomerOrders(Long customerId, LocalDateTime beforeDate, Long beforeId, int limit)
+            throws SQLException {
+        return StatementMetrics.time("OrderDAO.findCustomerOrders", () -> {
+            // Без ключа страницы условие не добавляется: индекс (customer_id, order_date, id) читается с начала
+            String sql = ORDER_DETAILS_SELECT
+                    + (beforeDate != null
+                    ? "WHERE o.customer_id = ? AND (o.order_date, o.id) < (?, ?)\n"
+                    : "WHERE o.customer_id = ?\n")
+                    + "ORDER BY o.order_date DESC, o.id DESC\nLIMIT ?";
+
+            List<Order> orders = new ArrayList<>();
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int index = 1;
+                statement.setLong(index++, customerId);
+                if (beforeDate != null) {
+                    statement.setTimestamp(index++, Timestamp.valueOf(beforeDate));
+                    statement.setLong(index++, beforeId);
+                }
+                statement.setInt(index, limit);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        orders.add(mapResultSetToOrder(resultSet));
+                    }
+                }
+            }
+            return orders;
+        });
+    }
+
+    public long streamOrders(Consumer<? super Order> consumer) throws SQLException {
+        return streamOrders(consumer, CursorSupport.DEFAULT_FETCH_SIZE);
+    }
+
+    // Все заказы от новых к старым через серверный курсор
+    public long streamOrders(Consumer<? super Order> consumer, int fetchSize) throws SQLException {
+        return StatementMetrics.time("OrderDAO.streamOrders", () -> {
+            String sql = ORDER_DETAILS_SELECT + """
+                ORDER BY o.order_date DESC, o.id DESC
+                """;
+            return CursorSupport.stream(connection, sql, statement -> {}, fetchSize, this::mapResultSetToOrder, consumer);
+        });
     }
 
     public void updateStatus(Long orderId, Long statusId) throws SQLException {
-        String sql = "UPDATE orders SET status_id = ? WHERE id = ?";
+        StatementMetrics.time("OrderDAO.updateStatus", () -> {
+            String sql = "UPDATE orders SET status_id = ? WHERE id = ? AND order_date = " + ORDER_DATE_BY_ID;
 
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setLong(1, statusId);
-            statement.setLong(2, orderId);
-            statement.executeUpdate();
-        }
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setLong(1, statusId);
+                statement.setLong(2, orderId);
+                statement.setLong(3, orderId);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    public List<Long> updateStatusAll(Collection<Long> orderIds, Long statusId) throws SQLException {
+        return updateStatusAll(orderIds, statusId, DEFAULT_BULK_CHUNK_SIZE);
+    }
+
+    // Переводит заказы в статус одним запросом на chunkSize id (массив в параметре, = ANY).
+    // Возвращает id заказов, статус которых действительно изменился: отсутствующие заказы и заказы,
+    // уже находящиеся в этом статусе, не перезаписываются. В autocommit каждая порция фиксируется отдельно.
+    // Даты заказов берутся из order_locator: границы min/max известны до выполнения, и секции вне них
+    // отсекаются, а внутри диапазона строки находятся по (id, order_date). Так же устроен deleteAll.
+    public List<Long> updateStatusAll(Collection<Long> orderIds, Long statusId, int chunkSize) throws SQLException {
+        return StatementMetrics.time("OrderDAO.updateStatusAll", () -> {
+            String sql = """
+                WITH target AS MATERIALIZED (
+                    SELECT id, order_date FROM order_locator WHERE id = ANY(?)
+                )
+                UPDATE orders o
+                SET status_id = ?
+                FROM target t
+                WHERE o.id = t.id AND o.order_date = t.order_date
+                  AND o.order_date BETWEEN (SELECT min(order_date) FROM target) AND (SELECT max(order_date) FROM target)
+                  AND o.status_id IS DISTINCT FROM ?
+                RETURNING o.id
+                """;
+
+            List<Long> updated = new ArrayList<>();
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (Long[] chunk : chunks(orderIds, chunkSize)) {
+                    statement.setArray(1, connection.createArrayOf("bigint", chunk));
+                    statement.setLong(2, statusId);
+                    statement.setLong(3, statusId);
+
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            updated.add(resultSet.getLong(1));
+                        }
+                    }
+                }
+            }
+            return updated;
+        }, List::size);
     }
 
     public void delete(Long orderId) throws SQLException {
-        String sql = "DELETE FROM orders WHERE id = ?";
+        StatementMetrics.time("OrderDAO.delete", () -> {
+            if (leaderboard != null) {
+                return deleteAndNotify(orderId);
+            }
+
+            String sql = "DELETE FROM orders WHERE id = ? AND order_date = " + ORDER_DATE_BY_ID;
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setLong(1, orderId);
+                statement.setLong(2, orderId);
+                return statement.executeUpdate();
+            }
+        });
+    }
+
+    public List<Long> deleteAll(Collection<Long> orderIds) throws SQLException {
+        return deleteAll(orderIds, DEFAULT_BULK_CHUNK_SIZE);
+    }
+
+    // Удаляет заказы одним запросом на chunkSize id и возвращает id действительно удаленных.
+    // Вместе с удаленными строками приходит цена товара - для лидеров продаж, как в delete().
+    public List<Long> deleteAll(Collection<Long> orderIds, int chunkSize) throws SQLException {
+        return StatementMetrics.time("OrderDAO.deleteAll", () -> {
+            String sql = """
+                WITH target AS MATERIALIZED (
+                    SELECT id, order_date FROM order_locator WHERE id = ANY(?)
+                )
+                DELETE FROM orders o
+                USING target t
+                WHERE o.id = t.id AND o.order_date = t.order_date
+                  AND o.order_date BETWEEN (SELECT min(order_date) FROM target) AND (SELECT max(order_date) FROM target)
+                RETURNING o.id, o.product_id, o.customer_id, o.quantity,
+                          (SELECT p.price FROM products p WHERE p.id = o.product_id) AS price
+                """;
+
+            List<Long> deleted = new ArrayList<>();
+            List<Runnable> leaderboardUpdates = new ArrayList<>();
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (Long[] chunk : chunks(orderIds, chunkSize)) {
+                    statement.setArray(1, connection.createArrayOf("bigint", chunk));
+
+                    try (ResultSet resultSet = statement.executeQuery()) {
+                        while (resultSet.next()) {
+                            deleted.add(resultSet.getLong("id"));
+                            leaderboardUpdates.add(deletedOrderUpdate(resultSet));
+                        }
+                    }
+                }
+            }
+            notifyLeaderboard(leaderboardUpdates);
+            return deleted;
+        }, List::size);
+    }
+
+    // Уникальные id порциями не больше chunkSize; null в списке недопустим
+    private static List<Long[]> chunks(Collection<Long> ids, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Размер порции должен быть положительным: " + chunkSize);
+        }
+        Long[] unique = new LinkedHashSet<>(ids).toArray(new Long[0]);
+        List<Long[]> chunks = new ArrayList<>();
+        for (int from = 0; from < unique.length; from += chunkSize) {
+            chunks.add(Arrays.copyOfRange(unique, from, Math.min(from + chunkSize, unique.length)));
+        }
+        return chunks;
+    }
+
+    // Удаленная строка и текущая цена товара возвращаются тем же запросом
+    private int deleteAndNotify(Long orderId) throws SQLException {
+        String sql = """
+            DELETE FROM orders o
+            WHERE o.id = ? AND o.order_date = (SELECT order_date FROM order_locator WHERE id = ?)
+            RETURNING o.product_id, o.customer_id, o.quantity,
+                      (SELECT p.price FROM products p WHERE p.id = o.product_id) AS price
+            """;
 
         try (PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setLong(1, orderId);
-            statement.executeUpdate();
+            statement.setLong(2, orderId);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                if (!resultSet.next()) {
+                    return 0;
+                }
+                notifyLeaderboard(List.of(deletedOrderUpdate(resultSet)));
+                return 1;
+            }
         }
     }
 
-    public void updateProductQuantityAfterOrder(Long productId, int quantity) throws SQLException {
-        String sql = "UPDATE product SET quantity = quantity - ? WHERE id = ? AND quantity >= ?";
+    private Runnable deletedOrderUpdate(ResultSet resultSet) throws SQLException {
+        long productId = resultSet.getLong("product_id");
+        long customerId = resultSet.getLong("customer_id");
+        int quantity = resultSet.getInt("quantity");
+        BigDecimal price = resultSet.getBigDecimal("price");
+        return () -> leaderboard.onOrderDeleted(productId, customerId, quantity, price);
+    }
+
+    // false, если на складе не хватило товара и количество не изменилось
+    public boolean updateProductQuantityAfterOrder(Long productId, int quantity) throws SQLException {
+        return StatementMetrics.time("OrderDAO.updateProductQuantityAfterOrder", () -> {
+            String sql = "UPDATE products SET quantity = quantity - ? WHERE id = ? AND quantity >= ?";
 
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, quantity);
-            statement.setLong(2, productId);
-            statement.setInt(3, quantity);
-            statement.executeUpdate();
+            boolean updated;
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, quantity);
+                statement.setLong(2, productId);
+                statement.setInt(3, quantity);
+                updated = statement.executeUpdate() > 0;
+            }
+            // Как в ProductDAO: сброс сразу и еще раз после фиксации списания
+            if (updated && productCache != null) {
+                productCache.invalidate(productId);
+                TransactionCallbacks.afterCommit(connection, () -> productCache.invalidate(productId));
+            }
+            return updated;
+        });
+    }
+
+    // Создает заказ и списывает товар со склада. Сначала берется резерв в StockLedger:
+    // если товара нет, заказ отклоняется без единого запроса к базе. Возвращает false при нехватке товара.
+    // Только в autocommit: резерв подтверждается после COMMIT, а откат чужой транзакции
+    // после подтверждения оставил бы остаток в памяти списанным.
+    public boolean createWithStock(Order order, StockLedger ledger) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            throw new IllegalStateException("createWithStock выполняется в собственной транзакции, нужен autocommit");
         }
+        return StatementMetrics.time("OrderDAO.createWithStock", () -> {
+            Reservation reservation = ledger.tryReserve(order.getProductId(), order.getQuantity());
+            if (reservation == null) {
+                return false;
+            }
+
+            connection.setAutoCommit(false);
+            try {
+                if (!updateProductQuantityAfterOrder(order.getProductId(), order.getQuantity())) {
+                    connection.rollback();
+                    ledger.release(reservation);
+                    return false;
+                }
+
+                create(order);
+                connection.commit();
+                ledger.confirm(reservation);
+                return true;
+
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                ledger.release(reservation);
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        });
     }
 
     private Order mapResultSetToOrder(ResultSet resultSet) throws SQLException {
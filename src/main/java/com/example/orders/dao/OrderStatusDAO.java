@@ -1,59 +1,118 @@
 package com.example.orders.dao;
 
+import com.example.orders.cache.StatusRegistry;
+import com.example.orders.metrics.StatementMetrics;
 import com.example.orders.model.OrderStatus;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class OrderStatusDAO {
     private final Connection connection;
+    private final StatusRegistry registry;
 
     public OrderStatusDAO(Connection connection) {
+        this(connection, null);
+    }
+
+    // С реестром поиск по id и имени обслуживается из памяти без запросов к базе
+    public OrderStatusDAO(Connection connection, StatusRegistry registry) {
         this.connection = connection;
+        this.registry = registry;
     }
 
     public OrderStatus findById(Long id) throws SQLException {
-        String sql = "SELECT * FROM order_status WHERE id = ?";
+        return StatementMetrics.time("OrderStatusDAO.findById", () -> {
+            if (id == null) {
+                return null;
+            }
+            if (registry != null) {
+                return registry.findById(id);
+            }
+
+            String sql = "SELECT * FROM order_status WHERE id = ?";
 
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setLong(1, id);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setLong(1, id);
 
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    return mapResultSetToOrderStatus(resultSet);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        return mapResultSetToOrderStatus(resultSet);
+                    }
                 }
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     public OrderStatus findByName(String statusName) throws SQLException {
-        String sql = "SELECT * FROM order_status WHERE status_name = ?";
+        return StatementMetrics.time("OrderStatusDAO.findByName", () -> {
+            if (registry != null) {
+                return registry.findByName(statusName);
+            }
+
+            String sql = "SELECT * FROM order_status WHERE status_name = ?";
 
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, statusName);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, statusName);
 
-            try (ResultSet resultSet = statement.executeQuery()) {
-                if (resultSet.next()) {
-                    return mapResultSetToOrderStatus(resultSet);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        return mapResultSetToOrderStatus(resultSet);
+                    }
                 }
             }
-        }
-        return null;
+            return null;
+        });
     }
 
     public List<OrderStatus> findAll() throws SQLException {
-        String sql = "SELECT * FROM order_status ORDER BY id";
-        List<OrderStatus> statuses = new ArrayList<>();
+        return StatementMetrics.time("OrderStatusDAO.findAll", () -> {
+            String sql = "SELECT * FROM order_status ORDER BY id";
+            List<OrderStatus> statuses = new ArrayList<>();
+
+            try (PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
+
+                while (resultSet.next()) {
+                    statuses.add(mapResultSetToOrderStatus(resultSet));
+                }
+            }
+            return statuses;
+        });
+    }
 
-        try (PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
+    // Постраничное чтение по ключу: следующая страница начинается после последнего id предыдущей
+    public List<OrderStatus> findPage(Long afterId, int limit) throws SQLException {
+        return StatementMetrics.time("OrderStatusDAO.findPage", () -> {
+            String sql = "SELECT * FROM order_status WHERE id > ? ORDER BY id LIMIT ?";
+            List<OrderStatus> statuses = new ArrayList<>();
 
-            while (resultSet.next()) {
-                statuses.add(mapResultSetToOrderStatus(resultSet));
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setLong(1, afterId != null ? afterId : 0);
+                statement.setInt(2, limit);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        statuses.add(mapResultSetToOrderStatus(resultSet));
+                    }
+                }
             }
-        }
-        return statuses;
+            return statuses;
+        });
+    }
+
+    public long streamAll(Consumer<? super OrderStatus> consumer) throws SQLException {
+        return streamAll(consumer, CursorSupport.DEFAULT_FETCH_SIZE);
+    }
+
+    // Вся таблица через серверный курсор: в памяти одновременно не больше fetchSize строк
+    public long streamAll(Consumer<? super OrderStatus> consumer, int fetchSize) throws SQLException {
+        return StatementMetrics.time("OrderStatusDAO.streamAll", () -> {
+            String sql = "SELECT * FROM order_status ORDER BY id";
+            return CursorSupport.stream(connection, sql, statement -> {}, fetchSize, this::mapResultSetToOrderStatus, consumer);
+        });
     }
 
     private OrderStatus mapResultSetToOrderStatus(ResultSet resultSet) throws SQLException {
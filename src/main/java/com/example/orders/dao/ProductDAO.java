@@ -1,40 +1,104 @@
 package com.example.orders.dao;
 
+import com.example.orders.cache.ProductCache;
+import com.example.orders.id.IdGenerator;
+import com.example.orders.metrics.StatementMetrics;
 import com.example.orders.model.Product;
+import com.example.orders.pool.TransactionCallbacks;
 import java.math.BigDecimal;
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Consumer;
 
 public class ProductDAO {
     private final Connection connection;
+    private final IdGenerator idGenerator;
+    private final ProductCache cache;
 
     public ProductDAO(Connection connection) {
+        this(connection, null, null);
+    }
+
+    public ProductDAO(Connection connection, IdGenerator idGenerator) {
+        this(connection, idGenerator, null);
+    }
+
+    // Кэш общий для всех экземпляров DAO; без него каждый findById идет в базу
+    public ProductDAO(Connection connection, IdGenerator idGenerator, ProductCache cache) {
         this.connection = connection;
+        this.idGenerator = idGenerator;
+        this.cache = cache;
     }
 
     public void create(Product product) throws SQLException {
-        String sql = "INSERT INTO product (description, price, quantity, category) VALUES (?, ?, ?, ?)";
+        StatementMetrics.time("ProductDAO.create", () -> {
+            if (idGenerator != null) {
+                return createWithAllocatedId(product);
+            }
 
-        try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-            statement.setString(1, product.getDescription());
-            statement.setBigDecimal(2, product.getPrice());
-            statement.setInt(3, product.getQuantity());
-            statement.setString(4, product.getCategory());
+            String sql = "INSERT INTO products (description, price, quantity, category) VALUES (?, ?, ?, ?)";
 
-            int affectedRows = statement.executeUpdate();
-            if (affectedRows > 0) {
-                try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
-                    if (generatedKeys.next()) {
-                        product.setId(generatedKeys.getLong(1));
+            try (PreparedStatement statement = connection.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                statement.setString(1, product.getDescription());
+                statement.setBigDecimal(2, product.getPrice());
+                statement.setInt(3, product.getQuantity());
+                statement.setString(4, product.getCategory());
+
+                int affectedRows = statement.executeUpdate();
+                if (affectedRows > 0) {
+                    try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                        if (generatedKeys.next()) {
+                            product.setId(generatedKeys.getLong(1));
+                        }
                     }
                 }
+                return affectedRows;
             }
+        });
+    }
+
+    // id берется из зарезервированного блока последовательности: вставка без RETURNING за один запрос
+    private int createWithAllocatedId(Product product) throws SQLException {
+        String sql = "INSERT INTO products (id, description, price, quantity, category) VALUES (?, ?, ?, ?, ?)";
+        long id = idGenerator.nextProductId(connection);
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, id);
+            statement.setString(2, product.getDescription());
+            statement.setBigDecimal(3, product.getPrice());
+            statement.setInt(4, product.getQuantity());
+            statement.setString(5, product.getCategory());
+
+            int affectedRows = statement.executeUpdate();
+            product.setId(id);
+            return affectedRows;
         }
     }
 
     public Product findById(Long id) throws SQLException {
-        String sql = "SELECT * FROM product WHERE id = ?";
+        return StatementMetrics.time("ProductDAO.findById", () -> {
+            if (cache == null) {
+                return loadById(id);
+            }
+
+            Product cached = cache.get(id);
+            if (cached != null) {
+                return cached;
+            }
+
+            long generation = cache.generation(id);
+            Product product = loadById(id);
+            // Внутри открытой транзакции строка может быть еще не зафиксирована - в кэш ее не кладем
+            if (product != null && connection.getAutoCommit()) {
+                cache.putIfUnchanged(product, generation);
+            }
+            return product;
+        });
+    }
+
+    private Product loadById(Long id) throws SQLException {
+        String sql = "SELECT * FROM products WHERE id = ?";
 
         try (PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setLong(1, id);
@@ -49,76 +113,159 @@ public class ProductDAO {
     }
 
     public List<Product> findAll() throws SQLException {
-        String sql = "SELECT * FROM product ORDER BY id";
-        List<Product> products = new ArrayList<>();
+        return StatementMetrics.time("ProductDAO.findAll", () -> {
+            String sql = "SELECT * FROM products ORDER BY id";
+            List<Product> products = new ArrayList<>();
 
-        try (PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet resultSet = statement.executeQuery()) {
+            try (PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet resultSet = statement.executeQuery()) {
 
-            while (resultSet.next()) {
-                products.add(mapResultSetToProduct(resultSet));
+                while (resultSet.next()) {
+                    products.add(mapResultSetToProduct(resultSet));
+                }
             }
-        }
-        return products;
+            return products;
+        });
+    }
+
+    // Постраничное чтение по ключу: следующая страница начинается после последнего id предыдущей
+    public List<Product> findPage(Long afterId, int limit) throws SQLException {
+        return StatementMetrics.time("ProductDAO.findPage", () -> {
+            String sql = "SELECT * FROM products WHERE id > ? ORDER BY id LIMIT ?";
+            List<Product> products = new ArrayList<>();
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setLong(1, afterId != null ? afterId : 0);
+                statement.setInt(2, limit);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        products.add(mapResultSetToProduct(resultSet));
+                    }
+                }
+            }
+            return products;
+        });
+    }
+
+    public long streamAll(Consumer<? super Product> consumer) throws SQLException {
+        return streamAll(consumer, CursorSupport.DEFAULT_FETCH_SIZE);
+    }
+
+    // Вся таблица через серверный курсор: в памяти одновременно не больше fetchSize строк
+    public long streamAll(Consumer<? super Product> consumer, int fetchSize) throws SQLException {
+        return StatementMetrics.time("ProductDAO.streamAll", () -> {
+            String sql = "SELECT * FROM products ORDER BY id";
+            return CursorSupport.stream(connection, sql, statement -> {}, fetchSize, this::mapResultSetToProduct, consumer);
+        });
     }
 
     public void update(Product product) throws SQLException {
-        String sql = "UPDATE product SET description = ?, price = ?, quantity = ?, category = ? WHERE id = ?";
+        StatementMetrics.time("ProductDAO.update", () -> {
+            // В кэш попадает строка в том виде, в каком ее сохранила база (округление цены и т.п.)
+            String sql = "UPDATE products SET description = ?, price = ?, quantity = ?, category = ? WHERE id = ? "
+                    + "RETURNING *";
 
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setString(1, product.getDescription());
-            statement.setBigDecimal(2, product.getPrice());
-            statement.setInt(3, product.getQuantity());
-            statement.setString(4, product.getCategory());
-            statement.setLong(5, product.getId());
+            Product stored = null;
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setString(1, product.getDescription());
+                statement.setBigDecimal(2, product.getPrice());
+                statement.setInt(3, product.getQuantity());
+                statement.setString(4, product.getCategory());
+                statement.setLong(5, product.getId());
 
-            statement.executeUpdate();
-        }
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    if (resultSet.next()) {
+                        stored = mapResultSetToProduct(resultSet);
+                    }
+                }
+            }
+            // Товара с таким id нет - в кэш ничего не кладется
+            afterWrite(product.getId(), stored);
+            return stored != null ? 1 : 0;
+        });
     }
 
     public void delete(Long id) throws SQLException {
-        String sql = "DELETE FROM product WHERE id = ?";
+        StatementMetrics.time("ProductDAO.delete", () -> {
+            String sql = "DELETE FROM products WHERE id = ?";
 
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setLong(1, id);
-            statement.executeUpdate();
-        }
+            int affectedRows;
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setLong(1, id);
+                affectedRows = statement.executeUpdate();
+            }
+            afterWrite(id, null);
+            return affectedRows;
+        });
     }
 
     public void updatePrice(Long productId, BigDecimal newPrice) throws SQLException {
-        String sql = "UPDATE product SET price = ? WHERE id = ?";
+        StatementMetrics.time("ProductDAO.updatePrice", () -> {
+            String sql = "UPDATE products SET price = ? WHERE id = ?";
 
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setBigDecimal(1, newPrice);
-            statement.setLong(2, productId);
-            statement.executeUpdate();
-        }
+            int affectedRows;
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setBigDecimal(1, newPrice);
+                statement.setLong(2, productId);
+                affectedRows = statement.executeUpdate();
+            }
+            afterWrite(productId, null);
+            return affectedRows;
+        });
     }
 
     public void updateQuantity(Long productId, Integer newQuantity) throws SQLException {
-        String sql = "UPDATE product SET quantity = ? WHERE id = ?";
+        StatementMetrics.time("ProductDAO.updateQuantity", () -> {
+            String sql = "UPDATE products SET quantity = ? WHERE id = ?";
 
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, newQuantity);
-            statement.setLong(2, productId);
-            statement.executeUpdate();
-        }
+            int affectedRows;
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, newQuantity);
+                statement.setLong(2, productId);
+                affectedRows = statement.executeUpdate();
+            }
+            afterWrite(productId, null);
+            return affectedRows;
+        });
     }
 
     public List<Product> findTopProductsByQuantity(int limit) throws SQLException {
-        String sql = "SELECT * FROM product ORDER BY quantity DESC LIMIT ?";
-        List<Product> products = new ArrayList<>();
+        return StatementMetrics.time("ProductDAO.findTopProductsByQuantity", () -> {
+            String sql = "SELECT * FROM products ORDER BY quantity DESC LIMIT ?";
+            List<Product> products = new ArrayList<>();
 
-        try (PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setInt(1, limit);
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setInt(1, limit);
 
-            try (ResultSet resultSet = statement.executeQuery()) {
-                while (resultSet.next()) {
-                    products.add(mapResultSetToProduct(resultSet));
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        products.add(mapResultSetToProduct(resultSet));
+                    }
                 }
             }
+            return products;
+        });
+    }
+
+    // После записи: полная строка в autocommit уже зафиксирована и кладется в кэш сразу,
+    // в остальных случаях запись удаляется и перечитывается при следующем обращении.
+    // Внутри транзакции запись сбрасывается еще раз после COMMIT: иначе параллельный findById
+    // мог бы до фиксации вернуть в кэш старую строку
+    private void afterWrite(Long productId, Product written) throws SQLException {
+        if (cache == null) {
+            return;
+        }
+        if (connection.getAutoCommit()) {
+            if (written != null) {
+                cache.put(written);
+            } else {
+                cache.invalidate(productId);
+            }
+            return;
         }
-        return products;
+        cache.invalidate(productId);
+        TransactionCallbacks.afterCommit(connection, () -> cache.invalidate(productId));
     }
 
     private Product mapResultSetToProduct(ResultSet resultSet) throws SQLException {
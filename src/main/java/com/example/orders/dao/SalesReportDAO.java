@@ -0,0 +1,227 @@
+package com.example.orders.dao;
+
+import com.example.orders.metrics.StatementMetrics;
+import com.example.orders.model.CustomerSpending;
+import com.example.orders.model.ProductSales;
+import com.example.orders.model.SalesSummary;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Отчеты по продажам читают только агрегаты sales_*_rollup, которые поддерживаются триггерами
+// на orders (V5). Сумма считается по текущей цене товара - так же, как в тестовых запросах 3 и 5.
+// statusIds ограничивает отчет заказами в указанных статусах, null - все заказы.
+public class SalesReportDAO {
+    private static final String STATUS_FILTER = "(?::bigint[] IS NULL OR r.status_id = ANY(?::bigint[]))";
+
+    private final Connection connection;
+
+    public SalesReportDAO(Connection connection) {
+        this.connection = connection;
+    }
+
+    public List<SalesSummary> findMonthlySales(YearMonth from, YearMonth to) throws SQLException {
+        return findMonthlySales(from, to, null);
+    }
+
+    // Месяцы from..to включительно
+    public List<SalesSummary> findMonthlySales(YearMonth from, YearMonth to, Collection<Long> statusIds) throws SQLException {
+        return StatementMetrics.time("SalesReportDAO.findMonthlySales", () -> {
+            String sql = """
+                SELECT r.sales_month AS period, SUM(r.order_count) AS order_count, SUM(r.units) AS units,
+                       SUM(r.units * p.price) AS total_amount
+                FROM sales_monthly_rollup r
+                JOIN products p ON p.id = r.product_id
+                WHERE r.sales_month BETWEEN ? AND ?
+                  AND %s
+                GROUP BY r.sales_month
+                HAVING SUM(r.order_count) > 0
+                ORDER BY r.sales_month
+                """.formatted(STATUS_FILTER);
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setDate(1, Date.valueOf(from.atDay(1)));
+                statement.setDate(2, Date.valueOf(to.atDay(1)));
+                bindStatuses(statement, 3, statusIds);
+                return readSummaries(statement);
+            }
+        });
+    }
+
+    public List<SalesSummary> findDailySales(LocalDate from, LocalDate to) throws SQLException {
+        return findDailySales(from, to, null);
+    }
+
+    // Дни from..to включительно
+    public List<SalesSummary> findDailySales(LocalDate from, LocalDate to, Collection<Long> statusIds) throws SQLException {
+        return StatementMetrics.time("SalesReportDAO.findDailySales", () -> {
+            String sql = """
+                SELECT r.sales_date AS period, SUM(r.order_count) AS order_count, SUM(r.units) AS units,
+                       SUM(r.units * p.price) AS total_amount
+                FROM sales_daily_rollup r
+                JOIN products p ON p.id = r.product_id
+                WHERE r.sales_date BETWEEN ? AND ?
+                  AND %s
+                GROUP BY r.sales_date
+                HAVING SUM(r.order_count) > 0
+                ORDER BY r.sales_date
+                """.formatted(STATUS_FILTER);
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setDate(1, Date.valueOf(from));
+                statement.setDate(2, Date.valueOf(to));
+                bindStatuses(statement, 3, statusIds);
+                return readSummaries(statement);
+            }
+        });
+    }
+
+    public List<CustomerSpending> findTopCustomers(int limit) throws SQLException {
+        return findTopCustomers(limit, null);
+    }
+
+    // Покупатели по убыванию общей суммы заказов (тестовый запрос 3)
+    public List<CustomerSpending> findTopCustomers(int limit, Collection<Long> statusIds) throws SQLException {
+        return StatementMetrics.time("SalesReportDAO.findTopCustomers", () -> {
+            String sql = """
+                SELECT c.id, c.first_name, c.last_name, SUM(r.order_count) AS order_count,
+                       SUM(r.units * p.price) AS total_spent
+                FROM sales_customer_rollup r
+                JOIN customer c ON c.id = r.customer_id
+                JOIN products p ON p.id = r.product_id
+                WHERE %s
+                GROUP BY c.id, c.first_name, c.last_name
+                HAVING SUM(r.order_count) > 0
+                ORDER BY total_spent DESC, c.id
+                LIMIT ?
+                """.formatted(STATUS_FILTER);
+            List<CustomerSpending> customers = new ArrayList<>();
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                bindStatuses(statement, 1, statusIds);
+                statement.setInt(3, limit);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        customers.add(new CustomerSpending(
+                                resultSet.getLong("id"),
+                                resultSet.getString("first_name"),
+                                resultSet.getString("last_name"),
+                                resultSet.getLong("order_count"),
+                                resultSet.getBigDecimal("total_spent")));
+                    }
+                }
+            }
+            return customers;
+        });
+    }
+
+    public List<ProductSales> findTopProducts(int limit) throws SQLException {
+        return findTopProducts(limit, null);
+    }
+
+    // Товары по убыванию числа заказов (тестовый запрос 2)
+    public List<ProductSales> findTopProducts(int limit, Collection<Long> statusIds) throws SQLException {
+        return StatementMetrics.time("SalesReportDAO.findTopProducts", () -> {
+            String sql = """
+                SELECT p.id, p.description, SUM(r.order_count) AS order_count, SUM(r.units) AS units
+                FROM sales_monthly_rollup r
+                JOIN products p ON p.id = r.product_id
+                WHERE %s
+                GROUP BY p.id, p.description
+                HAVING SUM(r.order_count) > 0
+                ORDER BY order_count DESC, p.id
+                LIMIT ?
+                """.formatted(STATUS_FILTER);
+            List<ProductSales> products = new ArrayList<>();
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                bindStatuses(statement, 1, statusIds);
+                statement.setInt(3, limit);
+
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        products.add(new ProductSales(
+                                resultSet.getLong("id"),
+                                resultSet.getString("description"),
+                                resultSet.getLong("order_count"),
+                                resultSet.getLong("units")));
+                    }
+                }
+            }
+            return products;
+        });
+    }
+
+    // Полный пересчет агрегатов из orders, например после TRUNCATE, который триггеры не видят.
+    // Заказы, уже ушедшие по сроку хранения (архив, отключенные секции), после пересчета из агрегатов пропадут.
+    // Запись в orders на время пересчета блокируется.
+    public void rebuildRollups() throws SQLException {
+        StatementMetrics.time("SalesReportDAO.rebuildRollups", () -> {
+            boolean ownTransaction = connection.getAutoCommit();
+            if (ownTransaction) {
+                connection.setAutoCommit(false);
+            }
+
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LOCK TABLE orders IN SHARE MODE");
+                statement.execute("TRUNCATE sales_daily_rollup, sales_monthly_rollup, sales_customer_rollup");
+                int rows = statement.executeUpdate("""
+                    INSERT INTO sales_daily_rollup (sales_date, product_id, status_id, order_count, units)
+                    SELECT order_date::date, product_id, status_id, COUNT(*), SUM(quantity)
+                    FROM orders
+                    GROUP BY 1, 2, 3
+                    """);
+                rows += statement.executeUpdate("""
+                    INSERT INTO sales_monthly_rollup (sales_month, product_id, status_id, order_count, units)
+                    SELECT date_trunc('month', order_date)::date, product_id, status_id, COUNT(*), SUM(quantity)
+                    FROM orders
+                    GROUP BY 1, 2, 3
+                    """);
+                rows += statement.executeUpdate("""
+                    INSERT INTO sales_customer_rollup (customer_id, product_id, status_id, order_count, units)
+                    SELECT customer_id, product_id, status_id, COUNT(*), SUM(quantity)
+                    FROM orders
+                    GROUP BY 1, 2, 3
+                    """);
+                if (ownTransaction) {
+                    connection.commit();
+                }
+                return rows;
+
+            } catch (SQLException | RuntimeException e) {
+                if (ownTransaction) {
+                    connection.rollback();
+                }
+                throw e;
+            } finally {
+                if (ownTransaction) {
+                    connection.setAutoCommit(true);
+                }
+            }
+        });
+    }
+
+    private void bindStatuses(PreparedStatement statement, int index, Collection<Long> statusIds) throws SQLException {
+        Array statuses = statusIds != null ? connection.createArrayOf("int8", statusIds.toArray()) : null;
+        statement.setArray(index, statuses);
+        statement.setArray(index + 1, statuses);
+    }
+
+    private List<SalesSummary> readSummaries(PreparedStatement statement) throws SQLException {
+        List<SalesSummary> summaries = new ArrayList<>();
+        try (ResultSet resultSet = statement.executeQuery()) {
+            while (resultSet.next()) {
+                summaries.add(new SalesSummary(
+                        resultSet.getDate("period").toLocalDate(),
+                        resultSet.getLong("order_count"),
+                        resultSet.getLong("units"),
+                        resultSet.getBigDecimal("total_amount")));
+            }
+        }
+        return summaries;
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.orders.export;
+
+import com.example.orders.bulk.CopyFormat;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Описание выгрузки: снимок, на момент которого прочитаны данные, столбцы каждой таблицы в порядке
+// файлов, значения последовательностей и все файлы с числом строк и контрольными суммами. Пишется последним, поэтому каталог без manifest.json - незавершенная выгрузка.
+public class ExportManifest {
+    public static final String FILE_NAME = "manifest.json";
+
+    private final String snapshotId;
+    private final OffsetDateTime snapshotTime;
+    private final CopyFormat format;
+    private final Map<String, List<String>> columns;
+    private final Map<String, Long> sequences;
+    private final List<ExportedFile> files;
+    private final long elapsedMs;
+
+    public ExportManifest(String snapshotId, OffsetDateTime snapshotTime, CopyFormat format,
+                          Map<String, List<String>> columns, Map<String, Long> sequences,
+                          List<ExportedFile> files, long elapsedMs) {
+        this.snapshotId = snapshotId;
+        this.snapshotTime = snapshotTime;
+        this.format = format;
+        this.columns = Collections.unmodifiableMap(new LinkedHashMap<>(columns));
+        // Значение null (последовательность не вызывалась) в Map.copyOf недопустимо
+        this.sequences = Collections.unmodifiableMap(new LinkedHashMap<>(sequences));
+        List<ExportedFile> sorted = new ArrayList<>(files);
+        sorted.sort(Comparator.comparing(ExportedFile::getTable).thenComparingLong(ExportedFile::getFromId));
+        this.files = List.copyOf(sorted);
+        this.elapsedMs = elapsedMs;
+    }
+
+    public String getSnapshotId() { return snapshotId; }
+    public OffsetDateTime getSnapshotTime() { return snapshotTime; }
+    public CopyFormat getFormat() { return format; }
+    public Map<String, List<String>> getColumns() { return columns; }
+    public Map<String, Long> getSequences() { return sequences; }
+    public List<ExportedFile> getFiles() { return files; }
+    public long getElapsedMs() { return elapsedMs; }
+
+    public Map<String, Long> getRowsByTable() {
+        Map<String, Long> rows = new LinkedHashMap<>();
+        for (ExportedFile file : files) {
+            rows.merge(file.getTable(), file.getRows(), Long::sum);
+        }
+        return rows;
+    }
+
+    public long getTotalRows() {
+        return files.stream().mapToLong(ExportedFile::getRows).sum();
+    }
+
+    public long getTotalBytes() {
+        return files.stream().mapToLong(ExportedFile::getBytes).sum();
+    }
+
+    // Запись через временный файл и переименование: манифест либо есть целиком, либо его нет
+    public void write(Path directory) throws IOException {
+        Path target = directory.resolve(FILE_NAME);
+        Path temp = directory.resolve(FILE_NAME + ".tmp");
+        byte[] content = toJson().getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Строки манифеста - имена таблиц, столбцов, последовательностей и файлов, id снимка: схема
+    // приложения не использует в именах кавычки и обратную косую черту, экранирование не нужно
+    String toJson() {
+        StringBuilder json = new StringBuilder();
+        json.append("{\n");
+        json.append("  \"snapshotId\": \"").append(snapshotId).append("\",\n");
+        json.append("  \"snapshotTime\": \"").append(snapshotTime).append("\",\n");
+        json.append("  \"format\": \"").append(format.name().toLowerCase(Locale.ROOT)).append("\",\n");
+        json.append("  \"compression\": \"gzip\",\n");
+        json.append("  \"elapsedMs\": ").append(elapsedMs).append(",\n");
+        json.append("  \"tables\": {");
+        String tableSeparator = "\n";
+        for (Map.Entry<String, Long> table : getRowsByTable().entrySet()) {
+            json.append(tableSeparator).append("    \"").append(table.getKey()).append("\": ").append(table.getValue());
+            tableSeparator = ",\n";
+        }
+        json.append("\n  },\n");
+        json.append("  \"columns\": {");
+        String columnSeparator = "\n";
+        for (Map.Entry<String, List<String>> table : columns.entrySet()) {
+            json.append(columnSeparator).append("    \"").append(table.getKey()).append("\": [")
+                    .append(table.getValue().stream().map(column -> "\"" + column + "\"").collect(Collectors.joining(", ")))
+                    .append("]");
+            columnSeparator = ",\n";
+        }
+        json.append("\n  },\n");
+        json.append("  \"sequences\": {");
+        String sequenceSeparator = "\n";
+        for (Map.Entry<String, Long> sequence : sequences.entrySet()) {
+            json.append(sequenceSeparator).append("    \"").append(sequence.getKey()).append("\": ").append(sequence.getValue());
+            sequenceSeparator = ",\n";
+        }
+        json.append("\n  },\n");
+        json.append("  \"files\": [");
+        String fileSeparator = "\n";
+        for (ExportedFile file : files) {
+            json.append(fileSeparator).append(String.format(
+                    "    {\"table\": \"%s\", \"file\": \"%s\", \"fromId\": %d, \"toId\": %d, \"rows\": %d, \"bytes\": %d, \"sha256\": \"%s\"}",
+                    file.getTable(), file.getFileName(), file.getFromId(), file.getToId(), file.getRows(),
+                    file.getBytes(), file.getSha256()));
+            fileSeparator = ",\n";
+        }
+        json.append("\n  ]\n");
+        json.append("}\n");
+        return json.toString();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ExportManifest{snapshot=%s, files=%d, rows=%s, bytes=%d, elapsed=%d ms}",
+                snapshotId, files.size(), getRowsByTable(), getTotalBytes(), elapsedMs);
+    }
+}
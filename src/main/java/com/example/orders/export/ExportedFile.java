@@ -0,0 +1,32 @@
+package com.example.orders.export;
+
+// Один файл выгрузки: строки таблицы с id в [fromId, toId)
+public class ExportedFile {
+    private final String table;
+    private final String fileName;
+    private final long fromId;
+    private final long toId;
+    private final long rows;
+    private final long bytes;
+    private final String sha256;
+
+    public ExportedFile(String table, String fileName, long fromId, long toId, long rows, long bytes, String sha256) {
+        this.table = table;
+        this.fileName = fileName;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.rows = rows;
+        this.bytes = bytes;
+        this.sha256 = sha256;
+    }
+
+    public String getTable() { return table; }
+    public String getFileName() { return fileName; }
+    public long getFromId() { return fromId; }
+    public long getToId() { return toId; }
+    public long getRows() { return rows; }
+    // Размер сжатого файла
+    public long getBytes() { return bytes; }
+    // Контрольная сумма сжатого файла
+    public String getSha256() { return sha256; }
+}
@@ -0,0 +1,320 @@
+package com.example.orders.export;
+
+import com.example.orders.async.AsyncExecutor;
+import com.example.orders.bulk.CopyFormat;
+import com.example.orders.pool.ConnectionSource;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+// Согласованная выгрузка базы в несколько потоков. Координатор открывает транзакцию REPEATABLE READ
+// и публикует ее снимок (pg_export_snapshot); каждый поток импортирует этот снимок в свою транзакцию
+// (SET TRANSACTION SNAPSHOT), поэтому все файлы соответствуют одному моменту времени, как у pg_dump -j.
+// Таблицы делятся на диапазоны id, потоки разбирают диапазоны из общей очереди и пишут каждый
+// через COPY TO STDOUT в отдельный сжатый файл. Транзакция координатора держится открытой, пока
+// не закончат все потоки: после ее завершения снимок импортировать уже нельзя.
+public class SnapshotExporter {
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+    // Маленькие таблицы не дробятся на файлы по несколько строк
+    private static final long MIN_RANGE_IDS = 10_000;
+    private static final DateTimeFormatter DIRECTORY_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    // Заказы первыми: самые длинные диапазоны начинаются раньше и не остаются хвостом в конце.
+    // Столбцы читаются из каталога в снимке выгрузки: новый столбец попадает в выгрузку без правки списка.
+    private static final List<String> TABLES = List.of("orders", "customer", "products", "order_status");
+
+    private final AsyncExecutor executor;
+    private final int parallelism;
+    private final long rangeIds;
+    private final CopyFormat format;
+
+    // rangeIds - ширина диапазона id одного файла; крупные таблицы делятся не меньше чем на parallelism частей
+    public SnapshotExporter(AsyncExecutor executor, int parallelism, long rangeIds, CopyFormat format) {
+        if (parallelism < 1 || rangeIds < 1) {
+            throw new IllegalArgumentException("Число потоков и ширина диапазона должны быть положительными");
+        }
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.rangeIds = rangeIds;
+        this.format = format;
+    }
+
+    // Выгружает таблицы в новый каталог export-<время> внутри baseDirectory; манифест пишется последним
+    public ExportManifest export(ConnectionSource source, Path baseDirectory) throws SQLException, IOException {
+        long start = System.nanoTime();
+        Path directory = baseDirectory.resolve("export-" + LocalDateTime.now().format(DIRECTORY_SUFFIX));
+        Files.createDirectories(directory);
+
+        String snapshotId;
+        OffsetDateTime snapshotTime;
+        List<ExportTable> tables;
+        Map<String, Long> sequences;
+        List<ExportedFile> files;
+
+        try (Connection connection = source.getConnection()) {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ, READ ONLY");
+                    try (ResultSet resultSet = statement.executeQuery("SELECT pg_export_snapshot(), now()")) {
+                        resultSet.next();
+                        snapshotId = resultSet.getString(1);
+                        snapshotTime = resultSet.getObject(2, OffsetDateTime.class);
+                    }
+                }
+
+                // Столбцы и границы считаются в том же снимке, что и выгрузка
+                tables = loadTables(connection);
+                sequences = loadSequences(connection);
+                Queue<IdRange> ranges = new ConcurrentLinkedQueue<>(planRanges(connection, tables));
+                files = exportRanges(snapshotId, ranges, directory);
+                connection.commit();
+
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+        }
+
+        Map<String, List<String>> columns = new LinkedHashMap<>();
+        for (ExportTable table : tables) {
+            columns.put(table.name, table.columns);
+        }
+        ExportManifest manifest = new ExportManifest(snapshotId, snapshotTime, format, columns, sequences, files,
+                (System.nanoTime() - start) / 1_000_000);
+        manifest.write(directory);
+        return manifest;
+    }
+
+    private static List<ExportTable> loadTables(Connection connection) throws SQLException {
+        List<ExportTable> tables = new ArrayList<>();
+        try (PreparedStatement statement = connection.prepareStatement("""
+                SELECT attname
+                FROM pg_attribute
+                WHERE attrelid = ?::regclass AND attnum > 0 AND NOT attisdropped
+                ORDER BY attnum
+                """)) {
+            for (String table : TABLES) {
+                List<String> columns = new ArrayList<>();
+                statement.setString(1, table);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    while (resultSet.next()) {
+                        columns.add(resultSet.getString(1));
+                    }
+                }
+                tables.add(new ExportTable(table, columns));
+            }
+        }
+        return tables;
+    }
+
+    // Последовательности не подчиняются снимку: last_value читается текущим, то есть не меньше
+    // значения на момент снимка, и восстановленная база не выдаст уже занятые id.
+    // null - последовательность еще ни разу не вызывалась
+    private static Map<String, Long> loadSequences(Connection connection) throws SQLException {
+        Map<String, Long> sequences = new LinkedHashMap<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("""
+                     SELECT sequencename, last_value
+                     FROM pg_sequences
+                     WHERE schemaname = current_schema()
+                     ORDER BY sequencename
+                     """)) {
+            while (resultSet.next()) {
+                sequences.put(resultSet.getString(1), (Long) resultSet.getObject(2));
+            }
+        }
+        return sequences;
+    }
+
+    private List<IdRange> planRanges(Connection connection, List<ExportTable> tables) throws SQLException {
+        List<IdRange> ranges = new ArrayList<>();
+        try (Statement statement = connection.createStatement()) {
+            for (ExportTable table : tables) {
+                try (ResultSet resultSet = statement.executeQuery("SELECT min(id), max(id) FROM " + table.name)) {
+                    resultSet.next();
+                    long min = resultSet.getLong(1);
+                    if (resultSet.wasNull()) {
+                        // Пустая таблица тоже попадает в манифест - файлом без строк
+                        ranges.add(new IdRange(table, 0, 0, 0));
+                        continue;
+                    }
+                    long max = resultSet.getLong(2);
+                    long span = max - min + 1;
+                    long width = Math.min(rangeIds, Math.max(MIN_RANGE_IDS, (span + parallelism - 1) / parallelism));
+                    int part = 0;
+                    for (long from = min; from <= max; from += width) {
+                        ranges.add(new IdRange(table, part++, from, Math.min(from + width, max + 1)));
+                    }
+                }
+            }
+        }
+        return ranges;
+    }
+
+    private List<ExportedFile> exportRanges(String snapshotId, Queue<IdRange> ranges, Path directory) throws SQLException {
+        AtomicBoolean failed = new AtomicBoolean();
+        int workers = Math.min(parallelism, ranges.size());
+        List<CompletableFuture<List<ExportedFile>>> futures = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            futures.add(executor.submit(connection -> {
+                try {
+                    return exportWorker(connection, snapshotId, ranges, directory, failed);
+                } catch (SQLException | RuntimeException e) {
+                    // Остальные потоки дописывают текущий файл и не берут новые диапазоны
+                    failed.set(true);
+                    throw e;
+                }
+            }));
+        }
+
+        List<ExportedFile> files = new ArrayList<>();
+        SQLException failure = null;
+        for (CompletableFuture<List<ExportedFile>> future : futures) {
+            try {
+                files.addAll(future.join());
+            } catch (CompletionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof SQLException sqlException
+                            ? sqlException
+                            : new SQLException("Ошибка выгрузки: " + e.getCause(), e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return files;
+    }
+
+    // Один поток - одна транзакция с импортированным снимком на все взятые им диапазоны
+    private List<ExportedFile> exportWorker(Connection connection, String snapshotId, Queue<IdRange> ranges,
+                                            Path directory, AtomicBoolean failed) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET TRANSACTION ISOLATION LEVEL REPEATABLE READ, READ ONLY");
+                statement.execute("SET TRANSACTION SNAPSHOT '" + snapshotId + "'");
+            }
+
+            CopyManager copyManager = new CopyManager(connection.unwrap(BaseConnection.class));
+            List<ExportedFile> files = new ArrayList<>();
+            IdRange range;
+            while (!failed.get() && (range = ranges.poll()) != null) {
+                try {
+                    files.add(exportRange(copyManager, range, directory));
+                } catch (IOException e) {
+                    throw new SQLException("Ошибка записи файла выгрузки " + range.fileName(format) + ": " + e.getMessage(), e);
+                }
+            }
+            connection.commit();
+            return files;
+
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Поток COPY сжимается и пишется в FileChannel; контрольная сумма считается по сжатым байтам
+    // на лету, файл сбрасывается на диск до того, как попадет в манифест
+    private ExportedFile exportRange(CopyManager copyManager, IdRange range, Path directory) throws SQLException, IOException {
+        String fileName = range.fileName(format);
+        String sql = "COPY (SELECT " + range.table.columnList() + " FROM " + range.table.name
+                + " WHERE id >= " + range.fromId + " AND id < " + range.toId + " ORDER BY id) TO STDOUT WITH "
+                + format.getOptions();
+        MessageDigest digest = sha256();
+
+        try (FileChannel channel = FileChannel.open(directory.resolve(fileName),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+             GZIPOutputStream out = new GZIPOutputStream(
+                     new DigestOutputStream(Channels.newOutputStream(channel), digest), GZIP_BUFFER_SIZE)) {
+            long rows = copyManager.copyOut(sql, out);
+            out.finish();
+            channel.force(true);
+            return new ExportedFile(range.table.name, fileName, range.fromId, range.toId, rows, channel.size(),
+                    HexFormat.of().formatHex(digest.digest()));
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public int getParallelism() { return parallelism; }
+    public long getRangeIds() { return rangeIds; }
+    public CopyFormat getFormat() { return format; }
+
+    private static class ExportTable {
+        final String name;
+        final List<String> columns;
+
+        ExportTable(String name, List<String> columns) {
+            this.name = name;
+            this.columns = List.copyOf(columns);
+        }
+
+        String columnList() {
+            return columns.stream().map(column -> "\"" + column.replace("\"", "\"\"") + "\"")
+                    .collect(Collectors.joining(", "));
+        }
+    }
+
+    // Диапазон id [fromId, toId) одной таблицы - один файл выгрузки
+    private static class IdRange {
+        final ExportTable table;
+        final int part;
+        final long fromId;
+        final long toId;
+
+        IdRange(ExportTable table, int part, long fromId, long toId) {
+            this.table = table;
+            this.part = part;
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        String fileName(CopyFormat format) {
+            return String.format("%s-%05d%s", table.name, part, format == CopyFormat.CSV ? ".csv.gz" : ".copy.gz");
+        }
+    }
+}
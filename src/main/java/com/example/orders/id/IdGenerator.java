@@ -0,0 +1,34 @@
+package com.example.orders.id;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+public class IdGenerator {
+    public static final int DEFAULT_BLOCK_SIZE = 50;
+
+    private final SequenceIdAllocator products;
+    private final SequenceIdAllocator customers;
+    private final SequenceIdAllocator orders;
+
+    public IdGenerator() {
+        this(DEFAULT_BLOCK_SIZE);
+    }
+
+    public IdGenerator(int blockSize) {
+        this.products = new SequenceIdAllocator("products", blockSize);
+        this.customers = new SequenceIdAllocator("customer", blockSize);
+        this.orders = new SequenceIdAllocator("orders", blockSize);
+    }
+
+    public long nextProductId(Connection connection) throws SQLException {
+        return products.nextId(connection);
+    }
+
+    public long nextCustomerId(Connection connection) throws SQLException {
+        return customers.nextId(connection);
+    }
+
+    public long nextOrderId(Connection connection) throws SQLException {
+        return orders.nextId(connection);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.orders.id;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Резервирует блок значений SERIAL-последовательности одним запросом и раздает их из памяти без блокировок.
+// Значения берутся через nextval, поэтому несколько процессов и обычные INSERT с DEFAULT не пересекаются.
+public class SequenceIdAllocator {
+    private final String table;
+    private final int blockSize;
+    // Не synchronized: запрос под монитором закрепил бы виртуальный поток за платформенным
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private volatile IdBlock current = new IdBlock(new long[0]);
+
+    public SequenceIdAllocator(String table, int blockSize) {
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Размер блока должен быть положительным: " + blockSize);
+        }
+        this.table = table;
+        this.blockSize = blockSize;
+    }
+
+    // Соединение нужно только для пополнения блока; nextval не откатывается вместе с транзакцией
+    public long nextId(Connection connection) throws SQLException {
+        while (true) {
+            IdBlock block = current;
+            long id = block.next();
+            if (id > 0) {
+                return id;
+            }
+            refill(connection, block);
+        }
+    }
+
+    private void refill(Connection connection, IdBlock exhausted) throws SQLException {
+        refillLock.lock();
+        try {
+            // Пока ждали блокировку, блок мог пополнить другой поток
+            if (current != exhausted) {
+                return;
+            }
+            current = new IdBlock(fetchBlock(connection));
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    private long[] fetchBlock(Connection connection) throws SQLException {
+        String sql = "SELECT nextval(pg_get_serial_sequence(?, 'id')) FROM generate_series(1, ?)";
+        long[] ids = new long[blockSize];
+        int count = 0;
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, table);
+            statement.setInt(2, blockSize);
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    ids[count++] = resultSet.getLong(1);
+                }
+            }
+        }
+
+        if (count != blockSize) {
+            throw new SQLException("Не удалось зарезервировать блок идентификаторов для таблицы " + table);
+        }
+        return ids;
+    }
+
+    public String getTable() { return table; }
+    public int getBlockSize() { return blockSize; }
+
+    private static class IdBlock {
+        private final long[] ids;
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        IdBlock(long[] ids) {
+            this.ids = ids;
+        }
+
+        // 0, если блок исчерпан: значения последовательностей всегда положительные
+        long next() {
+            int index = cursor.getAndIncrement();
+            return index < ids.length ? ids[index] : 0;
+        }
+    }
+}
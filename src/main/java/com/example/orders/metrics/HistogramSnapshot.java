@@ -0,0 +1,52 @@
+package com.example.orders.metrics;
+
+public class HistogramSnapshot {
+    private final long[] counts;
+    private final long count;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    HistogramSnapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+        this.counts = counts;
+        this.count = count;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+    }
+
+    public long getCount() { return count; }
+    public long getMaxNanos() { return maxNanos; }
+
+    public long getMeanNanos() {
+        return count > 0 ? totalNanos / count : 0;
+    }
+
+    // Значение, не меньше которого q-я доля измерений (q от 0 до 1)
+    public long getValueAtQuantile(double q) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.bucketUpperBound(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    public long getP50Nanos() { return getValueAtQuantile(0.50); }
+    public long getP99Nanos() { return getValueAtQuantile(0.99); }
+    public long getP999Nanos() { return getValueAtQuantile(0.999); }
+
+    // Разница с более ранним снимком той же гистограммы: распределение за интервал между ними.
+    // Максимум за интервал неизвестен, поэтому берется накопленный.
+    public HistogramSnapshot minus(HistogramSnapshot earlier) {
+        long[] delta = new long[counts.length];
+        for (int i = 0; i < counts.length; i++) {
+            delta[i] = counts[i] - earlier.counts[i];
+        }
+        return new HistogramSnapshot(delta, count - earlier.count, totalNanos - earlier.totalNanos, maxNanos);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.orders.metrics;
+
+public class OperationSnapshot {
+    private final String name;
+    private final long calls;
+    private final long rows;
+    private final long errors;
+    private final HistogramSnapshot latency;
+
+    public OperationSnapshot(String name, long calls, long rows, long errors, HistogramSnapshot latency) {
+        this.name = name;
+        this.calls = calls;
+        this.rows = rows;
+        this.errors = errors;
+        this.latency = latency;
+    }
+
+    public String getName() { return name; }
+    public long getCalls() { return calls; }
+    public long getRows() { return rows; }
+    public long getErrors() { return errors; }
+    public HistogramSnapshot getLatency() { return latency; }
+
+    public OperationSnapshot minus(OperationSnapshot earlier) {
+        return new OperationSnapshot(name, calls - earlier.calls, rows - earlier.rows,
+                errors - earlier.errors, latency.minus(earlier.latency));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-40s calls=%-8d rows=%-10d errors=%-5d p50=%.3f ms  p99=%.3f ms  p999=%.3f ms  max=%.3f ms",
+                name, calls, rows, errors,
+                latency.getP50Nanos() / 1e6, latency.getP99Nanos() / 1e6,
+                latency.getP999Nanos() / 1e6, latency.getMaxNanos() / 1e6);
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.orders.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+public class OperationStats {
+    private final String name;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    OperationStats(String name) {
+        this.name = name;
+    }
+
+    public void record(long nanos, long rowCount) {
+        latency.record(nanos);
+        calls.increment();
+        rows.add(rowCount);
+    }
+
+    public void recordError(long nanos) {
+        latency.record(nanos);
+        calls.increment();
+        errors.increment();
+    }
+
+    public OperationSnapshot snapshot() {
+        return new OperationSnapshot(name, calls.sum(), rows.sum(), errors.sum(), latency.snapshot());
+    }
+
+    public String getName() { return name; }
+}
@@ -0,0 +1,115 @@
+package com.example.orders.metrics;
+
+import java.io.PrintStream;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+// Общий для процесса реестр метрик именованных операций с базой ("OrderDAO.create", "QueryExecutor.query5").
+public final class StatementMetrics {
+    private static final Map<String, OperationStats> OPERATIONS = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService dumper;
+
+    public interface SqlCall<T> {
+        T call() throws SQLException;
+    }
+
+    private StatementMetrics() {}
+
+    public static OperationStats operation(String name) {
+        OperationStats stats = OPERATIONS.get(name);
+        return stats != null ? stats : OPERATIONS.computeIfAbsent(name, OperationStats::new);
+    }
+
+    // Число строк определяется по результату: размер коллекции, число, 1 для найденного объекта
+    public static <T> T time(String name, SqlCall<T> call) throws SQLException {
+        return time(name, call, StatementMetrics::rowsOf);
+    }
+
+    public static <T> T time(String name, SqlCall<T> call, ToLongFunction<? super T> rowCounter) throws SQLException {
+        OperationStats stats = operation(name);
+        long start = System.nanoTime();
+        try {
+            T result = call.call();
+            stats.record(System.nanoTime() - start, rowCounter.applyAsLong(result));
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            stats.recordError(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    public static List<OperationSnapshot> snapshot() {
+        List<OperationSnapshot> snapshots = new ArrayList<>();
+        for (OperationStats stats : OPERATIONS.values()) {
+            snapshots.add(stats.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(OperationSnapshot::getName));
+        return snapshots;
+    }
+
+    public static void print(PrintStream out, Collection<OperationSnapshot> snapshots) {
+        out.println("📈 Метрики операций с базой:");
+        for (OperationSnapshot snapshot : snapshots) {
+            if (snapshot.getCalls() > 0) {
+                out.println("   " + snapshot);
+            }
+        }
+    }
+
+    // Периодический вывод метрик за прошедший интервал (а не накопленных с запуска).
+    // false, если вывод уже запущен: останавливать его должен тот, кто запустил
+    public static synchronized boolean startPeriodicDump(long intervalMs, PrintStream out) {
+        if (dumper != null) {
+            return false;
+        }
+        dumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "statement-metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Map<String, OperationSnapshot> previous = new HashMap<>();
+        dumper.scheduleAtFixedRate(() -> {
+            List<OperationSnapshot> interval = new ArrayList<>();
+            for (OperationSnapshot current : snapshot()) {
+                OperationSnapshot earlier = previous.put(current.getName(), current);
+                interval.add(earlier != null ? current.minus(earlier) : current);
+            }
+            print(out, interval);
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    public static synchronized void stopPeriodicDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    private static long rowsOf(Object result) {
+        if (result == null) {
+            return 0;
+        }
+        if (result instanceof Collection) {
+            return ((Collection<?>) result).size();
+        }
+        if (result instanceof Number) {
+            return ((Number) result).longValue();
+        }
+        if (result instanceof Boolean) {
+            return (Boolean) result ? 1 : 0;
+        }
+        return 1;
+    }
+}
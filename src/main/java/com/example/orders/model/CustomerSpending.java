@@ -0,0 +1,39 @@
+package com.example.orders.model;
+
+import java.math.BigDecimal;
+
+public class CustomerSpending {
+    private Long customerId;
+    private String firstName;
+    private String lastName;
+    private Long orderCount;
+    private BigDecimal totalSpent;
+
+    public CustomerSpending() {}
+
+    public CustomerSpending(Long customerId, String firstName, String lastName, Long orderCount, BigDecimal totalSpent) {
+        this.customerId = customerId;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.orderCount = orderCount;
+        this.totalSpent = totalSpent;
+    }
+
+    // Геттеры и сеттеры
+    public Long getCustomerId() { return customerId; }
+    public void setCustomerId(Long customerId) { this.customerId = customerId; }
+    public String getFirstName() { return firstName; }
+    public void setFirstName(String firstName) { this.firstName = firstName; }
+    public String getLastName() { return lastName; }
+    public void setLastName(String lastName) { this.lastName = lastName; }
+    public Long getOrderCount() { return orderCount; }
+    public void setOrderCount(Long orderCount) { this.orderCount = orderCount; }
+    public BigDecimal getTotalSpent() { return totalSpent; }
+    public void setTotalSpent(BigDecimal totalSpent) { this.totalSpent = totalSpent; }
+
+    @Override
+    public String toString() {
+        return String.format("CustomerSpending{customerId=%d, name='%s %s', orderCount=%d, totalSpent=%s}",
+                customerId, firstName, lastName, orderCount, totalSpent);
+    }
+}
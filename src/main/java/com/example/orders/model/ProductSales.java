@@ -0,0 +1,33 @@
+package com.example.orders.model;
+
+public class ProductSales {
+    private Long productId;
+    private String description;
+    private Long orderCount;
+    private Long units;
+
+    public ProductSales() {}
+
+    public ProductSales(Long productId, String description, Long orderCount, Long units) {
+        this.productId = productId;
+        this.description = description;
+        this.orderCount = orderCount;
+        this.units = units;
+    }
+
+    // Геттеры и сеттеры
+    public Long getProductId() { return productId; }
+    public void setProductId(Long productId) { this.productId = productId; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public Long getOrderCount() { return orderCount; }
+    public void setOrderCount(Long orderCount) { this.orderCount = orderCount; }
+    public Long getUnits() { return units; }
+    public void setUnits(Long units) { this.units = units; }
+
+    @Override
+    public String toString() {
+        return String.format("ProductSales{productId=%d, description='%s', orderCount=%d, units=%d}",
+                productId, description, orderCount, units);
+    }
+}
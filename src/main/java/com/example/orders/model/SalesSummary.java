@@ -0,0 +1,37 @@
+package com.example.orders.model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+// Итоги продаж за день или месяц (period - первый день месяца)
+public class SalesSummary {
+    private LocalDate period;
+    private Long orderCount;
+    private Long units;
+    private BigDecimal totalAmount;
+
+    public SalesSummary() {}
+
+    public SalesSummary(LocalDate period, Long orderCount, Long units, BigDecimal totalAmount) {
+        this.period = period;
+        this.orderCount = orderCount;
+        this.units = units;
+        this.totalAmount = totalAmount;
+    }
+
+    // Геттеры и сеттеры
+    public LocalDate getPeriod() { return period; }
+    public void setPeriod(LocalDate period) { this.period = period; }
+    public Long getOrderCount() { return orderCount; }
+    public void setOrderCount(Long orderCount) { this.orderCount = orderCount; }
+    public Long getUnits() { return units; }
+    public void setUnits(Long units) { this.units = units; }
+    public BigDecimal getTotalAmount() { return totalAmount; }
+    public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
+
+    @Override
+    public String toString() {
+        return String.format("SalesSummary{period=%s, orderCount=%d, units=%d, totalAmount=%s}",
+                period, orderCount, units, totalAmount);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.orders.notify;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Set;
+
+// Изменения одной таблицы, накопленные за окно объединения уведомлений.
+// allRows = true - затронуто слишком много строк или уведомления могли потеряться: сбросить все по таблице.
+public class ChangeEvent {
+    public enum Operation { INSERT, UPDATE, DELETE, TRUNCATE }
+
+    private final String table;
+    private final Set<Operation> operations;
+    private final Set<Long> ids;
+    private final boolean allRows;
+
+    public ChangeEvent(String table, Set<Operation> operations, Set<Long> ids, boolean allRows) {
+        this.table = table;
+        this.operations = Collections.unmodifiableSet(EnumSet.copyOf(operations));
+        this.ids = allRows ? Set.of() : Set.copyOf(ids);
+        this.allRows = allRows;
+    }
+
+    public static ChangeEvent allRows(String table) {
+        return new ChangeEvent(table, EnumSet.allOf(Operation.class), Set.of(), true);
+    }
+
+    // Разбор полезной нагрузки триггера notify_table_change(): "таблица|операция|id,id,..." или "...|*"
+    static ChangeEvent parse(String payload) {
+        String[] parts = payload.split("\\|", 3);
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Неизвестный формат уведомления: " + payload);
+        }
+        Operation operation = Operation.valueOf(parts[1]);
+        if ("*".equals(parts[2])) {
+            return new ChangeEvent(parts[0], EnumSet.of(operation), Set.of(), true);
+        }
+        Set<Long> ids = new HashSet<>();
+        for (String id : parts[2].split(",")) {
+            ids.add(Long.parseLong(id));
+        }
+        return new ChangeEvent(parts[0], EnumSet.of(operation), ids, false);
+    }
+
+    ChangeEvent merge(ChangeEvent other) {
+        Set<Operation> mergedOperations = EnumSet.copyOf(operations);
+        mergedOperations.addAll(other.operations);
+        if (allRows || other.allRows) {
+            return new ChangeEvent(table, mergedOperations, Set.of(), true);
+        }
+        Set<Long> mergedIds = new HashSet<>(ids);
+        mergedIds.addAll(other.ids);
+        return new ChangeEvent(table, mergedOperations, mergedIds, false);
+    }
+
+    public String getTable() { return table; }
+    public Set<Operation> getOperations() { return operations; }
+    public Set<Long> getIds() { return ids; }
+    public boolean isAllRows() { return allRows; }
+
+    @Override
+    public String toString() {
+        return table + " " + operations + (allRows ? " (все строки)" : " " + ids);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.orders.notify;
+
+// Подписчик на изменения таблицы; вызывается в потоке ChangeNotifier, поэтому не должен блокироваться надолго
+@FunctionalInterface
+public interface ChangeListener {
+    void onChange(ChangeEvent event);
+}
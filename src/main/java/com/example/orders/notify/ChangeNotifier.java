@@ -0,0 +1,173 @@
+package com.example.orders.notify;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+// Слушает канал table_changes (V9) на отдельном соединении вне пула: LISTEN привязан к сессии,
+// а соединения пула переходят между потоками. Уведомления, пришедшие в течение coalesceMs после
+// первого, объединяются по таблицам и раздаются подписчикам одним событием на таблицу.
+// После переподключения подписчики получают событие "все строки": пока соединения не было,
+// уведомления могли потеряться.
+public class ChangeNotifier implements AutoCloseable {
+    public static final String CHANNEL = "table_changes";
+
+    private static final int POLL_TIMEOUT_MS = 1_000;
+    private static final long RECONNECT_DELAY_MS = 2_000;
+
+    private final String url;
+    private final String username;
+    private final String password;
+    private final long coalesceMs;
+    private final Map<String, List<ChangeListener>> listeners = new ConcurrentHashMap<>();
+    private final LongAdder notifications = new LongAdder();
+    private final LongAdder dispatched = new LongAdder();
+    private final Thread thread;
+    private volatile boolean running = true;
+    private Connection connection;
+
+    public ChangeNotifier(String url, String username, String password, long coalesceMs) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.coalesceMs = coalesceMs;
+        this.thread = new Thread(this::listen, "db-change-listener");
+        this.thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public void subscribe(String table, ChangeListener listener) {
+        listeners.computeIfAbsent(table, key -> new CopyOnWriteArrayList<>()).add(listener);
+    }
+
+    public void unsubscribe(String table, ChangeListener listener) {
+        List<ChangeListener> tableListeners = listeners.get(table);
+        if (tableListeners != null) {
+            tableListeners.remove(listener);
+        }
+    }
+
+    private void listen() {
+        boolean reconnected = false;
+        while (running) {
+            try {
+                if (connection == null) {
+                    connect();
+                    if (reconnected) {
+                        listeners.keySet().forEach(table -> dispatch(ChangeEvent.allRows(table)));
+                    }
+                    reconnected = true;
+                }
+
+                PGNotification[] received = pgConnection().getNotifications(POLL_TIMEOUT_MS);
+                if (received == null || received.length == 0) {
+                    continue;
+                }
+
+                // Окно объединения: пачка изменений из нескольких транзакций - одно событие на таблицу
+                Map<String, ChangeEvent> pending = new LinkedHashMap<>();
+                collect(received, pending);
+                long deadline = System.currentTimeMillis() + coalesceMs;
+                long remaining;
+                while (running && (remaining = deadline - System.currentTimeMillis()) > 0) {
+                    collect(pgConnection().getNotifications((int) remaining), pending);
+                }
+                pending.values().forEach(this::dispatch);
+
+            } catch (SQLException e) {
+                if (!running) {
+                    break;
+                }
+                System.err.println("⚠️  Потеряно соединение канала уведомлений: " + e.getMessage());
+                closeConnection();
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MS);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        closeConnection();
+    }
+
+    private void connect() throws SQLException {
+        connection = DriverManager.getConnection(url, username, password);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + CHANNEL);
+        }
+    }
+
+    private PGConnection pgConnection() throws SQLException {
+        return connection.unwrap(PGConnection.class);
+    }
+
+    private void collect(PGNotification[] received, Map<String, ChangeEvent> pending) {
+        if (received == null) {
+            return;
+        }
+        for (PGNotification notification : received) {
+            notifications.increment();
+            try {
+                ChangeEvent event = ChangeEvent.parse(notification.getParameter());
+                pending.merge(event.getTable(), event, ChangeEvent::merge);
+            } catch (IllegalArgumentException e) {
+                System.err.println("⚠️  Пропущено уведомление: " + e.getMessage());
+            }
+        }
+    }
+
+    private void dispatch(ChangeEvent event) {
+        List<ChangeListener> tableListeners = listeners.get(event.getTable());
+        if (tableListeners == null) {
+            return;
+        }
+        for (ChangeListener listener : tableListeners) {
+            try {
+                listener.onChange(event);
+                dispatched.increment();
+            } catch (RuntimeException e) {
+                System.err.println("⚠️  Ошибка подписчика на изменения " + event.getTable() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void closeConnection() {
+        if (connection == null) {
+            return;
+        }
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            // Соединение уже разорвано
+        }
+        connection = null;
+    }
+
+    public long getNotificationCount() { return notifications.sum(); }
+    public long getDispatchedCount() { return dispatched.sum(); }
+
+    @Override
+    public void close() {
+        running = false;
+        thread.interrupt();
+        try {
+            thread.join(POLL_TIMEOUT_MS + coalesceMs + 1_000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
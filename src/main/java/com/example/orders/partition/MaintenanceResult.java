@@ -0,0 +1,25 @@
+package com.example.orders.partition;
+
+import java.util.List;
+
+public class MaintenanceResult {
+    private final List<String> created;
+    private final List<String> retired;
+
+    public MaintenanceResult(List<String> created, List<String> retired) {
+        this.created = List.copyOf(created);
+        this.retired = List.copyOf(retired);
+    }
+
+    public boolean hasChanges() {
+        return !created.isEmpty() || !retired.isEmpty();
+    }
+
+    public List<String> getCreated() { return created; }
+    public List<String> getRetired() { return retired; }
+
+    @Override
+    public String toString() {
+        return "создано " + created + ", выведено " + retired;
+    }
+}
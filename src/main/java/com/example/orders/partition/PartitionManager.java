@@ -0,0 +1,250 @@
+package com.example.orders.partition;
+
+import com.example.orders.pool.ConnectionSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Обслуживание месячных секций orders (V6): заранее создает секции на monthsAhead месяцев вперед
+// и выводит из таблицы секции старше retentionMonths. Отключенная секция переименовывается
+// в orders_archive_YYYY_MM или удаляется целиком - без построчного DELETE и без раздувания таблицы.
+// Агрегаты продаж при этом не меняются: они остаются сводкой по всей истории.
+public class PartitionManager implements AutoCloseable {
+    public enum RetentionAction { DETACH, DROP }
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final String PARTITION_PREFIX = "orders_p";
+    private static final String DEFAULT_PARTITION = "orders_default";
+    // Строк order_listing и order_locator за одну транзакцию очистки выведенного месяца
+    private static final int PURGE_CHUNK_ROWS = 5_000;
+    // Ключ advisory-блокировки: обслуживание из нескольких процессов не выполняется одновременно
+    private static final long MAINTENANCE_LOCK_KEY = 0x6f726465727370L;
+
+    private final int monthsAhead;
+    private final int retentionMonths;
+    private final RetentionAction retentionAction;
+    private ScheduledExecutorService maintainer;
+
+    // retentionMonths = 0 - хранить все секции
+    public PartitionManager(int monthsAhead, int retentionMonths, RetentionAction retentionAction) {
+        if (monthsAhead < 0 || retentionMonths < 0) {
+            throw new IllegalArgumentException("Число месяцев не может быть отрицательным");
+        }
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+        this.retentionAction = retentionAction;
+    }
+
+    public MaintenanceResult maintain(Connection connection) throws SQLException {
+        return maintain(connection, YearMonth.now());
+    }
+
+    public MaintenanceResult maintain(Connection connection, YearMonth currentMonth) throws SQLException {
+        MaintenanceResult result;
+        List<YearMonth> retiredMonths = new ArrayList<>();
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            if (!tryLock(connection)) {
+                connection.rollback();
+                return new MaintenanceResult(List.of(), List.of());
+            }
+
+            List<String> created = new ArrayList<>();
+            for (int i = 0; i <= monthsAhead; i++) {
+                YearMonth month = currentMonth.plusMonths(i);
+                if (!partitionExists(connection, partitionName(month))) {
+                    createPartition(connection, month);
+                    created.add(partitionName(month));
+                }
+            }
+
+            List<String> retired = new ArrayList<>();
+            if (retentionMonths > 0) {
+                YearMonth oldestKept = currentMonth.minusMonths(retentionMonths);
+                for (String partition : listPartitions(connection)) {
+                    YearMonth month = monthOf(partition);
+                    if (month != null && month.isBefore(oldestKept)) {
+                        retirePartition(connection, partition, month);
+                        retired.add(partition);
+                        retiredMonths.add(month);
+                    }
+                }
+            }
+
+            connection.commit();
+            result = new MaintenanceResult(created, retired);
+
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+
+        for (YearMonth month : retiredMonths) {
+            purgeRetiredRows(connection, month);
+        }
+        return result;
+    }
+
+    // Секции orders, отсортированные по имени (то есть по месяцу)
+    public List<String> listPartitions(Connection connection) throws SQLException {
+        String sql = """
+                SELECT c.relname
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'orders'::regclass
+                ORDER BY c.relname
+                """;
+        List<String> partitions = new ArrayList<>();
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                partitions.add(resultSet.getString(1));
+            }
+        }
+        return partitions;
+    }
+
+    public static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(SUFFIX);
+    }
+
+    private static YearMonth monthOf(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), SUFFIX);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private boolean tryLock(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT pg_try_advisory_xact_lock(?)")) {
+            statement.setLong(1, MAINTENANCE_LOCK_KEY);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private boolean partitionExists(Connection connection, String name) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("SELECT to_regclass(?) IS NOT NULL")) {
+            statement.setString(1, name);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                return resultSet.next() && resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    // Заказы нового месяца могли уже попасть в orders_default, а PARTITION OF в этом случае
+    // завершится ошибкой. Поэтому секция создается отдельной таблицей, строки переносятся
+    // из orders_default и только потом таблица подключается к orders.
+    // Операторы идут в секцию напрямую, поэтому триггеры агрегатов на orders не срабатывают.
+    private void createPartition(Connection connection, YearMonth month) throws SQLException {
+        String name = partitionName(month);
+        String from = month.atDay(1).toString();
+        String to = month.plusMonths(1).atDay(1).toString();
+
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE " + name + " (LIKE orders INCLUDING DEFAULTS INCLUDING CONSTRAINTS)");
+            statement.executeUpdate("""
+                    WITH moved AS (
+                        DELETE FROM %s
+                        WHERE order_date >= DATE '%s' AND order_date < DATE '%s'
+                        RETURNING *
+                    )
+                    INSERT INTO %s SELECT * FROM moved
+                    """.formatted(DEFAULT_PARTITION, from, to, name));
+            statement.execute("ALTER TABLE orders ATTACH PARTITION " + name
+                    + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+        }
+    }
+
+    // DETACH не вызывает триггеры удаления; строки месяца в order_listing и order_locator
+    // удаляет purgeRetiredRows уже после фиксации, когда блокировка orders снята
+    private void retirePartition(Connection connection, String partition, YearMonth month) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("ALTER TABLE orders DETACH PARTITION " + partition);
+            if (retentionAction == RetentionAction.DROP) {
+                statement.execute("DROP TABLE " + partition);
+            } else {
+                statement.execute("ALTER TABLE " + partition + " RENAME TO orders_archive_" + month.format(SUFFIX));
+            }
+        }
+    }
+
+    // Порциями по PURGE_CHUNK_ROWS в autocommit: каждая порция - короткая транзакция, заказы не ждут
+    // ее окончания. До конца очистки в order_listing еще видны заказы выведенного месяца.
+    private void purgeRetiredRows(Connection connection, YearMonth month) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(true);
+        try {
+            for (String table : List.of("order_listing", "order_locator")) {
+                try (PreparedStatement statement = connection.prepareStatement("""
+                        DELETE FROM %1$s
+                        WHERE id IN (SELECT id FROM %1$s
+                                     WHERE order_date >= ? AND order_date < ?
+                                     LIMIT ?)
+                        """.formatted(table))) {
+                    statement.setObject(1, month.atDay(1).atStartOfDay());
+                    statement.setObject(2, month.plusMonths(1).atDay(1).atStartOfDay());
+                    statement.setInt(3, PURGE_CHUNK_ROWS);
+                    int deleted;
+                    do {
+                        deleted = statement.executeUpdate();
+                    } while (deleted == PURGE_CHUNK_ROWS);
+                }
+            }
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    public synchronized void startMaintenance(ConnectionSource source, long intervalMs) {
+        if (maintainer != null) {
+            return;
+        }
+        maintainer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "orders-partition-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintainer.scheduleWithFixedDelay(() -> {
+            try (Connection connection = source.getConnection()) {
+                MaintenanceResult result = maintain(connection);
+                if (result.hasChanges()) {
+                    System.out.println("🗂️  Секции заказов: " + result);
+                }
+            } catch (SQLException e) {
+                System.err.println("⚠️  Не удалось обслужить секции заказов: " + e.getMessage());
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public int getMonthsAhead() { return monthsAhead; }
+    public int getRetentionMonths() { return retentionMonths; }
+    public RetentionAction getRetentionAction() { return retentionAction; }
+
+    @Override
+    public synchronized void close() {
+        if (maintainer != null) {
+            maintainer.shutdownNow();
+            maintainer = null;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.orders.plan;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+
+// Выполняет запрос под EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) в транзакции, которая всегда
+// откатывается: UPDATE и DELETE действительно выполняются ради замеров, но данные не меняются.
+// Показатели из JSON плана извлекает сама база, отдельный JSON-парсер не нужен.
+// Seq Scan по секции orders записывается как чтение orders: новые месячные секции не считаются регрессией.
+public class PlanCapture {
+    private static final String PLAN_METRICS_SQL = """
+            SELECT (p ->> 'Planning Time')::float8 AS planning_ms,
+                   (p ->> 'Execution Time')::float8 AS execution_ms,
+                   COALESCE((p -> 'Plan' ->> 'Shared Hit Blocks')::bigint, 0) AS shared_hit_blocks,
+                   COALESCE((p -> 'Plan' ->> 'Shared Read Blocks')::bigint, 0) AS shared_read_blocks,
+                   ARRAY(SELECT DISTINCT COALESCE(pg_partition_root(to_regclass(node ->> 'Relation Name'))::text,
+                                                  node ->> 'Relation Name')
+                         FROM jsonb_path_query(p -> 'Plan', 'strict $.** ? (@."Node Type" == "Seq Scan")') node
+                         ORDER BY 1) AS seq_scan_relations
+            FROM (SELECT (?::jsonb) -> 0 AS p) plan
+            """;
+
+    // sql - текст запроса без ведущих комментариев
+    public QueryPlan capture(Connection connection, int queryNumber, String sql) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            String planJson;
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery("EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + sql)) {
+                if (!resultSet.next()) {
+                    throw new SQLException("EXPLAIN не вернул план для запроса #" + queryNumber);
+                }
+                planJson = resultSet.getString(1);
+            }
+            connection.rollback();
+
+            try (PreparedStatement statement = connection.prepareStatement(PLAN_METRICS_SQL)) {
+                statement.setString(1, planJson);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    return new QueryPlan(queryNumber, hash(sql), sql, planJson,
+                            resultSet.getDouble("planning_ms"),
+                            resultSet.getDouble("execution_ms"),
+                            resultSet.getLong("shared_hit_blocks"),
+                            resultSet.getLong("shared_read_blocks"),
+                            toList(resultSet.getArray("seq_scan_relations")));
+                }
+            }
+        } finally {
+            connection.rollback();
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Планы сопоставляются с эталоном по тексту запроса: пробелы и завершающая ";" не учитываются
+    public static String hash(String sql) {
+        try {
+            String normalized = sql.strip().replaceAll(";+$", "").replaceAll("\\s+", " ");
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(normalized.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static List<String> toList(Array array) throws SQLException {
+        if (array == null) {
+            return List.of();
+        }
+        try {
+            return Arrays.asList((String[]) array.getArray());
+        } finally {
+            array.free();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.orders.plan;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+// Сравнивает планы прогона с эталоном. Регрессия - новый Seq Scan по таблице, которую эталон
+// читал индексом, или рост числа страниц/времени выполнения больше чем в factor раз.
+// Пороги minBuffers и minExecutionMs отсекают шум на маленьких запросах.
+public class PlanComparator {
+    private final double factor;
+    private final long minBuffers;
+    private final double minExecutionMs;
+
+    public PlanComparator(double factor, long minBuffers, double minExecutionMs) {
+        if (factor <= 1.0) {
+            throw new IllegalArgumentException("Коэффициент регрессии должен быть больше 1: " + factor);
+        }
+        this.factor = factor;
+        this.minBuffers = minBuffers;
+        this.minExecutionMs = minExecutionMs;
+    }
+
+    public static PlanComparator fromProperties(Properties properties) {
+        return new PlanComparator(
+                Double.parseDouble(properties.getProperty("plans.regression.factor", "2.0").trim()),
+                Long.parseLong(properties.getProperty("plans.regression.minBuffers", "100").trim()),
+                Double.parseDouble(properties.getProperty("plans.regression.minExecutionMs", "5").trim()));
+    }
+
+    // baseline - планы эталона по хэшу запроса; запросы без эталона не сравниваются
+    public List<PlanRegression> compare(Map<String, QueryPlan> baseline, Collection<QueryPlan> current) {
+        List<PlanRegression> regressions = new ArrayList<>();
+
+        for (QueryPlan plan : current) {
+            QueryPlan reference = baseline.get(plan.getQueryHash());
+            if (reference == null) {
+                continue;
+            }
+
+            List<String> newSeqScans = new ArrayList<>(plan.getSeqScanRelations());
+            newSeqScans.removeAll(reference.getSeqScanRelations());
+            if (!newSeqScans.isEmpty()) {
+                regressions.add(new PlanRegression(plan.getQueryNumber(), PlanRegression.Kind.SEQ_SCAN,
+                        "последовательное чтение " + newSeqScans));
+            }
+
+            if (plan.getSharedBlocks() >= minBuffers && plan.getSharedBlocks() > reference.getSharedBlocks() * factor) {
+                regressions.add(new PlanRegression(plan.getQueryNumber(), PlanRegression.Kind.BUFFERS,
+                        String.format("страниц %d -> %d (чтений с диска %d -> %d)",
+                                reference.getSharedBlocks(), plan.getSharedBlocks(),
+                                reference.getSharedReadBlocks(), plan.getSharedReadBlocks())));
+            }
+
+            if (plan.getExecutionMs() >= minExecutionMs && plan.getExecutionMs() > reference.getExecutionMs() * factor) {
+                regressions.add(new PlanRegression(plan.getQueryNumber(), PlanRegression.Kind.EXECUTION_TIME,
+                        String.format("%.2f мс -> %.2f мс", reference.getExecutionMs(), plan.getExecutionMs())));
+            }
+        }
+        return regressions;
+    }
+
+    public double getFactor() { return factor; }
+    public long getMinBuffers() { return minBuffers; }
+    public double getMinExecutionMs() { return minExecutionMs; }
+}
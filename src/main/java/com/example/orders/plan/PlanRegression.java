@@ -0,0 +1,25 @@
+package com.example.orders.plan;
+
+public class PlanRegression {
+    public enum Kind { SEQ_SCAN, BUFFERS, EXECUTION_TIME, STATEMENT_MEAN_TIME }
+
+    private final int queryNumber;
+    private final Kind kind;
+    private final String details;
+
+    // queryNumber = 0 для записей pg_stat_statements, не связанных с тестовым запросом
+    public PlanRegression(int queryNumber, Kind kind, String details) {
+        this.queryNumber = queryNumber;
+        this.kind = kind;
+        this.details = details;
+    }
+
+    public int getQueryNumber() { return queryNumber; }
+    public Kind getKind() { return kind; }
+    public String getDetails() { return details; }
+
+    @Override
+    public String toString() {
+        return (queryNumber > 0 ? "Запрос #" + queryNumber : "pg_stat_statements") + " [" + kind + "]: " + details;
+    }
+}
@@ -0,0 +1,235 @@
+package com.example.orders.plan;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Хранение прогонов захвата планов (V7): планы, прирост счетчиков pg_stat_statements и выбор эталона
+public class PlanStore {
+
+    public int saveRun(Connection connection, String label, boolean baseline, List<QueryPlan> plans) throws SQLException {
+        boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            int runId;
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "INSERT INTO query_plan_runs (label, is_baseline) VALUES (?, ?) RETURNING id")) {
+                statement.setString(1, label);
+                statement.setBoolean(2, baseline);
+                try (ResultSet resultSet = statement.executeQuery()) {
+                    resultSet.next();
+                    runId = resultSet.getInt(1);
+                }
+            }
+
+            String sql = """
+                    INSERT INTO query_plans (run_id, query_hash, query_number, query_text, plan, planning_ms,
+                                             execution_ms, shared_hit_blocks, shared_read_blocks, seq_scan_relations)
+                    VALUES (?, ?, ?, ?, ?::jsonb, ?, ?, ?, ?, ?)
+                    ON CONFLICT (run_id, query_hash) DO NOTHING
+                    """;
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                for (QueryPlan plan : plans) {
+                    Array relations = connection.createArrayOf("text", plan.getSeqScanRelations().toArray());
+                    statement.setInt(1, runId);
+                    statement.setString(2, plan.getQueryHash());
+                    statement.setInt(3, plan.getQueryNumber());
+                    statement.setString(4, plan.getQueryText());
+                    statement.setString(5, plan.getPlanJson());
+                    statement.setDouble(6, plan.getPlanningMs());
+                    statement.setDouble(7, plan.getExecutionMs());
+                    statement.setLong(8, plan.getSharedHitBlocks());
+                    statement.setLong(9, plan.getSharedReadBlocks());
+                    statement.setArray(10, relations);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+
+            connection.commit();
+            return runId;
+
+        } catch (SQLException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    // Последний прогон, отмеченный как эталон; null, если эталона еще нет
+    public Integer findBaselineRunId(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(
+                     "SELECT id FROM query_plan_runs WHERE is_baseline ORDER BY captured_at DESC, id DESC LIMIT 1")) {
+            return resultSet.next() ? resultSet.getInt(1) : null;
+        }
+    }
+
+    // Планы прогона по хэшу текста запроса
+    public Map<String, QueryPlan> loadPlans(Connection connection, int runId) throws SQLException {
+        String sql = """
+                SELECT query_hash, query_number, query_text, plan::text AS plan, planning_ms, execution_ms,
+                       shared_hit_blocks, shared_read_blocks, seq_scan_relations
+                FROM query_plans
+                WHERE run_id = ?
+                ORDER BY query_number
+                """;
+        Map<String, QueryPlan> plans = new LinkedHashMap<>();
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, runId);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    Array relations = resultSet.getArray("seq_scan_relations");
+                    QueryPlan plan = new QueryPlan(
+                            resultSet.getInt("query_number"),
+                            resultSet.getString("query_hash"),
+                            resultSet.getString("query_text"),
+                            resultSet.getString("plan"),
+                            resultSet.getDouble("planning_ms"),
+                            resultSet.getDouble("execution_ms"),
+                            resultSet.getLong("shared_hit_blocks"),
+                            resultSet.getLong("shared_read_blocks"),
+                            Arrays.asList((String[]) relations.getArray()));
+                    plans.put(plan.getQueryHash(), plan);
+                }
+            }
+        }
+        return plans;
+    }
+
+    // Счетчики pg_stat_statements текущей базы по queryid; null, если расширение не установлено
+    // или не загружено через shared_preload_libraries. Счетчики накопительные, поэтому снимок
+    // берется до захвата планов и передается в ingestStatementStats.
+    public Map<Long, StatementCounters> readStatementStats(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT to_regclass('pg_stat_statements') IS NOT NULL")) {
+            if (!resultSet.next() || !resultSet.getBoolean(1)) {
+                return null;
+            }
+        }
+
+        String sql = """
+                SELECT s.queryid, MIN(s.query) AS query, SUM(s.calls) AS calls, SUM(s.total_exec_time) AS total_exec_ms,
+                       SUM(s.rows) AS rows, SUM(s.shared_blks_hit) AS shared_blks_hit,
+                       SUM(s.shared_blks_read) AS shared_blks_read
+                FROM pg_stat_statements s
+                WHERE s.dbid = (SELECT oid FROM pg_database WHERE datname = current_database())
+                  AND s.queryid IS NOT NULL
+                GROUP BY s.queryid
+                """;
+        Map<Long, StatementCounters> stats = new HashMap<>();
+
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            while (resultSet.next()) {
+                stats.put(resultSet.getLong("queryid"), new StatementCounters(
+                        resultSet.getString("query"),
+                        resultSet.getLong("calls"),
+                        resultSet.getDouble("total_exec_ms"),
+                        resultSet.getLong("rows"),
+                        resultSet.getLong("shared_blks_hit"),
+                        resultSet.getLong("shared_blks_read")));
+            }
+        } catch (SQLException e) {
+            // Расширение создано, но библиотека не загружена - статистика недоступна
+            if ("55000".equals(e.getSQLState())) {
+                return null;
+            }
+            throw e;
+        }
+        return stats;
+    }
+
+    // Записывает в прогон прирост счетчиков pg_stat_statements с момента снимка before, то есть
+    // работу самого прогона, а не всю историю с последнего сброса статистики.
+    // -1, если статистика недоступна.
+    public int ingestStatementStats(Connection connection, int runId, Map<Long, StatementCounters> before)
+            throws SQLException {
+        if (before == null) {
+            return -1;
+        }
+        Map<Long, StatementCounters> after = readStatementStats(connection);
+        if (after == null) {
+            return -1;
+        }
+
+        String sql = """
+                INSERT INTO query_stat_snapshots (run_id, queryid, query, calls, total_exec_ms, mean_exec_ms,
+                                                  rows, shared_blks_hit, shared_blks_read)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """;
+        int statements = 0;
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (Map.Entry<Long, StatementCounters> entry : after.entrySet()) {
+                StatementCounters delta = entry.getValue().since(before.get(entry.getKey()));
+                if (delta.getCalls() <= 0) {
+                    continue;
+                }
+                statement.setInt(1, runId);
+                statement.setLong(2, entry.getKey());
+                statement.setString(3, delta.getQuery());
+                statement.setLong(4, delta.getCalls());
+                statement.setDouble(5, delta.getTotalExecMs());
+                statement.setDouble(6, delta.getMeanExecMs());
+                statement.setLong(7, delta.getRows());
+                statement.setLong(8, delta.getSharedBlocksHit());
+                statement.setLong(9, delta.getSharedBlocksRead());
+                statement.addBatch();
+                statements++;
+            }
+            if (statements > 0) {
+                statement.executeBatch();
+            }
+        }
+        return statements;
+    }
+
+    // Операторы, среднее время которых выросло больше чем в factor раз относительно эталонного снимка
+    public List<PlanRegression> findStatementRegressions(Connection connection, int runId, int baselineRunId,
+                                                         double factor, double minMeanMs) throws SQLException {
+        String sql = """
+                SELECT c.query, b.mean_exec_ms AS baseline_ms, c.mean_exec_ms AS current_ms
+                FROM query_stat_snapshots c
+                JOIN query_stat_snapshots b ON b.queryid = c.queryid AND b.run_id = ?
+                WHERE c.run_id = ?
+                  AND c.mean_exec_ms >= ?
+                  AND c.mean_exec_ms > b.mean_exec_ms * ?
+                ORDER BY c.mean_exec_ms - b.mean_exec_ms DESC
+                LIMIT 20
+                """;
+        List<PlanRegression> regressions = new ArrayList<>();
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, baselineRunId);
+            statement.setInt(2, runId);
+            statement.setDouble(3, minMeanMs);
+            statement.setDouble(4, factor);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    regressions.add(new PlanRegression(0, PlanRegression.Kind.STATEMENT_MEAN_TIME,
+                            String.format("%.2f мс -> %.2f мс: %s",
+                                    resultSet.getDouble("baseline_ms"), resultSet.getDouble("current_ms"),
+                                    abbreviate(resultSet.getString("query")))));
+                }
+            }
+        }
+        return regressions;
+    }
+
+    private static String abbreviate(String query) {
+        String line = query.strip().replaceAll("\\s+", " ");
+        return line.length() > 120 ? line.substring(0, 117) + "..." : line;
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.orders.plan;
+
+import java.util.List;
+
+// План одного запроса из EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) и извлеченные из него показатели
+public class QueryPlan {
+    private final int queryNumber;
+    private final String queryHash;
+    private final String queryText;
+    private final String planJson;
+    private final double planningMs;
+    private final double executionMs;
+    private final long sharedHitBlocks;
+    private final long sharedReadBlocks;
+    private final List<String> seqScanRelations;
+
+    public QueryPlan(int queryNumber, String queryHash, String queryText, String planJson,
+                     double planningMs, double executionMs, long sharedHitBlocks, long sharedReadBlocks,
+                     List<String> seqScanRelations) {
+        this.queryNumber = queryNumber;
+        this.queryHash = queryHash;
+        this.queryText = queryText;
+        this.planJson = planJson;
+        this.planningMs = planningMs;
+        this.executionMs = executionMs;
+        this.sharedHitBlocks = sharedHitBlocks;
+        this.sharedReadBlocks = sharedReadBlocks;
+        this.seqScanRelations = List.copyOf(seqScanRelations);
+    }
+
+    public int getQueryNumber() { return queryNumber; }
+    public String getQueryHash() { return queryHash; }
+    public String getQueryText() { return queryText; }
+    public String getPlanJson() { return planJson; }
+    public double getPlanningMs() { return planningMs; }
+    public double getExecutionMs() { return executionMs; }
+    public long getSharedHitBlocks() { return sharedHitBlocks; }
+    public long getSharedReadBlocks() { return sharedReadBlocks; }
+    public List<String> getSeqScanRelations() { return seqScanRelations; }
+
+    // Все затронутые страницы: попадания в кэш и чтения
+    public long getSharedBlocks() { return sharedHitBlocks + sharedReadBlocks; }
+
+    @Override
+    public String toString() {
+        return String.format("#%d: планирование %.2f мс, выполнение %.2f мс, буферы %d (чтений %d), seq scan %s",
+                queryNumber, planningMs, executionMs, getSharedBlocks(), sharedReadBlocks, seqScanRelations);
+    }
+}
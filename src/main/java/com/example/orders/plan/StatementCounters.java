@@ -0,0 +1,43 @@
+package com.example.orders.plan;
+
+// Накопительные счетчики pg_stat_statements одного оператора (суммы по всем пользователям базы)
+public class StatementCounters {
+    private final String query;
+    private final long calls;
+    private final double totalExecMs;
+    private final long rows;
+    private final long sharedBlocksHit;
+    private final long sharedBlocksRead;
+
+    public StatementCounters(String query, long calls, double totalExecMs, long rows,
+                             long sharedBlocksHit, long sharedBlocksRead) {
+        this.query = query;
+        this.calls = calls;
+        this.totalExecMs = totalExecMs;
+        this.rows = rows;
+        this.sharedBlocksHit = sharedBlocksHit;
+        this.sharedBlocksRead = sharedBlocksRead;
+    }
+
+    public String getQuery() { return query; }
+    public long getCalls() { return calls; }
+    public double getTotalExecMs() { return totalExecMs; }
+    public long getRows() { return rows; }
+    public long getSharedBlocksHit() { return sharedBlocksHit; }
+    public long getSharedBlocksRead() { return sharedBlocksRead; }
+
+    public double getMeanExecMs() {
+        return calls > 0 ? totalExecMs / calls : 0;
+    }
+
+    // Прирост относительно более раннего снимка. Оператора в раннем снимке не было или счетчики
+    // с тех пор сбросили (pg_stat_statements_reset, вытеснение записи) - весь текущий счет прирост
+    public StatementCounters since(StatementCounters before) {
+        if (before == null || calls < before.calls) {
+            return this;
+        }
+        return new StatementCounters(query, calls - before.calls, totalExecMs - before.totalExecMs,
+                rows - before.rows, sharedBlocksHit - before.sharedBlocksHit,
+                sharedBlocksRead - before.sharedBlocksRead);
+    }
+}
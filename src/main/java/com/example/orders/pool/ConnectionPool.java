@@ -0,0 +1,194 @@
+package com.example.orders.pool;
+
+import com.example.orders.cache.CacheStats;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public final class ConnectionPool implements ConnectionSource, AutoCloseable {
+    private final String url;
+    private final String username;
+    private final String password;
+    private final PoolConfig config;
+
+    // Свободные соединения: берем и возвращаем с головы (LIFO), вытесняем с хвоста
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    // Ограничивает число одновременно выданных соединений
+    private final Semaphore permits;
+    private final AtomicInteger total = new AtomicInteger();
+
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong borrowed = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final StatementCache.Counters statementCounters = new StatementCache.Counters();
+
+    private final ScheduledExecutorService maintenance;
+    private volatile boolean closed;
+
+    public ConnectionPool(String url, String username, String password, PoolConfig config) {
+        this.url = url;
+        this.username = username;
+        this.password = password;
+        this.config = config;
+        this.permits = new Semaphore(config.getMaxSize(), true);
+
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "db-pool-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        maintenance.scheduleWithFixedDelay(this::maintain, 0,
+                config.getEvictionIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Пул соединений закрыт");
+        }
+
+        try {
+            if (!permits.tryAcquire(config.getAcquireTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLTimeoutException("Не удалось получить соединение за "
+                        + config.getAcquireTimeoutMs() + " мс: " + getStats());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Ожидание соединения прервано", e);
+        }
+
+        try {
+            PooledConnection pooled = takeIdleOrCreate();
+            borrowed.incrementAndGet();
+            return pooled.borrow();
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    public PoolStats getStats() {
+        int idleCount = idle.size();
+        int active = config.getMaxSize() - permits.availablePermits();
+        return new PoolStats(total.get(), idleCount, active, permits.getQueueLength(),
+                created.get(), destroyed.get(), borrowed.get(), timeouts.get());
+    }
+
+    // Суммарно по всем соединениям пула; size - число закэшированных операторов
+    public CacheStats getStatementCacheStats() {
+        return new CacheStats(statementCounters.hits.sum(), statementCounters.misses.sum(),
+                statementCounters.evictions.sum(), 0, statementCounters.size.get());
+    }
+
+    public PoolConfig getConfig() {
+        return config;
+    }
+
+    private PooledConnection takeIdleOrCreate() throws SQLException {
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            if (!config.isValidateOnBorrow() || pooled.isValid(config.getValidationTimeoutSec())) {
+                return pooled;
+            }
+            destroy(pooled);
+        }
+        return create();
+    }
+
+    void release(PooledConnection pooled) {
+        try {
+            if (closed || total.get() > config.getMaxSize() || !pooled.reset()) {
+                destroy(pooled);
+                return;
+            }
+            pooled.touch();
+            idle.offerFirst(pooled);
+
+            // Пул могли закрыть, пока соединение возвращалось
+            if (closed && idle.remove(pooled)) {
+                destroy(pooled);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private PooledConnection create() throws SQLException {
+        total.incrementAndGet();
+        try {
+            Connection physical = DriverManager.getConnection(url, username, password);
+            try {
+                PooledConnection pooled = new PooledConnection(this, physical, config.getStatementCacheSize(),
+                        statementCounters);
+                created.incrementAndGet();
+                return pooled;
+            } catch (SQLException | RuntimeException e) {
+                physical.close();
+                throw e;
+            }
+        } catch (SQLException | RuntimeException e) {
+            total.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void destroy(PooledConnection pooled) {
+        total.decrementAndGet();
+        destroyed.incrementAndGet();
+        pooled.closePhysical();
+    }
+
+    private void maintain() {
+        try {
+            evictIdle();
+            fillToMinimum();
+        } catch (RuntimeException e) {
+            System.err.println("⚠️  Ошибка обслуживания пула: " + e.getMessage());
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<PooledConnection> iterator = idle.descendingIterator();
+
+        while (iterator.hasNext() && total.get() > config.getMinSize()) {
+            PooledConnection pooled = iterator.next();
+            if (now - pooled.getLastUsedAt() >= config.getIdleTimeoutMs() && idle.remove(pooled)) {
+                destroy(pooled);
+            }
+        }
+    }
+
+    private void fillToMinimum() {
+        while (!closed && total.get() < config.getMinSize()) {
+            try {
+                idle.offerLast(create());
+            } catch (SQLException e) {
+                System.err.println("⚠️  Не удалось открыть соединение для пула: " + e.getMessage());
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        maintenance.shutdownNow();
+
+        PooledConnection pooled;
+        while ((pooled = idle.pollFirst()) != null) {
+            destroy(pooled);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.orders.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Источник соединений: DatabaseManager или сам пул. close() у полученного соединения обязателен.
+public interface ConnectionSource {
+    Connection getConnection() throws SQLException;
+}
@@ -0,0 +1,74 @@
+package com.example.orders.pool;
+
+import java.util.Properties;
+
+public class PoolConfig {
+    private final int minSize;
+    private final int maxSize;
+    private final long idleTimeoutMs;
+    private final long acquireTimeoutMs;
+    private final int validationTimeoutSec;
+    private final long evictionIntervalMs;
+    private final boolean validateOnBorrow;
+    private final int statementCacheSize;
+
+    public PoolConfig(int minSize, int maxSize, long idleTimeoutMs, long acquireTimeoutMs,
+                      int validationTimeoutSec, long evictionIntervalMs, boolean validateOnBorrow,
+                      int statementCacheSize) {
+        if (minSize < 0 || maxSize < 1 || minSize > maxSize) {
+            throw new IllegalArgumentException("Некорректные размеры пула: min=" + minSize + ", max=" + maxSize);
+        }
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.validationTimeoutSec = validationTimeoutSec;
+        this.evictionIntervalMs = evictionIntervalMs;
+        this.validateOnBorrow = validateOnBorrow;
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public static PoolConfig defaults() {
+        return new PoolConfig(2, 10, 300_000, 5_000, 2, 30_000, true, 64);
+    }
+
+    public static PoolConfig fromProperties(Properties properties) {
+        PoolConfig defaults = defaults();
+        return new PoolConfig(
+                intProperty(properties, "db.pool.minSize", defaults.minSize),
+                intProperty(properties, "db.pool.maxSize", defaults.maxSize),
+                longProperty(properties, "db.pool.idleTimeoutMs", defaults.idleTimeoutMs),
+                longProperty(properties, "db.pool.acquireTimeoutMs", defaults.acquireTimeoutMs),
+                intProperty(properties, "db.pool.validationTimeoutSec", defaults.validationTimeoutSec),
+                longProperty(properties, "db.pool.evictionIntervalMs", defaults.evictionIntervalMs),
+                Boolean.parseBoolean(properties.getProperty("db.pool.validateOnBorrow",
+                        String.valueOf(defaults.validateOnBorrow))),
+                intProperty(properties, "db.pool.statementCacheSize", defaults.statementCacheSize)
+        );
+    }
+
+    private static int intProperty(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        return value != null ? Integer.parseInt(value.trim()) : defaultValue;
+    }
+
+    private static long longProperty(Properties properties, String key, long defaultValue) {
+        String value = properties.getProperty(key);
+        return value != null ? Long.parseLong(value.trim()) : defaultValue;
+    }
+
+    public int getMinSize() { return minSize; }
+    public int getMaxSize() { return maxSize; }
+    public long getIdleTimeoutMs() { return idleTimeoutMs; }
+    public long getAcquireTimeoutMs() { return acquireTimeoutMs; }
+    public int getValidationTimeoutSec() { return validationTimeoutSec; }
+    public long getEvictionIntervalMs() { return evictionIntervalMs; }
+    public boolean isValidateOnBorrow() { return validateOnBorrow; }
+    public int getStatementCacheSize() { return statementCacheSize; }
+
+    @Override
+    public String toString() {
+        return String.format("PoolConfig{min=%d, max=%d, idleTimeoutMs=%d, acquireTimeoutMs=%d, statementCacheSize=%d}",
+                minSize, maxSize, idleTimeoutMs, acquireTimeoutMs, statementCacheSize);
+    }
+}
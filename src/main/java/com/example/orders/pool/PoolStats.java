@@ -0,0 +1,39 @@
+package com.example.orders.pool;
+
+public class PoolStats {
+    private final int total;
+    private final int idle;
+    private final int active;
+    private final int waiting;
+    private final long created;
+    private final long destroyed;
+    private final long borrowed;
+    private final long timeouts;
+
+    public PoolStats(int total, int idle, int active, int waiting,
+                     long created, long destroyed, long borrowed, long timeouts) {
+        this.total = total;
+        this.idle = idle;
+        this.active = active;
+        this.waiting = waiting;
+        this.created = created;
+        this.destroyed = destroyed;
+        this.borrowed = borrowed;
+        this.timeouts = timeouts;
+    }
+
+    public int getTotal() { return total; }
+    public int getIdle() { return idle; }
+    public int getActive() { return active; }
+    public int getWaiting() { return waiting; }
+    public long getCreated() { return created; }
+    public long getDestroyed() { return destroyed; }
+    public long getBorrowed() { return borrowed; }
+    public long getTimeouts() { return timeouts; }
+
+    @Override
+    public String toString() {
+        return String.format("PoolStats{total=%d, idle=%d, active=%d, waiting=%d, created=%d, destroyed=%d, borrowed=%d, timeouts=%d}",
+                total, idle, active, waiting, created, destroyed, borrowed, timeouts);
+    }
+}
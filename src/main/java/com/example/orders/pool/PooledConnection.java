@@ -0,0 +1,206 @@
+package com.example.orders.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class PooledConnection {
+    private final ConnectionPool pool;
+    private final Connection physical;
+    // null, если кэш операторов выключен (db.pool.statementCacheSize=0)
+    private final StatementCache statementCache;
+    // Настройки нового соединения: reset() возвращает их, если выдача их меняла
+    private final boolean defaultReadOnly;
+    private final int defaultIsolation;
+    private final String defaultCatalog;
+    private volatile boolean settingsChanged;
+    private volatile long lastUsedAt;
+
+    PooledConnection(ConnectionPool pool, Connection physical, int statementCacheSize,
+                     StatementCache.Counters statementCounters) throws SQLException {
+        this.pool = pool;
+        this.physical = physical;
+        this.statementCache = statementCacheSize > 0
+                ? new StatementCache(physical, statementCacheSize, statementCounters)
+                : null;
+        this.defaultReadOnly = physical.isReadOnly();
+        this.defaultIsolation = physical.getTransactionIsolation();
+        this.defaultCatalog = physical.getCatalog();
+        this.lastUsedAt = System.currentTimeMillis();
+    }
+
+    Connection getPhysical() { return physical; }
+    long getLastUsedAt() { return lastUsedAt; }
+
+    void touch() {
+        lastUsedAt = System.currentTimeMillis();
+    }
+
+    boolean isValid(int timeoutSec) {
+        try {
+            return physical.isValid(timeoutSec);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // Возвращает соединение в исходное состояние перед повторной выдачей
+    boolean reset() {
+        try {
+            if (physical.isClosed()) {
+                return false;
+            }
+            if (!physical.getAutoCommit()) {
+                physical.rollback();
+                physical.setAutoCommit(true);
+            }
+            // Только после setReadOnly/setTransactionIsolation/setCatalog/setSchema через выдачу:
+            // их чтение у драйвера - запрос к серверу, проверять их при каждом возврате дорого
+            if (settingsChanged) {
+                physical.setReadOnly(defaultReadOnly);
+                physical.setTransactionIsolation(defaultIsolation);
+                physical.setCatalog(defaultCatalog);
+                // setSchema меняет search_path, а getSchema видит только его первый элемент:
+                // исходный путь возвращает RESET
+                try (Statement statement = physical.createStatement()) {
+                    statement.execute("RESET search_path");
+                }
+                settingsChanged = false;
+            }
+            physical.clearWarnings();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closePhysical() {
+        if (statementCache != null) {
+            statementCache.closeAll();
+        }
+        try {
+            physical.close();
+        } catch (SQLException e) {
+            System.err.println("⚠️  Ошибка закрытия соединения: " + e.getMessage());
+        }
+    }
+
+    // Каждая выдача получает свою обертку: close() возвращает соединение в пул ровно один раз
+    Connection borrow() {
+        return (Connection) Proxy.newProxyInstance(
+                TransactionCallbacks.class.getClassLoader(),
+                new Class<?>[]{Connection.class, TransactionCallbacks.class},
+                new BorrowedConnectionHandler());
+    }
+
+    private class BorrowedConnectionHandler implements InvocationHandler {
+        private final AtomicBoolean released = new AtomicBoolean();
+        // Действия TransactionCallbacks текущей транзакции; соединение используется одним потоком
+        private final List<Runnable> afterCommit = new ArrayList<>();
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (released.compareAndSet(false, true)) {
+                        // Незафиксированная транзакция будет откачена в reset()
+                        afterCommit.clear();
+                        pool.release(PooledConnection.this);
+                    }
+                    return null;
+                case "isClosed":
+                    if (released.get()) {
+                        return true;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + physical + "]";
+                default:
+                    break;
+            }
+
+            if (released.get()) {
+                throw new SQLException("Соединение уже возвращено в пул");
+            }
+
+            switch (method.getName()) {
+                case "runAfterCommit":
+                    if (physical.getAutoCommit()) {
+                        runSafely((Runnable) args[0]);
+                    } else {
+                        afterCommit.add((Runnable) args[0]);
+                    }
+                    return null;
+                case "commit":
+                    physical.commit();
+                    runAfterCommit();
+                    return null;
+                case "rollback":
+                    // rollback(savepoint) откатывает только часть транзакции - действия остаются
+                    if (args == null || args.length == 0) {
+                        physical.rollback();
+                        afterCommit.clear();
+                        return null;
+                    }
+                    break;
+                case "setAutoCommit":
+                    // Включение autocommit внутри транзакции фиксирует ее
+                    physical.setAutoCommit((Boolean) args[0]);
+                    if ((Boolean) args[0]) {
+                        runAfterCommit();
+                    }
+                    return null;
+                case "setReadOnly":
+                case "setTransactionIsolation":
+                case "setCatalog":
+                case "setSchema":
+                    settingsChanged = true;
+                    break;
+                default:
+                    break;
+            }
+
+            // prepareStatement(sql) и prepareStatement(sql, autoGeneratedKeys) обслуживаются кэшем соединения
+            if (statementCache != null && method.getName().equals("prepareStatement")) {
+                if (args.length == 1) {
+                    return statementCache.prepare((String) args[0], Statement.NO_GENERATED_KEYS, (Connection) proxy);
+                }
+                if (args.length == 2 && args[1] instanceof Integer) {
+                    return statementCache.prepare((String) args[0], (Integer) args[1], (Connection) proxy);
+                }
+            }
+
+            try {
+                return method.invoke(physical, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        private void runAfterCommit() {
+            List<Runnable> actions = new ArrayList<>(afterCommit);
+            afterCommit.clear();
+            actions.forEach(this::runSafely);
+        }
+
+        // Транзакция уже зафиксирована: ошибка действия не должна выглядеть как ошибка commit()
+        private void runSafely(Runnable action) {
+            try {
+                action.run();
+            } catch (RuntimeException e) {
+                System.err.println("⚠️  Ошибка действия после фиксации транзакции: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.orders.pool;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// LRU-кэш PreparedStatement одного физического соединения, ключ - текст SQL.
+// close() у выданного оператора не закрывает его, а возвращает в кэш, поэтому драйвер
+// переиспользует один и тот же серверный prepared statement между вызовами DAO.
+// Соединение одновременно используется одним потоком, синхронизация не нужна.
+class StatementCache {
+    private final Connection physical;
+    private final int capacity;
+    private final Counters counters;
+    private final LinkedHashMap<String, CachedStatement> statements;
+
+    StatementCache(Connection physical, int capacity, Counters counters) {
+        this.physical = physical;
+        this.capacity = capacity;
+        this.counters = counters;
+        this.statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() > StatementCache.this.capacity) {
+                    evict(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // owner - выданная обертка соединения: ее, а не физическое соединение, возвращает getConnection()
+    PreparedStatement prepare(String sql, int autoGeneratedKeys, Connection owner) throws SQLException {
+        boolean generatedKeys = autoGeneratedKeys == Statement.RETURN_GENERATED_KEYS;
+        String key = generatedKeys ? "[keys] " + sql : sql;
+
+        CachedStatement cached = statements.get(key);
+        if (cached != null && !cached.inUse) {
+            counters.hits.increment();
+            return cached.checkOut(owner);
+        }
+
+        counters.misses.increment();
+        PreparedStatement statement = generatedKeys
+                ? physical.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : physical.prepareStatement(sql);
+
+        // Тот же запрос уже выдан и еще не закрыт (вложенное использование) - второй экземпляр не кэшируем:
+        // он закроется при close(), как вытесненный
+        if (cached != null) {
+            CachedStatement uncached = CachedStatement.of(statement);
+            uncached.evicted = true;
+            return uncached.checkOut(owner);
+        }
+
+        cached = CachedStatement.of(statement);
+        statements.put(key, cached);
+        counters.size.incrementAndGet();
+        return cached.checkOut(owner);
+    }
+
+    void closeAll() {
+        for (CachedStatement cached : statements.values()) {
+            evict(cached);
+        }
+        statements.clear();
+    }
+
+    private void evict(CachedStatement cached) {
+        counters.evictions.increment();
+        counters.size.decrementAndGet();
+        cached.evicted = true;
+        if (!cached.inUse) {
+            cached.closeQuietly();
+        }
+    }
+
+    // Общие для всех соединений пула счетчики
+    static class Counters {
+        final LongAdder hits = new LongAdder();
+        final LongAdder misses = new LongAdder();
+        final LongAdder evictions = new LongAdder();
+        final AtomicInteger size = new AtomicInteger();
+    }
+
+    private static class CachedStatement {
+        final PreparedStatement statement;
+        // Исходные настройки оператора (размер выборки может задавать соединение, defaultRowFetchSize)
+        final int fetchSize;
+        final int fetchDirection;
+        final int maxRows;
+        final int maxFieldSize;
+        final int queryTimeout;
+        boolean inUse;
+        boolean evicted;
+
+        private CachedStatement(PreparedStatement statement) throws SQLException {
+            this.statement = statement;
+            this.fetchSize = statement.getFetchSize();
+            this.fetchDirection = statement.getFetchDirection();
+            this.maxRows = statement.getMaxRows();
+            this.maxFieldSize = statement.getMaxFieldSize();
+            this.queryTimeout = statement.getQueryTimeout();
+        }
+
+        static CachedStatement of(PreparedStatement statement) throws SQLException {
+            try {
+                return new CachedStatement(statement);
+            } catch (SQLException | RuntimeException e) {
+                statement.close();
+                throw e;
+            }
+        }
+
+        PreparedStatement checkOut(Connection owner) {
+            inUse = true;
+            return (PreparedStatement) Proxy.newProxyInstance(
+                    PreparedStatement.class.getClassLoader(),
+                    new Class<?>[]{PreparedStatement.class},
+                    new CheckedOutHandler(this, owner));
+        }
+
+        void checkIn() {
+            inUse = false;
+            if (evicted) {
+                closeQuietly();
+                return;
+            }
+            try {
+                // Следующий пользователь получает оператор в исходном состоянии
+                statement.clearParameters();
+                statement.clearBatch();
+                statement.clearWarnings();
+                statement.setFetchSize(fetchSize);
+                statement.setFetchDirection(fetchDirection);
+                statement.setMaxRows(maxRows);
+                statement.setMaxFieldSize(maxFieldSize);
+                statement.setQueryTimeout(queryTimeout);
+            } catch (SQLException e) {
+                evicted = true;
+                closeQuietly();
+            }
+        }
+
+        void closeQuietly() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                System.err.println("⚠️  Ошибка закрытия оператора: " + e.getMessage());
+            }
+        }
+    }
+
+    private static class CheckedOutHandler implements InvocationHandler {
+        private final CachedStatement cached;
+        private final Connection owner;
+        private boolean released;
+
+        CheckedOutHandler(CachedStatement cached, Connection owner) {
+            this.cached = cached;
+            this.owner = owner;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!released) {
+                        released = true;
+                        cached.checkIn();
+                    }
+                    return null;
+                case "isClosed":
+                    if (released) {
+                        return true;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    break;
+            }
+
+            if (released) {
+                throw new SQLException("Оператор уже закрыт");
+            }
+            if (method.getName().equals("getConnection")) {
+                return owner;
+            }
+
+            try {
+                return method.invoke(cached.statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+    }
+}
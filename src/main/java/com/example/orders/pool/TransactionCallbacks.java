@@ -0,0 +1,20 @@
+package com.example.orders.pool;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// Действия после фиксации транзакции соединения из пула: выполняются после commit() (или
+// setAutoCommit(true) внутри транзакции) и отбрасываются при полном откате и возврате соединения в пул
+public interface TransactionCallbacks {
+    void runAfterCommit(Runnable action) throws SQLException;
+
+    // В autocommit действие выполняется сразу. Соединение не из пула не умеет откладывать действия,
+    // поэтому и вне autocommit оно тоже выполняется сразу
+    static void afterCommit(Connection connection, Runnable action) throws SQLException {
+        if (connection instanceof TransactionCallbacks callbacks) {
+            callbacks.runAfterCommit(action);
+        } else {
+            action.run();
+        }
+    }
+}
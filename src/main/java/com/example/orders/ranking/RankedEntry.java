@@ -0,0 +1,19 @@
+package com.example.orders.ranking;
+
+public class RankedEntry {
+    private final long key;
+    private final long score;
+
+    public RankedEntry(long key, long score) {
+        this.key = key;
+        this.score = score;
+    }
+
+    public long getKey() { return key; }
+    public long getScore() { return score; }
+
+    @Override
+    public String toString() {
+        return String.format("RankedEntry{key=%d, score=%d}", key, score);
+    }
+}
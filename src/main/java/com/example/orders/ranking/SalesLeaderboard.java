@@ -0,0 +1,120 @@
+package com.example.orders.ranking;
+
+import com.example.orders.pool.ConnectionSource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Лидеры продаж в памяти: товары по числу заказов (тестовый запрос 2) и покупатели по сумме
+// заказов (запрос 3). Загружается один раз из агрегатов продаж и дальше обновляется OrderDAO
+// при создании и удалении заказов. Сумма ведется в копейках по цене на момент события;
+// после изменения цен ее выравнивает периодическая перезагрузка.
+public class SalesLeaderboard implements AutoCloseable {
+    private final TopNTracker products;
+    private final TopNTracker customers;
+    private ScheduledExecutorService reloader;
+
+    public SalesLeaderboard(int size) {
+        this.products = new TopNTracker(size);
+        this.customers = new TopNTracker(size);
+    }
+
+    public void load(Connection connection) throws SQLException {
+        Map<Long, Long> productOrders = new HashMap<>();
+        Map<Long, Long> customerSpend = new HashMap<>();
+
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery("""
+                    SELECT product_id, SUM(order_count) AS order_count
+                    FROM sales_monthly_rollup
+                    GROUP BY product_id
+                    """)) {
+                while (resultSet.next()) {
+                    productOrders.put(resultSet.getLong("product_id"), resultSet.getLong("order_count"));
+                }
+            }
+
+            try (ResultSet resultSet = statement.executeQuery("""
+                    SELECT r.customer_id, SUM(r.units * p.price) AS total_spent
+                    FROM sales_customer_rollup r
+                    JOIN products p ON p.id = r.product_id
+                    GROUP BY r.customer_id
+                    """)) {
+                while (resultSet.next()) {
+                    customerSpend.put(resultSet.getLong("customer_id"), toMinorUnits(resultSet.getBigDecimal("total_spent")));
+                }
+            }
+        }
+
+        products.reset(productOrders);
+        customers.reset(customerSpend);
+    }
+
+    public void onOrderCreated(long productId, long customerId, int quantity, BigDecimal unitPrice) {
+        products.add(productId, 1);
+        customers.add(customerId, amount(quantity, unitPrice));
+    }
+
+    public void onOrderDeleted(long productId, long customerId, int quantity, BigDecimal unitPrice) {
+        products.add(productId, -1);
+        customers.add(customerId, -amount(quantity, unitPrice));
+    }
+
+    // Ключ - id товара, счет - число заказов
+    public List<RankedEntry> topProducts(int limit) {
+        return products.top(limit);
+    }
+
+    // Ключ - id покупателя, счет - сумма в копейках (см. toAmount)
+    public List<RankedEntry> topCustomers(int limit) {
+        return customers.top(limit);
+    }
+
+    public static BigDecimal toAmount(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, 2);
+    }
+
+    private static long amount(int quantity, BigDecimal unitPrice) {
+        return unitPrice != null ? toMinorUnits(unitPrice.multiply(BigDecimal.valueOf(quantity))) : 0;
+    }
+
+    private static long toMinorUnits(BigDecimal amount) {
+        return amount != null ? amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact() : 0;
+    }
+
+    public synchronized void startAutoReload(ConnectionSource source, long intervalMs) {
+        if (reloader != null) {
+            return;
+        }
+        reloader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sales-leaderboard-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reloader.scheduleWithFixedDelay(() -> {
+            try (Connection connection = source.getConnection()) {
+                load(connection);
+            } catch (SQLException e) {
+                System.err.println("⚠️  Не удалось перезагрузить лидеров продаж: " + e.getMessage());
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reloader != null) {
+            reloader.shutdownNow();
+            reloader = null;
+        }
+    }
+}
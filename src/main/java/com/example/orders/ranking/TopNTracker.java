@@ -0,0 +1,163 @@
+package com.example.orders.ranking;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Текущие top-K ключей по счету. Счета меняются без общей блокировки, а готовый рейтинг
+// публикуется неизменяемым списком, поэтому top() не блокирует и не пересчитывает ничего.
+// Рейтинг перестраивается, только если изменение может его затронуть:
+//  - рост счета ключа из рейтинга или выше порога - слияние ключа с текущими K записями, O(K log K);
+//  - падение счета ключа из рейтинга - полный проход с min-кучей размера K, O(n log K).
+public class TopNTracker {
+    private static final Comparator<RankedEntry> BY_RANK =
+            Comparator.comparingLong(RankedEntry::getScore).reversed().thenComparingLong(RankedEntry::getKey);
+
+    private final int capacity;
+    private final Map<Long, AtomicLong> scores = new ConcurrentHashMap<>();
+
+    // Изменения счетов идут под read-блокировкой, полный пересчет - под write,
+    // чтобы проход по всем счетам видел согласованное состояние
+    private final ReentrantReadWriteLock rescanLock = new ReentrantReadWriteLock();
+    private final ReentrantLock mergeLock = new ReentrantLock();
+    private volatile List<RankedEntry> ranking = List.of();
+
+    public TopNTracker(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Размер рейтинга должен быть положительным: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    public void add(long key, long delta) {
+        if (delta == 0) {
+            return;
+        }
+
+        boolean rescan;
+        rescanLock.readLock().lock();
+        try {
+            long score = scores.computeIfAbsent(key, k -> new AtomicLong()).addAndGet(delta);
+            List<RankedEntry> current = ranking;
+            boolean ranked = indexOf(current, key) >= 0;
+
+            if (delta > 0) {
+                if (ranked || current.size() < capacity || score > current.get(current.size() - 1).getScore()) {
+                    merge(key);
+                }
+                return;
+            }
+            rescan = ranked;
+        } finally {
+            rescanLock.readLock().unlock();
+        }
+
+        // Ключ из рейтинга потерял очки: его место может занять любой ключ вне рейтинга
+        if (rescan) {
+            rescan();
+        }
+    }
+
+    // Заменяет все счета, например при начальной загрузке из базы
+    public void reset(Map<Long, Long> initialScores) {
+        rescanLock.writeLock().lock();
+        try {
+            scores.clear();
+            initialScores.forEach((key, score) -> scores.put(key, new AtomicLong(score)));
+            ranking = computeRanking();
+        } finally {
+            rescanLock.writeLock().unlock();
+        }
+    }
+
+    // Снимок рейтинга по убыванию счета, не больше capacity записей
+    public List<RankedEntry> top() {
+        return ranking;
+    }
+
+    public List<RankedEntry> top(int limit) {
+        List<RankedEntry> current = ranking;
+        return limit >= current.size() ? current : current.subList(0, limit);
+    }
+
+    public long getScore(long key) {
+        AtomicLong score = scores.get(key);
+        return score != null ? score.get() : 0;
+    }
+
+    public int getCapacity() { return capacity; }
+    public int getTrackedCount() { return scores.size(); }
+
+    private void merge(long key) {
+        mergeLock.lock();
+        try {
+            List<RankedEntry> current = ranking;
+            List<RankedEntry> candidates = new ArrayList<>(current.size() + 1);
+            // Счета перечитываются: рейтинг отражает последние значения, а не значения на момент публикации
+            for (RankedEntry entry : current) {
+                if (entry.getKey() != key) {
+                    addCandidate(candidates, entry.getKey());
+                }
+            }
+            addCandidate(candidates, key);
+            candidates.sort(BY_RANK);
+            if (candidates.size() > capacity) {
+                candidates = candidates.subList(0, capacity);
+            }
+            ranking = List.copyOf(candidates);
+        } finally {
+            mergeLock.unlock();
+        }
+    }
+
+    private void addCandidate(List<RankedEntry> candidates, long key) {
+        long score = getScore(key);
+        if (score > 0) {
+            candidates.add(new RankedEntry(key, score));
+        }
+    }
+
+    private void rescan() {
+        rescanLock.writeLock().lock();
+        try {
+            ranking = computeRanking();
+        } finally {
+            rescanLock.writeLock().unlock();
+        }
+    }
+
+    private List<RankedEntry> computeRanking() {
+        // Min-куча: в корне худшая из K лучших записей, ее и вытесняем
+        PriorityQueue<RankedEntry> heap = new PriorityQueue<>(capacity + 1, BY_RANK.reversed());
+        for (Map.Entry<Long, AtomicLong> entry : scores.entrySet()) {
+            long score = entry.getValue().get();
+            if (score <= 0) {
+                continue;
+            }
+            heap.offer(new RankedEntry(entry.getKey(), score));
+            if (heap.size() > capacity) {
+                heap.poll();
+            }
+        }
+
+        List<RankedEntry> result = new ArrayList<>(heap);
+        result.sort(BY_RANK);
+        return Collections.unmodifiableList(result);
+    }
+
+    private static int indexOf(List<RankedEntry> entries, long key) {
+        for (int i = 0; i < entries.size(); i++) {
+            if (entries.get(i).getKey() == key) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.orders.render;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+// CSV по RFC 4180: первая строка - заголовки, NULL - пустое поле
+public class CsvSink implements RowSink {
+    private final Writer out;
+
+    public CsvSink(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void start(List<String> columns) throws IOException {
+        writeRecord(columns.toArray());
+    }
+
+    @Override
+    public void row(Object[] values) throws IOException {
+        writeRecord(values);
+    }
+
+    @Override
+    public void finish(long rowCount) throws IOException {
+        out.flush();
+    }
+
+    private void writeRecord(Object[] values) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            String text = RowSink.toText(values[i]);
+            if (text != null) {
+                out.write(quote(text));
+            }
+        }
+        out.write("\r\n");
+    }
+
+    private static String quote(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return '"' + text.replace("\"", "\"\"") + '"';
+            }
+        }
+        return text;
+    }
+}
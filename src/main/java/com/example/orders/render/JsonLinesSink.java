@@ -0,0 +1,76 @@
+package com.example.orders.render;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+// Один JSON-объект на строку: {"колонка": значение, ...}. Числа и логические значения без кавычек.
+public class JsonLinesSink implements RowSink {
+    private final Writer out;
+    private String[] keys;
+
+    public JsonLinesSink(Writer out) {
+        this.out = out;
+    }
+
+    @Override
+    public void start(List<String> columns) {
+        keys = new String[columns.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = quote(columns.get(i)) + ":";
+        }
+    }
+
+    @Override
+    public void row(Object[] values) throws IOException {
+        StringBuilder line = new StringBuilder("{");
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                line.append(',');
+            }
+            line.append(keys[i]);
+
+            Object value = values[i];
+            if (value == null) {
+                line.append("null");
+            } else if (value instanceof Boolean || value instanceof Number && isFinite((Number) value)) {
+                line.append(value);
+            } else {
+                line.append(quote(RowSink.toText(value)));
+            }
+        }
+        out.append(line).append("}\n");
+    }
+
+    @Override
+    public void finish(long rowCount) throws IOException {
+        out.flush();
+    }
+
+    // NaN и бесконечность в JSON не представимы числом - пишутся строкой
+    private static boolean isFinite(Number number) {
+        return !(number instanceof Double || number instanceof Float) || Double.isFinite(number.doubleValue());
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
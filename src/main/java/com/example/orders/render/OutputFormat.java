@@ -0,0 +1,24 @@
+package com.example.orders.render;
+
+import java.io.Writer;
+import java.util.Locale;
+
+public enum OutputFormat {
+    TABLE,
+    CSV,
+    JSON_LINES;
+
+    public RowSink createSink(Writer out) {
+        return switch (this) {
+            case TABLE -> new TableSink(out);
+            case CSV -> new CsvSink(out);
+            case JSON_LINES -> new JsonLinesSink(out);
+        };
+    }
+
+    // "table", "csv", "jsonl" / "json_lines"
+    public static OutputFormat parse(String value) {
+        String normalized = value.trim().toUpperCase(Locale.ROOT).replace('-', '_');
+        return "JSONL".equals(normalized) ? JSON_LINES : valueOf(normalized);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.orders.render;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+// Выполняет произвольный SELECT серверным курсором и передает строки в RowSink по мере чтения.
+// В памяти одновременно не больше fetchSize строк результата плюс то, что держит сам приемник.
+public class ResultStreamer {
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private final int fetchSize;
+
+    public ResultStreamer() {
+        this(DEFAULT_FETCH_SIZE);
+    }
+
+    public ResultStreamer(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public long stream(Connection connection, String sql, RowSink sink) throws SQLException {
+        return stream(connection, sql, sink, Long.MAX_VALUE);
+    }
+
+    // maxRows ограничивает вывод; остальные строки не читаются из базы. Возвращает число переданных строк.
+    public long stream(Connection connection, String sql, RowSink sink, long maxRows) throws SQLException {
+        // Драйвер PostgreSQL использует курсор только внутри транзакции
+        boolean autoCommit = connection.getAutoCommit();
+        if (autoCommit) {
+            connection.setAutoCommit(false);
+        }
+
+        long count = 0;
+        try (Statement statement = connection.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize((int) Math.min(fetchSize, maxRows));
+
+            try (ResultSet resultSet = statement.executeQuery(sql)) {
+                ResultSetMetaData metaData = resultSet.getMetaData();
+                int columnCount = metaData.getColumnCount();
+
+                List<String> columns = new ArrayList<>(columnCount);
+                for (int i = 1; i <= columnCount; i++) {
+                    columns.add(metaData.getColumnLabel(i));
+                }
+                sink.start(columns);
+
+                while (count < maxRows && resultSet.next()) {
+                    Object[] values = new Object[columnCount];
+                    for (int i = 0; i < columnCount; i++) {
+                        values[i] = resultSet.getObject(i + 1);
+                    }
+                    sink.row(values);
+                    count++;
+                }
+                sink.finish(count);
+            }
+
+            if (autoCommit) {
+                connection.commit();
+            }
+        } catch (IOException e) {
+            if (autoCommit) {
+                connection.rollback();
+            }
+            throw new UncheckedIOException("Ошибка записи результата запроса", e);
+        } catch (SQLException | RuntimeException e) {
+            if (autoCommit) {
+                connection.rollback();
+            }
+            throw e;
+        } finally {
+            if (autoCommit) {
+                connection.setAutoCommit(true);
+            }
+        }
+        return count;
+    }
+}
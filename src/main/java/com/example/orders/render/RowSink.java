@@ -0,0 +1,27 @@
+package com.example.orders.render;
+
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.List;
+
+// Приемник строк результата: получает строки по одной по мере чтения курсора
+public interface RowSink {
+    void start(List<String> columns) throws IOException;
+
+    void row(Object[] values) throws IOException;
+
+    // Дописывает хвост вывода и сбрасывает буфер; поток не закрывается
+    void finish(long rowCount) throws IOException;
+
+    // Текстовое представление значения; дата и время без долей секунды
+    static String toText(Object value) {
+        if (value == null) {
+            return null;
+        }
+        String text = value.toString();
+        if (value instanceof Timestamp && text.length() > 19) {
+            return text.substring(0, 19);
+        }
+        return text;
+    }
+}
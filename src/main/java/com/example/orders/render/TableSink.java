@@ -0,0 +1,115 @@
+package com.example.orders.render;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+// Таблица в рамке. Ширина колонок считается по первым sampleSize строкам, дальше строки
+// выводятся сразу с обрезкой длинных значений, поэтому в памяти не больше sampleSize строк.
+public class TableSink implements RowSink {
+    public static final int DEFAULT_SAMPLE_SIZE = 200;
+
+    private final Writer out;
+    private final int sampleSize;
+    private final List<String[]> sample = new ArrayList<>();
+    private List<String> columns;
+    private int[] widths;
+
+    public TableSink(Writer out) {
+        this(out, DEFAULT_SAMPLE_SIZE);
+    }
+
+    public TableSink(Writer out, int sampleSize) {
+        this.out = out;
+        this.sampleSize = sampleSize;
+    }
+
+    @Override
+    public void start(List<String> columns) {
+        this.columns = columns;
+    }
+
+    @Override
+    public void row(Object[] values) throws IOException {
+        String[] row = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            String text = RowSink.toText(values[i]);
+            row[i] = text != null ? text : "NULL";
+        }
+
+        if (widths != null) {
+            writeRow(row);
+            return;
+        }
+        sample.add(row);
+        if (sample.size() >= sampleSize) {
+            flushSample();
+        }
+    }
+
+    @Override
+    public void finish(long rowCount) throws IOException {
+        if (widths == null) {
+            flushSample();
+        }
+        writeBorder("└", "┴", "┘");
+        out.flush();
+    }
+
+    private void flushSample() throws IOException {
+        widths = new int[columns.size()];
+        for (int i = 0; i < widths.length; i++) {
+            int maxWidth = columns.get(i).length();
+            for (String[] row : sample) {
+                maxWidth = Math.max(maxWidth, row[i].length());
+            }
+            widths[i] = Math.max(maxWidth, 8) + 2;
+        }
+
+        writeBorder("┌", "┬", "┐");
+        StringBuilder headerLine = new StringBuilder("│");
+        for (int i = 0; i < widths.length; i++) {
+            headerLine.append(" ").append(padCenter(columns.get(i), widths[i])).append(" │");
+        }
+        writeLine(headerLine);
+        writeBorder("├", "┼", "┤");
+
+        for (String[] row : sample) {
+            writeRow(row);
+        }
+        sample.clear();
+    }
+
+    private void writeRow(String[] row) throws IOException {
+        StringBuilder dataLine = new StringBuilder("│");
+        for (int i = 0; i < row.length; i++) {
+            dataLine.append(" ").append(padRight(row[i], widths[i])).append(" │");
+        }
+        writeLine(dataLine);
+    }
+
+    private void writeBorder(String left, String middle, String right) throws IOException {
+        StringBuilder border = new StringBuilder(left);
+        for (int i = 0; i < widths.length; i++) {
+            border.append("─".repeat(widths[i] + 2));
+            border.append(i < widths.length - 1 ? middle : right);
+        }
+        writeLine(border);
+    }
+
+    private void writeLine(CharSequence line) throws IOException {
+        out.append(line).append(System.lineSeparator());
+    }
+
+    private static String padRight(String s, int length) {
+        return s.length() > length ? s.substring(0, length - 3) + "..." :
+                String.format("%-" + length + "s", s);
+    }
+
+    private static String padCenter(String s, int length) {
+        if (s.length() >= length) return s.substring(0, length);
+        int padding = length - s.length();
+        return " ".repeat(padding / 2) + s + " ".repeat(padding - padding / 2);
+    }
+}
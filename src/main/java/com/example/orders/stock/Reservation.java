@@ -0,0 +1,41 @@
+package com.example.orders.stock;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+public class Reservation {
+    public enum State { PENDING, CONFIRMED, RELEASED }
+
+    private final long id;
+    private final long productId;
+    private final int quantity;
+    private final long createdAt;
+    private final boolean tracked;
+    private final AtomicReference<State> state = new AtomicReference<>(State.PENDING);
+
+    Reservation(long id, long productId, int quantity, boolean tracked) {
+        this.id = id;
+        this.productId = productId;
+        this.quantity = quantity;
+        this.createdAt = System.currentTimeMillis();
+        this.tracked = tracked;
+    }
+
+    // Переход из PENDING выполняется ровно один раз
+    boolean complete(State target) {
+        return state.compareAndSet(State.PENDING, target);
+    }
+
+    public long getId() { return id; }
+    public long getProductId() { return productId; }
+    public int getQuantity() { return quantity; }
+    public long getCreatedAt() { return createdAt; }
+    // false - товар не был известен реестру, количество взято без учета в памяти
+    boolean isTracked() { return tracked; }
+    public State getState() { return state.get(); }
+
+    @Override
+    public String toString() {
+        return String.format("Reservation{id=%d, productId=%d, quantity=%d, state=%s}",
+                id, productId, quantity, state.get());
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.orders.stock;
+
+import com.example.orders.pool.ConnectionSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Остатки товаров в памяти: доступное количество = products.quantity минус неподтвержденные резервы.
+// Резерв берется атомарно без обращения к базе, поэтому заказы на распроданные товары отклоняются сразу.
+// Окончательную проверку по-прежнему делает условный UPDATE в базе, а периодическая сверка
+// исправляет расхождения (записи других узлов, откаченные транзакции, брошенные резервы).
+public class StockLedger implements AutoCloseable {
+    private static final long LOCAL_WRITE_WINDOW_MS = 1_000;
+
+    private final Map<Long, ProductStock> stocks = new ConcurrentHashMap<>();
+    private final Map<Long, Reservation> pending = new ConcurrentHashMap<>();
+    private final AtomicLong reservationIds = new AtomicLong();
+    private final long reservationTimeoutMs;
+
+    private final LongAdder reserved = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    private ScheduledExecutorService reconciler;
+
+    public StockLedger(long reservationTimeoutMs) {
+        this.reservationTimeoutMs = reservationTimeoutMs;
+    }
+
+    public void load(Connection connection) throws SQLException {
+        reconcile(connection);
+    }
+
+    // null, если товара не хватает. Товар, неизвестный реестру (создан после последней сверки),
+    // не отклоняется: резерв выдается без учета в памяти, проверку делает условный UPDATE в базе
+    public Reservation tryReserve(long productId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Количество должно быть положительным: " + quantity);
+        }
+
+        ProductStock stock = stocks.get(productId);
+        if (stock != null && !stock.take(quantity)) {
+            rejected.increment();
+            return null;
+        }
+
+        Reservation reservation = new Reservation(reservationIds.incrementAndGet(), productId, quantity, stock != null);
+        pending.put(reservation.getId(), reservation);
+        reserved.increment();
+        return reservation;
+    }
+
+    // Вызывается после фиксации списания в базе: резерв превращается в уменьшение остатка
+    public void confirm(Reservation reservation) {
+        if (reservation.complete(Reservation.State.CONFIRMED)) {
+            pending.remove(reservation.getId());
+            ProductStock stock = stocks.get(reservation.getProductId());
+            if (stock != null) {
+                stock.confirm(reservation);
+            }
+        }
+    }
+
+    // Заказ не состоялся: количество возвращается в доступный остаток
+    public void release(Reservation reservation) {
+        if (reservation.complete(Reservation.State.RELEASED)) {
+            pending.remove(reservation.getId());
+            ProductStock stock = stocks.get(reservation.getProductId());
+            if (stock != null) {
+                stock.release(reservation);
+            }
+        }
+    }
+
+    public int getAvailable(long productId) {
+        ProductStock stock = stocks.get(productId);
+        return stock != null ? stock.getAvailable() : 0;
+    }
+
+    public boolean isSoldOut(long productId) {
+        return getAvailable(productId) <= 0;
+    }
+
+    public long getReservedCount() { return reserved.sum(); }
+    public long getRejectedCount() { return rejected.sum(); }
+    public int getPendingCount() { return pending.size(); }
+
+    // Сверка с базой: просроченные резервы снимаются, доступный остаток пересчитывается от products.quantity
+    public void reconcile(Connection connection) throws SQLException {
+        releaseExpired();
+
+        Set<Long> seen = new HashSet<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT id, quantity FROM products")) {
+            while (resultSet.next()) {
+                long productId = resultSet.getLong("id");
+                seen.add(productId);
+                stocks.computeIfAbsent(productId, id -> new ProductStock()).reconcile(resultSet.getInt("quantity"));
+            }
+        }
+        stocks.keySet().retainAll(seen);
+    }
+
+    // Сверка только перечисленных товаров (уведомление об изменении с другого узла). Товары, которые
+    // этот узел сам списывал последние LOCAL_WRITE_WINDOW_MS, пропускаются: уведомление пришло
+    // о собственном списании, а учет в памяти уже его содержит. Чужие изменения тех же товаров
+    // в это окно подберет периодическая сверка.
+    public void reconcile(Connection connection, Collection<Long> productIds) throws SQLException {
+        long localWritesAfter = System.currentTimeMillis() - LOCAL_WRITE_WINDOW_MS;
+        List<Long> ids = new ArrayList<>();
+        for (Long productId : productIds) {
+            ProductStock stock = stocks.get(productId);
+            if (stock == null || stock.getLastLocalWriteAt() < localWritesAfter) {
+                ids.add(productId);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+
+        Set<Long> seen = new HashSet<>();
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT id, quantity FROM products WHERE id = ANY(?)")) {
+            statement.setArray(1, connection.createArrayOf("bigint", ids.toArray()));
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    long productId = resultSet.getLong("id");
+                    seen.add(productId);
+                    stocks.computeIfAbsent(productId, id -> new ProductStock()).reconcile(resultSet.getInt("quantity"));
+                }
+            }
+        }
+        for (Long productId : ids) {
+            if (!seen.contains(productId)) {
+                stocks.remove(productId);
+            }
+        }
+    }
+
+    private void releaseExpired() {
+        long expiredBefore = System.currentTimeMillis() - reservationTimeoutMs;
+        for (Reservation reservation : pending.values()) {
+            if (reservation.getCreatedAt() < expiredBefore) {
+                release(reservation);
+            }
+        }
+    }
+
+    public synchronized void startReconciliation(ConnectionSource source, long intervalMs) {
+        if (reconciler != null) {
+            return;
+        }
+        reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "stock-ledger-reconcile");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciler.scheduleWithFixedDelay(() -> {
+            try (Connection connection = source.getConnection()) {
+                reconcile(connection);
+            } catch (SQLException e) {
+                System.err.println("⚠️  Не удалось сверить остатки товаров: " + e.getMessage());
+            }
+        }, intervalMs, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (reconciler != null) {
+            reconciler.shutdownNow();
+            reconciler = null;
+        }
+    }
+
+    // Все изменения остатка одного товара - под его монитором: сверка не может затереть
+    // параллельный take/confirm/release. Резервы, выданные до появления товара в реестре
+    // (tracked=false), в pending не учитывались: их списание учтет следующая сверка.
+    private static class ProductStock {
+        private int available;
+        private int pending;
+        private long lastLocalWriteAt;
+
+        synchronized boolean take(int quantity) {
+            if (available < quantity) {
+                return false;
+            }
+            available -= quantity;
+            pending += quantity;
+            return true;
+        }
+
+        synchronized void confirm(Reservation reservation) {
+            if (reservation.isTracked()) {
+                pending -= reservation.getQuantity();
+            }
+            lastLocalWriteAt = System.currentTimeMillis();
+        }
+
+        synchronized void release(Reservation reservation) {
+            if (reservation.isTracked()) {
+                pending -= reservation.getQuantity();
+                available += reservation.getQuantity();
+            }
+        }
+
+        // Списание, подтвержденное после чтения quantity, может еще не входить в прочитанное значение:
+        // тогда остаток временно завышен, и лишний заказ отклонит условный UPDATE в базе
+        synchronized void reconcile(int quantity) {
+            available = quantity - pending;
+        }
+
+        synchronized int getAvailable() {
+            return available;
+        }
+
+        synchronized long getLastLocalWriteAt() {
+            return lastLocalWriteAt;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+-- Архив заказов, перенесенных OrderArchiver из orders. Внешних ключей нет: архив не должен
+-- мешать удалению товаров и покупателей.
+CREATE TABLE IF NOT EXISTS orders_archive (
+    id INT NOT NULL,
+    product_id INT NOT NULL,
+    customer_id INT NOT NULL,
+    order_date TIMESTAMP NOT NULL,
+    quantity INT NOT NULL,
+    status_id INT NOT NULL,
+    archived_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (id, order_date)
+);
+
+-- Позиция архивации (ключ (order_date, id) последней перенесенной строки): прерванный прогон
+-- продолжается с нее, после завершения прогона позиция сбрасывается
+CREATE TABLE IF NOT EXISTS archive_checkpoints (
+    job_name VARCHAR(100) PRIMARY KEY,
+    last_order_date TIMESTAMP,
+    last_id INT,
+    archived_rows BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+COMMENT ON TABLE orders_archive IS 'Архив старых заказов';
+COMMENT ON TABLE archive_checkpoints IS 'Позиции фоновой архивации заказов';
+
+-- Агрегаты продаж - история: заказ, ушедший из orders по сроку хранения, в них остается.
+-- Отключение секции (PartitionManager) триггеры не вызывает, а архиватор удаляет строки
+-- обычным DELETE и помечает свою транзакцию SET LOCAL orders.retention = 'on', чтобы триггер
+-- агрегатов пропустил это удаление. Остальные удаления по-прежнему вычитаются.
+CREATE OR REPLACE FUNCTION orders_sales_rollup_trigger() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM apply_sales_rollup_delta(ARRAY(
+            SELECT ROW(n.order_date, n.product_id, n.customer_id, n.status_id, n.quantity, 1)::sales_rollup_delta
+            FROM new_rows n));
+    ELSIF TG_OP = 'DELETE' THEN
+        IF current_setting('orders.retention', true) = 'on' THEN
+            RETURN NULL;
+        END IF;
+        PERFORM apply_sales_rollup_delta(ARRAY(
+            SELECT ROW(o.order_date, o.product_id, o.customer_id, o.status_id, o.quantity, -1)::sales_rollup_delta
+            FROM old_rows o));
+    ELSE
+        PERFORM apply_sales_rollup_delta(ARRAY(
+            SELECT ROW(n.order_date, n.product_id, n.customer_id, n.status_id, n.quantity, 1)::sales_rollup_delta
+            FROM new_rows n
+            UNION ALL
+            SELECT ROW(o.order_date, o.product_id, o.customer_id, o.status_id, o.quantity, -1)::sales_rollup_delta
+            FROM old_rows o));
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,7 @@
+-- Отпечаток набора скриптов миграций (SHA-256 по именам и содержимому), с которым схема последний раз
+-- успешно прошла Flyway. Совпадение при запуске - быстрый путь: только validate(), без migrate().
+CREATE TABLE IF NOT EXISTS schema_fingerprint (
+    id INT PRIMARY KEY CHECK (id = 1),
+    fingerprint TEXT NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
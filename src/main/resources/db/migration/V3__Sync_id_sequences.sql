@@ -0,0 +1,5 @@
+-- Тестовые данные вставляются с явными id, поэтому последовательности SERIAL нужно сдвинуть за максимальный id
+SELECT setval(pg_get_serial_sequence('order_status', 'id'), COALESCE((SELECT MAX(id) FROM order_status), 0) + 1, false);
+SELECT setval(pg_get_serial_sequence('products', 'id'), COALESCE((SELECT MAX(id) FROM products), 0) + 1, false);
+SELECT setval(pg_get_serial_sequence('customer', 'id'), COALESCE((SELECT MAX(id) FROM customer), 0) + 1, false);
+SELECT setval(pg_get_serial_sequence('orders', 'id'), COALESCE((SELECT MAX(id) FROM orders), 0) + 1, false);
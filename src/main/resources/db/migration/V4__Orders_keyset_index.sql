@@ -0,0 +1,4 @@
+-- Составной индекс для постраничного чтения заказов по ключу (order_date, id);
+-- он же покрывает все запросы, которые раньше использовали idx_orders_order_date
+DROP INDEX IF EXISTS idx_orders_order_date;
+CREATE INDEX IF NOT EXISTS idx_orders_order_date_id ON orders (order_date, id);
@@ -0,0 +1,134 @@
+-- Инкрементальные агрегаты продаж. Хранится количество заказов и единиц товара, а не сумма:
+-- сумма считается при чтении по текущей цене товара, как в запросах 3 и 5, поэтому
+-- изменение цены не требует пересчета агрегатов.
+CREATE TABLE IF NOT EXISTS sales_daily_rollup (
+    sales_date DATE NOT NULL,
+    product_id INT NOT NULL,
+    status_id INT NOT NULL,
+    order_count BIGINT NOT NULL,
+    units BIGINT NOT NULL,
+    PRIMARY KEY (sales_date, product_id, status_id)
+);
+
+CREATE TABLE IF NOT EXISTS sales_monthly_rollup (
+    sales_month DATE NOT NULL,
+    product_id INT NOT NULL,
+    status_id INT NOT NULL,
+    order_count BIGINT NOT NULL,
+    units BIGINT NOT NULL,
+    PRIMARY KEY (sales_month, product_id, status_id)
+);
+
+CREATE TABLE IF NOT EXISTS sales_customer_rollup (
+    customer_id INT NOT NULL,
+    product_id INT NOT NULL,
+    status_id INT NOT NULL,
+    order_count BIGINT NOT NULL,
+    units BIGINT NOT NULL,
+    PRIMARY KEY (customer_id, product_id, status_id)
+);
+
+COMMENT ON TABLE sales_daily_rollup IS 'Заказы по дням, товарам и статусам';
+COMMENT ON TABLE sales_monthly_rollup IS 'Заказы по месяцам (первое число месяца), товарам и статусам';
+COMMENT ON TABLE sales_customer_rollup IS 'Заказы по покупателям, товарам и статусам';
+
+-- Одна изменившаяся строка заказа: sign = 1 для новой версии, -1 для старой
+CREATE TYPE sales_rollup_delta AS (
+    order_date TIMESTAMP,
+    product_id INT,
+    customer_id INT,
+    status_id INT,
+    quantity INT,
+    sign INT
+);
+
+-- Строки сначала сворачиваются по ключу агрегата, поэтому пачка из тысячи заказов
+-- обновляет каждую строку агрегата один раз. ORDER BY задает общий порядок блокировок.
+CREATE OR REPLACE FUNCTION apply_sales_rollup_delta(deltas sales_rollup_delta[]) RETURNS void AS $$
+BEGIN
+    INSERT INTO sales_daily_rollup AS r (sales_date, product_id, status_id, order_count, units)
+    SELECT d.order_date::date, d.product_id, d.status_id, SUM(d.sign), SUM(d.sign * d.quantity)
+    FROM unnest(deltas) d
+    GROUP BY 1, 2, 3
+    HAVING SUM(d.sign) <> 0 OR SUM(d.sign * d.quantity) <> 0
+    ORDER BY 1, 2, 3
+    ON CONFLICT (sales_date, product_id, status_id) DO UPDATE
+    SET order_count = r.order_count + EXCLUDED.order_count,
+        units = r.units + EXCLUDED.units;
+
+    INSERT INTO sales_monthly_rollup AS r (sales_month, product_id, status_id, order_count, units)
+    SELECT date_trunc('month', d.order_date)::date, d.product_id, d.status_id, SUM(d.sign), SUM(d.sign * d.quantity)
+    FROM unnest(deltas) d
+    GROUP BY 1, 2, 3
+    HAVING SUM(d.sign) <> 0 OR SUM(d.sign * d.quantity) <> 0
+    ORDER BY 1, 2, 3
+    ON CONFLICT (sales_month, product_id, status_id) DO UPDATE
+    SET order_count = r.order_count + EXCLUDED.order_count,
+        units = r.units + EXCLUDED.units;
+
+    INSERT INTO sales_customer_rollup AS r (customer_id, product_id, status_id, order_count, units)
+    SELECT d.customer_id, d.product_id, d.status_id, SUM(d.sign), SUM(d.sign * d.quantity)
+    FROM unnest(deltas) d
+    GROUP BY 1, 2, 3
+    HAVING SUM(d.sign) <> 0 OR SUM(d.sign * d.quantity) <> 0
+    ORDER BY 1, 2, 3
+    ON CONFLICT (customer_id, product_id, status_id) DO UPDATE
+    SET order_count = r.order_count + EXCLUDED.order_count,
+        units = r.units + EXCLUDED.units;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Триггер уровня оператора: INSERT ... SELECT, DELETE по условию и UPDATE многих строк
+-- обрабатываются одним вызовом через таблицы переходов
+CREATE OR REPLACE FUNCTION orders_sales_rollup_trigger() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM apply_sales_rollup_delta(ARRAY(
+            SELECT ROW(n.order_date, n.product_id, n.customer_id, n.status_id, n.quantity, 1)::sales_rollup_delta
+            FROM new_rows n));
+    ELSIF TG_OP = 'DELETE' THEN
+        PERFORM apply_sales_rollup_delta(ARRAY(
+            SELECT ROW(o.order_date, o.product_id, o.customer_id, o.status_id, o.quantity, -1)::sales_rollup_delta
+            FROM old_rows o));
+    ELSE
+        PERFORM apply_sales_rollup_delta(ARRAY(
+            SELECT ROW(n.order_date, n.product_id, n.customer_id, n.status_id, n.quantity, 1)::sales_rollup_delta
+            FROM new_rows n
+            UNION ALL
+            SELECT ROW(o.order_date, o.product_id, o.customer_id, o.status_id, o.quantity, -1)::sales_rollup_delta
+            FROM old_rows o));
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER orders_sales_rollup_insert
+    AFTER INSERT ON orders
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION orders_sales_rollup_trigger();
+
+CREATE TRIGGER orders_sales_rollup_update
+    AFTER UPDATE ON orders
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION orders_sales_rollup_trigger();
+
+CREATE TRIGGER orders_sales_rollup_delete
+    AFTER DELETE ON orders
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION orders_sales_rollup_trigger();
+
+-- Начальное заполнение по уже существующим заказам
+INSERT INTO sales_daily_rollup (sales_date, product_id, status_id, order_count, units)
+SELECT order_date::date, product_id, status_id, COUNT(*), SUM(quantity)
+FROM orders
+GROUP BY 1, 2, 3;
+
+INSERT INTO sales_monthly_rollup (sales_month, product_id, status_id, order_count, units)
+SELECT date_trunc('month', order_date)::date, product_id, status_id, COUNT(*), SUM(quantity)
+FROM orders
+GROUP BY 1, 2, 3;
+
+INSERT INTO sales_customer_rollup (customer_id, product_id, status_id, order_count, units)
+SELECT customer_id, product_id, status_id, COUNT(*), SUM(quantity)
+FROM orders
+GROUP BY 1, 2, 3;
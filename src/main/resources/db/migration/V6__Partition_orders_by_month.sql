@@ -0,0 +1,135 @@
+-- Таблица orders секционируется по месяцам order_date. Запросы по диапазону дат читают только
+-- нужные секции, а устаревшие секции удаляются целиком (PartitionManager) вместо DELETE.
+-- Первичный ключ секционированной таблицы обязан включать ключ секционирования,
+-- уникальность id по-прежнему обеспечивает последовательность orders_id_seq.
+
+ALTER TABLE orders RENAME TO orders_legacy;
+ALTER TABLE orders_legacy RENAME CONSTRAINT orders_pkey TO orders_legacy_pkey;
+DROP INDEX IF EXISTS idx_orders_product_id;
+DROP INDEX IF EXISTS idx_orders_customer_id;
+DROP INDEX IF EXISTS idx_orders_order_date;
+DROP INDEX IF EXISTS idx_orders_order_date_id;
+DROP INDEX IF EXISTS idx_orders_status_id;
+
+CREATE TABLE orders (
+    id INT NOT NULL DEFAULT nextval('orders_id_seq'),
+    product_id INT NOT NULL,
+    customer_id INT NOT NULL,
+    order_date TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    quantity INT NOT NULL CHECK (quantity > 0),
+    status_id INT NOT NULL,
+    PRIMARY KEY (id, order_date),
+    FOREIGN KEY (product_id) REFERENCES products (id) ON DELETE RESTRICT,
+    FOREIGN KEY (customer_id) REFERENCES customer (id) ON DELETE RESTRICT,
+    FOREIGN KEY (status_id) REFERENCES order_status (id) ON DELETE RESTRICT
+) PARTITION BY RANGE (order_date);
+
+-- Последовательность переходит к новой таблице: pg_get_serial_sequence('orders', 'id') продолжает работать
+ALTER SEQUENCE orders_id_seq OWNED BY orders.id;
+
+COMMENT ON TABLE orders IS 'Таблица заказов (секции по месяцам order_date)';
+COMMENT ON COLUMN orders.id IS 'Уникальный идентификатор заказа';
+COMMENT ON COLUMN orders.product_id IS 'Идентификатор товара (внешний ключ)';
+COMMENT ON COLUMN orders.customer_id IS 'Идентификатор покупателя (внешний ключ)';
+COMMENT ON COLUMN orders.order_date IS 'Дата и время заказа';
+COMMENT ON COLUMN orders.quantity IS 'Количество заказанного товара';
+COMMENT ON COLUMN orders.status_id IS 'Идентификатор статуса заказа (внешний ключ)';
+
+-- Секции orders_pYYYY_MM от месяца самого старого заказа до трех месяцев вперед;
+-- строки вне существующих секций попадают в orders_default
+DO $$
+DECLARE
+    month_start DATE := COALESCE(date_trunc('month', (SELECT MIN(order_date) FROM orders_legacy)),
+                                 date_trunc('month', CURRENT_DATE))::date;
+    last_month DATE := (date_trunc('month', CURRENT_DATE) + INTERVAL '3 months')::date;
+BEGIN
+    WHILE month_start <= last_month LOOP
+        EXECUTE format('CREATE TABLE IF NOT EXISTS %I PARTITION OF orders FOR VALUES FROM (%L) TO (%L)',
+                       'orders_p' || to_char(month_start, 'YYYY_MM'),
+                       month_start, (month_start + INTERVAL '1 month')::date);
+        month_start := (month_start + INTERVAL '1 month')::date;
+    END LOOP;
+END;
+$$;
+
+CREATE TABLE IF NOT EXISTS orders_default PARTITION OF orders DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_orders_product_id ON orders (product_id);
+CREATE INDEX IF NOT EXISTS idx_orders_customer_id ON orders (customer_id);
+CREATE INDEX IF NOT EXISTS idx_orders_order_date_id ON orders (order_date, id);
+CREATE INDEX IF NOT EXISTS idx_orders_status_id ON orders (status_id);
+
+-- Триггеры агрегатов создаются после переноса: агрегаты уже учитывают эти заказы
+INSERT INTO orders (id, product_id, customer_id, order_date, quantity, status_id)
+SELECT id, product_id, customer_id, order_date, quantity, status_id
+FROM orders_legacy;
+
+DROP TABLE orders_legacy;
+
+-- Поиск заказа только по id просматривал бы все секции: id не входит в ключ секционирования.
+-- Несекционированная таблица id -> order_date дает дату, по которой отсекаются лишние секции
+-- (OrderDAO.updateStatus, delete и пакетные варианты). Первичный ключ здесь заодно проверяет
+-- уникальность id во всей таблице orders, чего не может ключ (id, order_date).
+CREATE TABLE order_locator (
+    id INT PRIMARY KEY,
+    order_date TIMESTAMP NOT NULL
+);
+
+-- Для порционной очистки месяца, выведенного PartitionManager
+CREATE INDEX IF NOT EXISTS idx_order_locator_order_date ON order_locator (order_date);
+
+COMMENT ON TABLE order_locator IS 'Дата каждого заказа по id - для отсечения секций orders';
+
+INSERT INTO order_locator (id, order_date)
+SELECT id, order_date FROM orders;
+
+CREATE OR REPLACE FUNCTION orders_locator_trigger() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO order_locator (id, order_date)
+        SELECT id, order_date FROM new_rows;
+    ELSIF TG_OP = 'UPDATE' THEN
+        -- Меняется только при переносе заказа на другую дату
+        UPDATE order_locator l
+        SET order_date = n.order_date
+        FROM new_rows n
+        JOIN old_rows o ON o.id = n.id
+        WHERE l.id = n.id AND n.order_date IS DISTINCT FROM o.order_date;
+    ELSE
+        DELETE FROM order_locator l
+        USING old_rows o
+        WHERE l.id = o.id;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER orders_locator_insert
+    AFTER INSERT ON orders
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION orders_locator_trigger();
+
+CREATE TRIGGER orders_locator_update
+    AFTER UPDATE ON orders
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION orders_locator_trigger();
+
+CREATE TRIGGER orders_locator_delete
+    AFTER DELETE ON orders
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION orders_locator_trigger();
+
+CREATE TRIGGER orders_sales_rollup_insert
+    AFTER INSERT ON orders
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION orders_sales_rollup_trigger();
+
+CREATE TRIGGER orders_sales_rollup_update
+    AFTER UPDATE ON orders
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION orders_sales_rollup_trigger();
+
+CREATE TRIGGER orders_sales_rollup_delete
+    AFTER DELETE ON orders
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION orders_sales_rollup_trigger();
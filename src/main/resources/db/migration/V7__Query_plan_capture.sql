@@ -0,0 +1,43 @@
+-- Сохраненные планы тестовых запросов: один прогон - набор планов EXPLAIN (ANALYZE, BUFFERS).
+-- Прогон с is_baseline = true служит эталоном для поиска регрессий планов.
+CREATE TABLE IF NOT EXISTS query_plan_runs (
+    id SERIAL PRIMARY KEY,
+    label VARCHAR(100) NOT NULL,
+    captured_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    is_baseline BOOLEAN NOT NULL DEFAULT FALSE
+);
+
+CREATE TABLE IF NOT EXISTS query_plans (
+    run_id INT NOT NULL REFERENCES query_plan_runs (id) ON DELETE CASCADE,
+    query_hash CHAR(64) NOT NULL,
+    query_number INT NOT NULL,
+    query_text TEXT NOT NULL,
+    plan JSONB NOT NULL,
+    planning_ms DOUBLE PRECISION NOT NULL,
+    execution_ms DOUBLE PRECISION NOT NULL,
+    shared_hit_blocks BIGINT NOT NULL,
+    shared_read_blocks BIGINT NOT NULL,
+    seq_scan_relations TEXT[] NOT NULL,
+    PRIMARY KEY (run_id, query_hash)
+);
+
+-- Прирост счетчиков pg_stat_statements за время прогона (если расширение установлено):
+-- сами счетчики накопительные, сравнивать их между прогонами нельзя
+CREATE TABLE IF NOT EXISTS query_stat_snapshots (
+    run_id INT NOT NULL REFERENCES query_plan_runs (id) ON DELETE CASCADE,
+    queryid BIGINT NOT NULL,
+    query TEXT NOT NULL,
+    calls BIGINT NOT NULL,
+    total_exec_ms DOUBLE PRECISION NOT NULL,
+    mean_exec_ms DOUBLE PRECISION NOT NULL,
+    rows BIGINT NOT NULL,
+    shared_blks_hit BIGINT NOT NULL,
+    shared_blks_read BIGINT NOT NULL,
+    PRIMARY KEY (run_id, queryid)
+);
+
+CREATE INDEX IF NOT EXISTS idx_query_plan_runs_baseline ON query_plan_runs (captured_at) WHERE is_baseline;
+
+COMMENT ON TABLE query_plan_runs IS 'Прогоны захвата планов тестовых запросов';
+COMMENT ON TABLE query_plans IS 'Планы EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) по прогонам';
+COMMENT ON TABLE query_stat_snapshots IS 'Прирост pg_stat_statements за каждый прогон';
@@ -0,0 +1,149 @@
+-- Готовый к показу список заказов: поля покупателя, товара и статуса хранятся рядом с заказом,
+-- поэтому "последние заказы" и заказы покупателя читаются без соединения четырех таблиц.
+-- Таблицу синхронно поддерживают триггеры на orders и справочниках, включая прямые SQL-изменения.
+CREATE TABLE IF NOT EXISTS order_listing (
+    id INT PRIMARY KEY,
+    order_date TIMESTAMP NOT NULL,
+    product_id INT NOT NULL,
+    customer_id INT NOT NULL,
+    status_id INT NOT NULL,
+    quantity INT NOT NULL,
+    first_name VARCHAR(50) NOT NULL,
+    last_name VARCHAR(50) NOT NULL,
+    product_description TEXT NOT NULL,
+    price DECIMAL(10, 2) NOT NULL,
+    status_name VARCHAR(50) NOT NULL,
+    customer_name TEXT GENERATED ALWAYS AS (first_name || ' ' || last_name) STORED,
+    -- Без ограничения точности, как p.price * o.quantity в отчетах: DECIMAL(10,2) * INT не переполняется
+    total_amount NUMERIC GENERATED ALWAYS AS (price * quantity) STORED
+);
+
+CREATE INDEX IF NOT EXISTS idx_order_listing_latest ON order_listing (order_date DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_order_listing_customer ON order_listing (customer_id, order_date DESC, id DESC);
+-- Для триггеров справочников: переименование товара или статуса обновляет только его заказы
+CREATE INDEX IF NOT EXISTS idx_order_listing_product ON order_listing (product_id);
+CREATE INDEX IF NOT EXISTS idx_order_listing_status ON order_listing (status_id);
+
+COMMENT ON TABLE order_listing IS 'Денормализованный список заказов для экранов списка';
+COMMENT ON COLUMN order_listing.total_amount IS 'Сумма заказа по текущей цене товара';
+
+-- Справочники читаются без блокировки строк: FOR SHARE на товаре конфликтовал бы со списанием остатка
+-- (UPDATE products SET quantity) и выстраивал заказы популярного товара в очередь. От удаления строки
+-- справочников и так защищает проверка внешних ключей orders (FOR KEY SHARE); изменения отображаемых
+-- полей переносят в список триггеры справочников ниже.
+CREATE OR REPLACE FUNCTION orders_listing_trigger() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        DELETE FROM order_listing l
+        USING old_rows o
+        WHERE l.id = o.id;
+    END IF;
+
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO order_listing (id, order_date, product_id, customer_id, status_id, quantity,
+                                   first_name, last_name, product_description, price, status_name)
+        SELECT n.id, n.order_date, n.product_id, n.customer_id, n.status_id, n.quantity,
+               c.first_name, c.last_name, p.description, p.price, os.status_name
+        FROM new_rows n
+        JOIN customer c ON c.id = n.customer_id
+        JOIN products p ON p.id = n.product_id
+        JOIN order_status os ON os.id = n.status_id
+        ON CONFLICT (id) DO UPDATE
+        SET order_date = EXCLUDED.order_date,
+            product_id = EXCLUDED.product_id,
+            customer_id = EXCLUDED.customer_id,
+            status_id = EXCLUDED.status_id,
+            quantity = EXCLUDED.quantity,
+            first_name = EXCLUDED.first_name,
+            last_name = EXCLUDED.last_name,
+            product_description = EXCLUDED.product_description,
+            price = EXCLUDED.price,
+            status_name = EXCLUDED.status_name;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Изменения справочников переписывают только заказы тех строк, где отображаемое поле действительно
+-- изменилось: списание остатка товара при каждом заказе (UPDATE products SET quantity) список не трогает
+CREATE OR REPLACE FUNCTION customer_listing_trigger() RETURNS trigger AS $$
+BEGIN
+    UPDATE order_listing l
+    SET first_name = n.first_name,
+        last_name = n.last_name
+    FROM new_rows n
+    JOIN old_rows o ON o.id = n.id
+    WHERE (n.first_name, n.last_name) IS DISTINCT FROM (o.first_name, o.last_name)
+      AND l.customer_id = n.id
+      AND (l.first_name, l.last_name) IS DISTINCT FROM (n.first_name, n.last_name);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION products_listing_trigger() RETURNS trigger AS $$
+BEGIN
+    UPDATE order_listing l
+    SET product_description = n.description,
+        price = n.price
+    FROM new_rows n
+    JOIN old_rows o ON o.id = n.id
+    WHERE (n.description, n.price) IS DISTINCT FROM (o.description, o.price)
+      AND l.product_id = n.id
+      AND (l.product_description, l.price) IS DISTINCT FROM (n.description, n.price);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION order_status_listing_trigger() RETURNS trigger AS $$
+BEGIN
+    UPDATE order_listing l
+    SET status_name = n.status_name
+    FROM new_rows n
+    JOIN old_rows o ON o.id = n.id
+    WHERE n.status_name IS DISTINCT FROM o.status_name
+      AND l.status_id = n.id
+      AND l.status_name IS DISTINCT FROM n.status_name;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER orders_listing_insert
+    AFTER INSERT ON orders
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION orders_listing_trigger();
+
+CREATE TRIGGER orders_listing_update
+    AFTER UPDATE ON orders
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION orders_listing_trigger();
+
+CREATE TRIGGER orders_listing_delete
+    AFTER DELETE ON orders
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION orders_listing_trigger();
+
+CREATE TRIGGER customer_listing_update
+    AFTER UPDATE ON customer
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION customer_listing_trigger();
+
+CREATE TRIGGER products_listing_update
+    AFTER UPDATE ON products
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION products_listing_trigger();
+
+CREATE TRIGGER order_status_listing_update
+    AFTER UPDATE ON order_status
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION order_status_listing_trigger();
+
+-- Начальное заполнение по уже существующим заказам
+INSERT INTO order_listing (id, order_date, product_id, customer_id, status_id, quantity,
+                           first_name, last_name, product_description, price, status_name)
+SELECT o.id, o.order_date, o.product_id, o.customer_id, o.status_id, o.quantity,
+       c.first_name, c.last_name, p.description, p.price, os.status_name
+FROM orders o
+JOIN customer c ON c.id = o.customer_id
+JOIN products p ON p.id = o.product_id
+JOIN order_status os ON os.id = o.status_id
+ON CONFLICT (id) DO NOTHING;
@@ -0,0 +1,89 @@
+-- Уведомления об изменениях таблиц для кэшей на всех узлах приложения (ChangeNotifier).
+-- Канал table_changes, полезная нагрузка "таблица|операция|id,id,..." или "таблица|операция|*",
+-- если затронуто больше 500 строк (лимит NOTIFY - 8000 байт). Уведомления доставляются только
+-- после фиксации транзакции, одинаковые уведомления одной транзакции PostgreSQL объединяет сам.
+-- Триггеры есть только на таблицах, у которых есть подписчики (products, customer, order_status):
+-- NOTIFY упорядочивает фиксацию транзакций через общую очередь, на orders это легло бы на каждый заказ.
+CREATE OR REPLACE FUNCTION notify_table_change() RETURNS trigger AS $$
+DECLARE
+    changed_count BIGINT;
+    changed_ids TEXT;
+BEGIN
+    IF TG_OP = 'TRUNCATE' THEN
+        PERFORM pg_notify('table_changes', TG_TABLE_NAME || '|' || TG_OP || '|*');
+        RETURN NULL;
+    ELSIF TG_OP = 'INSERT' THEN
+        SELECT COUNT(*), string_agg(id::text, ',') INTO changed_count, changed_ids
+        FROM (SELECT DISTINCT id FROM new_rows LIMIT 501) changed;
+    ELSIF TG_OP = 'DELETE' THEN
+        SELECT COUNT(*), string_agg(id::text, ',') INTO changed_count, changed_ids
+        FROM (SELECT DISTINCT id FROM old_rows LIMIT 501) changed;
+    ELSE
+        SELECT COUNT(*), string_agg(id::text, ',') INTO changed_count, changed_ids
+        FROM (SELECT id FROM new_rows UNION SELECT id FROM old_rows LIMIT 501) changed;
+    END IF;
+
+    IF changed_count > 0 THEN
+        PERFORM pg_notify('table_changes', TG_TABLE_NAME || '|' || TG_OP || '|'
+                || CASE WHEN changed_count > 500 THEN '*' ELSE changed_ids END);
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER products_notify_insert
+    AFTER INSERT ON products
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+CREATE TRIGGER products_notify_update
+    AFTER UPDATE ON products
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+CREATE TRIGGER products_notify_delete
+    AFTER DELETE ON products
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+CREATE TRIGGER products_notify_truncate
+    AFTER TRUNCATE ON products
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+CREATE TRIGGER order_status_notify_insert
+    AFTER INSERT ON order_status
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+CREATE TRIGGER order_status_notify_update
+    AFTER UPDATE ON order_status
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+CREATE TRIGGER order_status_notify_delete
+    AFTER DELETE ON order_status
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+CREATE TRIGGER order_status_notify_truncate
+    AFTER TRUNCATE ON order_status
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+CREATE TRIGGER customer_notify_insert
+    AFTER INSERT ON customer
+    REFERENCING NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+CREATE TRIGGER customer_notify_update
+    AFTER UPDATE ON customer
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+CREATE TRIGGER customer_notify_delete
+    AFTER DELETE ON customer
+    REFERENCING OLD TABLE AS old_rows
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+CREATE TRIGGER customer_notify_truncate
+    AFTER TRUNCATE ON customer
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();